@@ -0,0 +1,50 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.2"
+    id("com.diffplug.spotless") version "6.25.0"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// The library is an Android library, which plain JVM modules can't depend on. Instead, its sources
+// are compiled against Robolectric's build of the Android framework, which contains the real
+// implementations of Intent, Bundle, Uri and org.json rather than stubs.
+sourceSets {
+    main {
+        java.srcDir("../integration-library/src/main/java")
+    }
+}
+
+dependencies {
+    implementation(project(":integration-core"))
+    implementation("org.robolectric:android-all:14-robolectric-10818077")
+    implementation("androidx.annotation:annotation-jvm:1.8.0")
+    annotationProcessor(project(":integration-codegen"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    profilers.set(listOf("gc"))
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("2s")
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    resultFormat.set("JSON")
+    // Allows running a subset, e.g.: ./gradlew :benchmark:jmh -Pjmh.includes=ItemList
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
+
+spotless {
+    java {
+        target("src/*/java/**/*.java")
+        importOrder()
+        removeUnusedImports()
+        googleJavaFormat().aosp()
+    }
+}
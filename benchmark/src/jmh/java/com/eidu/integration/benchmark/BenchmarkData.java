@@ -0,0 +1,35 @@
+package com.eidu.integration.benchmark;
+
+import com.eidu.integration.ResultItem;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Generates realistic result data for benchmarks. */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    /**
+     * Creates a list of items resembling those of an arithmetic unit, in which challenges and
+     * responses repeat across items, and some fields are missing.
+     */
+    static List<ResultItem> items(int count) {
+        List<ResultItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int a = i % 10;
+            int b = (i / 10) % 10;
+            String correct = String.valueOf(a + b);
+            String given = i % 7 == 0 ? String.valueOf(a + b + 1) : correct;
+            items.add(
+                    new ResultItem(
+                            "item-" + i,
+                            a + " + " + b,
+                            i % 13 == 0 ? null : given,
+                            correct,
+                            given.equals(correct) ? 1f : 0f,
+                            800L + (i * 37L) % 4000,
+                            i % 11 == 0 ? null : 150L + (i * 13L) % 900));
+        }
+        return items;
+    }
+}
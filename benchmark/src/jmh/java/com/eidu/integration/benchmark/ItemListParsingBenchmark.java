@@ -0,0 +1,54 @@
+package com.eidu.integration.benchmark;
+
+import com.eidu.integration.ResultItem;
+import com.eidu.integration.ResultItemBinaryReader;
+import com.eidu.integration.ResultItemBinaryWriter;
+import com.eidu.integration.ResultItemJsonReader;
+import com.eidu.integration.ResultItemJsonWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares ways of parsing a serialized list of items into {@link ResultItem}s. */
+@State(Scope.Benchmark)
+public class ItemListParsingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int itemCount;
+
+    private String json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() {
+        List<ResultItem> items = BenchmarkData.items(itemCount);
+        json = ResultItemJsonWriter.writeItems(items);
+        binary = ResultItemBinaryWriter.writeItems(items);
+    }
+
+    /** The approach the library used originally, building a JSONArray of JSONObjects first. */
+    @Benchmark
+    public List<ResultItem> jsonArray() throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<ResultItem> items = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++)
+            items.add(ResultItem.fromJson(array.getJSONObject(i)));
+        return items;
+    }
+
+    @Benchmark
+    public List<ResultItem> streamingJson() {
+        return ResultItemJsonReader.readItems(json);
+    }
+
+    @Benchmark
+    public List<ResultItem> binary() {
+        return ResultItemBinaryReader.readItems(binary);
+    }
+}
@@ -0,0 +1,32 @@
+package com.eidu.integration.benchmark;
+
+import com.eidu.integration.ResultItem;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class ResultItemBenchmark {
+
+    private ResultItem item;
+    private JSONObject json;
+
+    @Setup
+    public void setUp() throws JSONException {
+        item = BenchmarkData.items(2).get(1);
+        json = item.toJson();
+    }
+
+    @Benchmark
+    public JSONObject toJson() throws JSONException {
+        return item.toJson();
+    }
+
+    @Benchmark
+    public ResultItem fromJson() {
+        return ResultItem.fromJson(json);
+    }
+}
@@ -0,0 +1,41 @@
+package com.eidu.integration.benchmark;
+
+import android.content.Intent;
+import android.net.Uri;
+import com.eidu.integration.RunLearningUnitRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class RunLearningUnitRequestBenchmark {
+
+    private RunLearningUnitRequest request;
+    private Intent intent;
+
+    @Setup
+    public void setUp() {
+        request =
+                RunLearningUnitRequest.of(
+                        "learning-unit-42",
+                        "4f0a2b8e-5c1d-4e0b-9a51-0d9b3c7e6f21",
+                        "learner-1234",
+                        "school-5678",
+                        "prod",
+                        600_000L,
+                        60_000L,
+                        Uri.parse("content://com.eidu.assets/units/learning-unit-42"));
+        intent = request.toIntent("com.example.app", "com.example.app.MainActivity");
+    }
+
+    @Benchmark
+    public Intent toIntent() {
+        return request.toIntent("com.example.app", "com.example.app.MainActivity");
+    }
+
+    @Benchmark
+    public RunLearningUnitRequest fromIntent() {
+        return RunLearningUnitRequest.fromIntent(intent);
+    }
+}
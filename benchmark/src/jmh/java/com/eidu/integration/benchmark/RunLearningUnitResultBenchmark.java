@@ -0,0 +1,65 @@
+package com.eidu.integration.benchmark;
+
+import android.content.Intent;
+import com.eidu.integration.ResultItem;
+import com.eidu.integration.RunLearningUnitResult;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class RunLearningUnitResultBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int itemCount;
+
+    private RunLearningUnitResult result;
+    private Intent jsonIntent;
+    private Intent binaryIntent;
+
+    @Setup
+    public void setUp() {
+        result =
+                RunLearningUnitResult.ofSuccess(
+                        0.85f, 123_456L, "{\"level\":3}", BenchmarkData.items(itemCount));
+        jsonIntent = result.toIntent();
+        binaryIntent = result.toIntent(RunLearningUnitResult.ItemsEncoding.Binary);
+    }
+
+    @Benchmark
+    public Intent toIntentJson() {
+        return result.toIntent();
+    }
+
+    @Benchmark
+    public Intent toIntentBinary() {
+        return result.toIntent(RunLearningUnitResult.ItemsEncoding.Binary);
+    }
+
+    /** Parses a result, but only accesses the fields that routing and logging typically need. */
+    @Benchmark
+    public void fromIntentWithoutItems(Blackhole blackhole) {
+        RunLearningUnitResult parsed = RunLearningUnitResult.fromIntent(jsonIntent);
+        blackhole.consume(parsed.resultType);
+        blackhole.consume(parsed.score);
+        blackhole.consume(parsed.foregroundDurationInMs);
+    }
+
+    @Benchmark
+    public void fromIntentJson(Blackhole blackhole) {
+        consumeItems(RunLearningUnitResult.fromIntent(jsonIntent).items, blackhole);
+    }
+
+    @Benchmark
+    public void fromIntentBinary(Blackhole blackhole) {
+        consumeItems(RunLearningUnitResult.fromIntent(binaryIntent).items, blackhole);
+    }
+
+    private static void consumeItems(List<ResultItem> items, Blackhole blackhole) {
+        for (int i = 0; i < items.size(); i++) blackhole.consume(items.get(i));
+    }
+}
@@ -0,0 +1,20 @@
+plugins {
+    id("java-library")
+    id("com.diffplug.spotless") version "6.25.0"
+}
+
+// Annotation processor that generates the mappers of the model classes in integration-core and
+// integration-library at compile time. It is only used to build these modules and isn't published.
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+spotless {
+    java {
+        target("src/*/java/**/*.java")
+        importOrder()
+        removeUnusedImports()
+        googleJavaFormat().aosp()
+    }
+}
@@ -0,0 +1,401 @@
+package com.eidu.integration.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates the mapper classes for model classes annotated with {@code com.eidu.integration.Codec}.
+ * See the documentation of that annotation for what is generated.
+ *
+ * <p>The annotations are looked up by name, so that this processor doesn't depend on the modules it
+ * processes.
+ */
+public final class CodecProcessor extends AbstractProcessor {
+
+    static final String CODEC = "com.eidu.integration.Codec";
+    static final String CODEC_FIELD = "com.eidu.integration.CodecField";
+
+    enum Format {
+        Json,
+        Bundle
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(CODEC);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations)
+            for (Element element : round.getElementsAnnotatedWith(annotation))
+                if (element instanceof TypeElement) generate((TypeElement) element);
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        AnnotationMirror codec = annotation(type, CODEC);
+        Set<Format> formats = EnumSet.noneOf(Format.class);
+        boolean decode = true;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(codec).entrySet()) {
+            String name = entry.getKey().getSimpleName().toString();
+            Object value = entry.getValue().getValue();
+            if (name.equals("value"))
+                for (Object format : (List<?>) value)
+                    formats.add(
+                            Format.valueOf(
+                                    ((VariableElement) ((AnnotationValue) format).getValue())
+                                            .getSimpleName()
+                                            .toString()));
+            else if (name.equals("decode")) decode = (Boolean) value;
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (VariableElement element : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            AnnotationMirror annotation = annotation(element, CODEC_FIELD);
+            if (annotation == null) continue;
+            Field field = field(element, annotation);
+            if (field == null) return;
+            fields.add(field);
+        }
+
+        boolean generateFromJson = decode && formats.contains(Format.Json);
+        if (generateFromJson && !hasMatchingConstructor(type, fields)) {
+            error(
+                    type,
+                    "No non-private constructor whose parameters match the fields annotated with "
+                            + "@CodecField, which is required for decoding.");
+            return;
+        }
+
+        StringBuilder source = new StringBuilder();
+        String packageName = packageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String mapperName = type.getSimpleName() + "Mapper";
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("/** Generated by ")
+                .append(CodecProcessor.class.getName())
+                .append(" for {@link ")
+                .append(typeName)
+                .append("}. Do not edit. */\n")
+                .append("final class ")
+                .append(mapperName)
+                .append(" {\n\n    private ")
+                .append(mapperName)
+                .append("() {}\n");
+        if (formats.contains(Format.Json)) {
+            appendToJson(source, typeName, fields);
+            if (generateFromJson) appendFromJson(source, typeName, fields);
+        }
+        if (formats.contains(Format.Bundle)) appendToBundle(source, typeName, fields);
+        source.append("}\n");
+
+        String qualifiedMapperName =
+                packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try (Writer writer =
+                processingEnv.getFiler().createSourceFile(qualifiedMapperName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Failed to write " + qualifiedMapperName + ": " + e.getMessage());
+        }
+    }
+
+    private static void appendToJson(StringBuilder source, String typeName, List<Field> fields) {
+        source.append("\n    static org.json.JSONObject toJson(")
+                .append(typeName)
+                .append(" value) throws org.json.JSONException {\n")
+                .append("        org.json.JSONObject json = new org.json.JSONObject();\n");
+        for (Field field : fields) {
+            String value = "value." + field.name;
+            if (field.kind.primitive) {
+                source.append("        json.put(")
+                        .append(field.key)
+                        .append(", ")
+                        .append(value)
+                        .append(");\n");
+                continue;
+            }
+            String encoded = field.kind == Kind.Enum ? value + ".name()" : value;
+            if (field.omitIfNull)
+                source.append("        if (")
+                        .append(value)
+                        .append(" != null) json.put(")
+                        .append(field.key)
+                        .append(", ")
+                        .append(encoded)
+                        .append(");\n");
+            else
+                source.append("        json.put(")
+                        .append(field.key)
+                        .append(", ")
+                        .append(value)
+                        .append(" == null ? org.json.JSONObject.NULL : ")
+                        .append(encoded)
+                        .append(");\n");
+        }
+        source.append("        return json;\n    }\n");
+    }
+
+    private static void appendFromJson(StringBuilder source, String typeName, List<Field> fields) {
+        source.append("\n    static ")
+                .append(typeName)
+                .append(" fromJson(org.json.JSONObject json) {\n")
+                .append("        return new ")
+                .append(typeName)
+                .append("(");
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            source.append(i == 0 ? "\n                " : ",\n                ");
+            String read;
+            switch (field.kind) {
+                case String:
+                    read = "json.optString(" + field.key + ")";
+                    if (field.pooled)
+                        read = "com.eidu.integration.StringPool.shared().intern(" + read + ")";
+                    break;
+                case Enum:
+                    read = field.typeName + ".valueOf(json.optString(" + field.key + "))";
+                    break;
+                case Int:
+                case BoxedInt:
+                    read = "json.optInt(" + field.key + ")";
+                    break;
+                case Long:
+                case BoxedLong:
+                    read = "json.optLong(" + field.key + ")";
+                    break;
+                case Float:
+                case BoxedFloat:
+                    read = "(float) json.optDouble(" + field.key + ")";
+                    break;
+                default:
+                    read = "json.optBoolean(" + field.key + ")";
+                    break;
+            }
+            if (field.kind.primitive) source.append(read);
+            else source.append("json.isNull(").append(field.key).append(") ? null : ").append(read);
+        }
+        source.append(");\n    }\n");
+    }
+
+    private static void appendToBundle(StringBuilder source, String typeName, List<Field> fields) {
+        source.append("\n    static android.os.Bundle toBundle(")
+                .append(typeName)
+                .append(" value, android.os.Bundle bundle) {\n");
+        for (Field field : fields) {
+            String value = "value." + field.name;
+            String put;
+            switch (field.kind) {
+                case String:
+                    put = "putString(" + field.key + ", " + value + ")";
+                    break;
+                case Enum:
+                    put = "putString(" + field.key + ", " + value + ".name())";
+                    break;
+                case Int:
+                case BoxedInt:
+                    put = "putInt(" + field.key + ", " + value + ")";
+                    break;
+                case Long:
+                case BoxedLong:
+                    put = "putLong(" + field.key + ", " + value + ")";
+                    break;
+                case Float:
+                case BoxedFloat:
+                    put = "putFloat(" + field.key + ", " + value + ")";
+                    break;
+                default:
+                    put = "putBoolean(" + field.key + ", " + value + ")";
+                    break;
+            }
+            if (field.kind.primitive || (field.kind == Kind.String && !field.omitIfNull))
+                source.append("        bundle.").append(put).append(";\n");
+            else if (field.omitIfNull)
+                source.append("        if (")
+                        .append(value)
+                        .append(" != null) bundle.")
+                        .append(put)
+                        .append(";\n");
+            else
+                source.append("        if (")
+                        .append(value)
+                        .append(" != null) bundle.")
+                        .append(put)
+                        .append(";\n        else bundle.")
+                        .append(field.kind == Kind.Enum ? "putString(" : "putSerializable(")
+                        .append(field.key)
+                        .append(", null);\n");
+        }
+        source.append("        return bundle;\n    }\n");
+    }
+
+    private Field field(VariableElement element, AnnotationMirror annotation) {
+        if (element.getModifiers().contains(Modifier.PRIVATE)) {
+            error(element, "Fields annotated with @CodecField must not be private.");
+            return null;
+        }
+        String key = null;
+        boolean omitIfNull = true;
+        boolean pooled = true;
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv
+                        .getElementUtils()
+                        .getElementValuesWithDefaults(annotation)
+                        .entrySet()) {
+            String name = entry.getKey().getSimpleName().toString();
+            // AnnotationValue.toString() yields a Java literal, with quotes and escapes.
+            if (name.equals("value")) key = entry.getValue().toString();
+            else if (name.equals("omitIfNull")) omitIfNull = (Boolean) entry.getValue().getValue();
+            else if (name.equals("pooled")) pooled = (Boolean) entry.getValue().getValue();
+        }
+        Kind kind = kind(element.asType());
+        if (kind == null) {
+            error(element, "Unsupported type for @CodecField: " + element.asType());
+            return null;
+        }
+        return new Field(
+                element.getSimpleName().toString(),
+                key,
+                kind,
+                processingEnv.getTypeUtils().erasure(element.asType()).toString(),
+                omitIfNull,
+                pooled);
+    }
+
+    private Kind kind(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return Kind.Int;
+            case LONG:
+                return Kind.Long;
+            case FLOAT:
+                return Kind.Float;
+            case BOOLEAN:
+                return Kind.Boolean;
+            case DECLARED:
+                Element element = ((DeclaredType) type).asElement();
+                if (element.getKind() == ElementKind.ENUM) return Kind.Enum;
+                switch (((TypeElement) element).getQualifiedName().toString()) {
+                    case "java.lang.String":
+                        return Kind.String;
+                    case "java.lang.Integer":
+                        return Kind.BoxedInt;
+                    case "java.lang.Long":
+                        return Kind.BoxedLong;
+                    case "java.lang.Float":
+                        return Kind.BoxedFloat;
+                    case "java.lang.Boolean":
+                        return Kind.BoxedBoolean;
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private boolean hasMatchingConstructor(TypeElement type, List<Field> fields) {
+        constructors:
+        for (ExecutableElement constructor :
+                ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) continue;
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() != fields.size()) continue;
+            for (int i = 0; i < parameters.size(); i++) {
+                String parameterType =
+                        processingEnv.getTypeUtils().erasure(parameters.get(i).asType()).toString();
+                if (!parameterType.equals(fields.get(i).typeName)) continue constructors;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors())
+            if (((TypeElement) mirror.getAnnotationType().asElement())
+                    .getQualifiedName()
+                    .contentEquals(name)) return mirror;
+        return null;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (!(element instanceof PackageElement)) element = element.getEnclosingElement();
+        return (PackageElement) element;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    enum Kind {
+        String(false),
+        Enum(false),
+        Int(true),
+        Long(true),
+        Float(true),
+        Boolean(true),
+        BoxedInt(false),
+        BoxedLong(false),
+        BoxedFloat(false),
+        BoxedBoolean(false);
+
+        final boolean primitive;
+
+        Kind(boolean primitive) {
+            this.primitive = primitive;
+        }
+    }
+
+    static final class Field {
+        final String name;
+        final String key;
+        final Kind kind;
+        final String typeName;
+        final boolean omitIfNull;
+        final boolean pooled;
+
+        Field(
+                String name,
+                String key,
+                Kind kind,
+                String typeName,
+                boolean omitIfNull,
+                boolean pooled) {
+            this.name = name;
+            this.key = key;
+            this.kind = kind;
+            this.typeName = typeName;
+            this.omitIfNull = omitIfNull;
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.Base64
+
+plugins {
+    id("java-library")
+    id("maven-publish")
+    id("com.diffplug.spotless") version "6.25.0"
+    id("signing")
+    id("com.palantir.git-version") version "3.0.0"
+    id("tech.yanand.maven-central-publish").version("1.3.0")
+}
+
+val gitVersion: groovy.lang.Closure<String> by extra
+
+version = gitVersion()
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+    withSourcesJar()
+    withJavadocJar()
+}
+
+dependencies {
+    compileOnly("androidx.annotation:annotation-jvm:1.8.0")
+    // Only needed by ResultItem.toJson and ResultItem.fromJson. Android provides org.json itself;
+    // JVM consumers that use these methods need to add it to their own dependencies.
+    compileOnly("org.json:json:20231013")
+    annotationProcessor(project(":integration-codegen"))
+
+    testImplementation("org.junit.jupiter:junit-jupiter-api:5.10.3")
+    testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.10.3")
+    testImplementation("org.junit.jupiter:junit-jupiter-params:5.10.3")
+    testCompileOnly("androidx.annotation:annotation-jvm:1.8.0")
+    testImplementation("org.json:json:20231013")
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+tasks.named<Javadoc>("javadoc") {
+    (options as StandardJavadocDocletOptions).apply {
+        source = "8" // workaround for https://bugs.openjdk.java.net/browse/JDK-8212233
+        links("https://docs.oracle.com/javase/7/docs/api/")
+    }
+}
+
+fun coreArtifactId(): String = "integration-core"
+
+publishing {
+    publications {
+        create<MavenPublication>("maven") {
+            groupId = "com.eidu"
+            artifactId = coreArtifactId()
+            version = gitVersion()
+            from(components["java"])
+
+            pom {
+                name.value(coreArtifactId())
+                description.value("EIDU Integration Library - Android-free result item codecs")
+                url.value("https://github.com/EIDU/integration-library")
+                licenses {
+                    license {
+                        name.value("MIT License")
+                        url.value("https://raw.githubusercontent.com/EIDU/integration-library/main/LICENSE")
+                    }
+                }
+                developers {
+                    developer {
+                        id.value("berlix")
+                        name.value("Felix Engelhardt")
+                        url.value("https://github.com/berlix/")
+                    }
+                }
+                scm {
+                    url.value("https://github.com/EIDU/integration-library")
+                    connection.value("scm:git:git://github.com/EIDU/integration-library.git")
+                    developerConnection.value("scm:git:ssh://git@github.com/EIDU/integration-library.git")
+                }
+            }
+        }
+    }
+}
+
+signing {
+    useInMemoryPgpKeys(
+        System.getenv("SIGNING_KEY_ID"),
+        System.getenv("SIGNING_KEY"),
+        System.getenv("SIGNING_PASSWORD")
+    )
+    sign(publishing.publications)
+}
+
+mavenCentral {
+    authToken.set(Base64.getEncoder().encodeToString("${System.getenv("MAVEN_CENTRAL_USERNAME")}:${System.getenv("MAVEN_CENTRAL_PASSWORD")}".toByteArray()))
+    publishingType.set("USER_MANAGED")
+    maxWait.set(300)
+}
+
+spotless {
+    java {
+        target("src/*/java/**/*.java")
+        importOrder()
+        removeUnusedImports()
+        googleJavaFormat().aosp()
+    }
+}
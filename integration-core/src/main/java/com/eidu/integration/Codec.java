@@ -0,0 +1,41 @@
+package com.eidu.integration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a mapper class for a model class at compile time, so that its fields don't have to be
+ * encoded and decoded by hand. The mapper is named after the class with the suffix {@code Mapper},
+ * is placed in the same package, and covers the fields annotated with {@link CodecField}, in the
+ * order in which they are declared.
+ *
+ * <p>The generated code is straight-line code that reads and writes each field directly, without
+ * reflection. For {@link Format#Json}, the mapper has the methods {@code toJson(T)} and, if {@link
+ * #decode()} is true, {@code fromJson(JSONObject)}, which calls the constructor whose parameters
+ * match the annotated fields. For {@link Format#Bundle}, it has {@code toBundle(T, Bundle)}.
+ * Bundles are only encoded: decoding them must accept the variants that older versions of this
+ * library wrote, so that is written by hand.
+ *
+ * <p>The generator is the {@code integration-codegen} module, which must be configured as an
+ * annotation processor of each module that uses this annotation.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+@interface Codec {
+
+    /** A form that a mapper can convert to and from. */
+    enum Format {
+        /** An {@code org.json.JSONObject}. */
+        Json,
+        /** An {@code android.os.Bundle}, e.g. the extras of an intent. */
+        Bundle
+    }
+
+    /** The forms to generate code for. */
+    Format[] value();
+
+    /** Whether to generate decoding methods. */
+    boolean decode() default true;
+}
@@ -0,0 +1,32 @@
+package com.eidu.integration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field that is encoded by the mapper generated for its class, see {@link Codec}. The field
+ * must not be private, and must be a {@link String}, an enum, or a primitive or boxed {@code int},
+ * {@code long}, {@code float} or {@code boolean}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+@interface CodecField {
+
+    /** The key under which the field is stored. */
+    String value();
+
+    /**
+     * Whether the key is left out if the field is null. Otherwise, it is stored with a null value,
+     * which some readers can distinguish from a missing key.
+     */
+    boolean omitIfNull() default true;
+
+    /**
+     * Whether decoded {@link String} values are taken from {@link StringPool#shared()}. Should be
+     * false for values that are usually unique, such as IDs, which would only evict the values that
+     * do repeat.
+     */
+    boolean pooled() default true;
+}
@@ -0,0 +1,149 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * Summarizes a stream of durations in fixed memory, so that percentiles can be computed without
+ * keeping every value.
+ *
+ * <p>Values are counted in log-linear buckets: values below 64 each have a bucket of their own, and
+ * every larger power of two is divided into 32 buckets of equal width. Percentiles are reported as
+ * the middle of the bucket they fall into, which is within 1.6% of the exact value, and are never
+ * smaller than {@link #min()} or larger than {@link #max()}, which are exact. The sketch holds 1888
+ * counters regardless of how many values are added.
+ *
+ * <p>Negative values are counted as 0 in the buckets, but included in {@link #mean()} as they are.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class LatencySketch {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+    @NonNull private final int[] counts;
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /** Creates an empty sketch. */
+    public LatencySketch() {
+        counts = new int[BUCKETS];
+    }
+
+    /**
+     * Creates a copy of a sketch.
+     *
+     * @param other The sketch to copy.
+     */
+    public LatencySketch(@NonNull LatencySketch other) {
+        counts = Arrays.copyOf(other.counts, BUCKETS);
+        count = other.count;
+        sum = other.sum;
+        min = other.min;
+        max = other.max;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value, e.g. a duration in milliseconds.
+     */
+    public void add(long value) {
+        counts[bucket(Math.max(value, 0))]++;
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Adds all values of another sketch to this one, e.g. to summarize many runs. The result is the
+     * same as if the values had been added to this sketch directly.
+     *
+     * @param other The sketch to add.
+     */
+    public void merge(@NonNull LatencySketch other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        if (other.min < min) min = other.min;
+        if (other.max > max) max = other.max;
+    }
+
+    /** Returns the number of values added. */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value added.
+     *
+     * @throws IllegalStateException If no values have been added.
+     */
+    public long min() {
+        requireValues();
+        return min;
+    }
+
+    /**
+     * Returns the largest value added.
+     *
+     * @throws IllegalStateException If no values have been added.
+     */
+    public long max() {
+        requireValues();
+        return max;
+    }
+
+    /**
+     * Returns the exact mean of the values added.
+     *
+     * @throws IllegalStateException If no values have been added.
+     */
+    public double mean() {
+        requireValues();
+        return (double) sum / count;
+    }
+
+    /**
+     * Returns an approximation of a percentile of the values added, i.e. the smallest value such
+     * that at least the given fraction of values is less than or equal to it.
+     *
+     * @param fraction The percentile as a fraction between 0 and 1, e.g. 0.5 for the median.
+     * @return The approximate percentile.
+     * @throws IllegalArgumentException If fraction is not between 0 and 1.
+     * @throws IllegalStateException If no values have been added.
+     */
+    public long percentile(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1))
+            throw new IllegalArgumentException("Percentile must be between 0 and 1: " + fraction);
+        requireValues();
+        if (fraction == 0) return min;
+        if (fraction == 1) return max;
+
+        long rank = Math.max((long) Math.ceil(fraction * count), 1);
+        long seen = 0;
+        int bucket = 0;
+        while ((seen += counts[bucket]) < rank) bucket++;
+        return Math.min(Math.max(middle(bucket), min), max);
+    }
+
+    private void requireValues() {
+        if (count == 0) throw new IllegalStateException("Latency sketch is empty.");
+    }
+
+    private static int bucket(long value) {
+        int shift = Math.max(63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, 0);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long middle(int bucket) {
+        int shift = Math.max((bucket >>> SUB_BUCKET_BITS) - 1, 0);
+        long lower = (long) (bucket - (shift << SUB_BUCKET_BITS)) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+}
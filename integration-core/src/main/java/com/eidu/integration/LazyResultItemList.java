@@ -0,0 +1,146 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of {@link ResultItem}s that keeps their serialized form and only decodes what
+ * is actually accessed.
+ *
+ * <p>Nothing is parsed until the list is first accessed. At that point, the serialized items are
+ * scanned once to locate the start of each item, which doesn't allocate any items or strings.
+ * Individual items are decoded only when {@link #get(int)} is first called for them.
+ *
+ * <p>When such a list is passed to one of the {@code RunLearningUnitResult} factory methods, {@code
+ * RunLearningUnitResult.toIntent()} reuses the serialized form where possible instead of encoding
+ * the items again.
+ *
+ * <p>Since parsing is deferred, malformed input is only detected once the list is accessed, which
+ * then throws an {@link IllegalArgumentException}.
+ */
+public final class LazyResultItemList extends AbstractList<ResultItem> implements RandomAccess {
+
+    @Nullable private final String json;
+    @Nullable private final byte[] binary;
+
+    @Nullable private ResultItemJsonReader jsonReader;
+    @Nullable private ResultItemBinaryReader binaryReader;
+    @Nullable private int[] offsets;
+    @Nullable private int[] stringIndices;
+    @Nullable private ResultItem[] decoded;
+    private int size = -1;
+
+    private LazyResultItemList(@Nullable String json, @Nullable byte[] binary) {
+        this.json = json;
+        this.binary = binary;
+    }
+
+    /**
+     * Creates a list backed by a JSON array, as written by {@link ResultItemJsonWriter}.
+     *
+     * @param json The JSON text. Must not be <code>"null"</code>.
+     * @return The new list.
+     */
+    @NonNull
+    public static LazyResultItemList ofJson(@NonNull String json) {
+        return new LazyResultItemList(json, null);
+    }
+
+    /**
+     * Creates a list backed by data in the binary format written by {@link ResultItemBinaryWriter}.
+     *
+     * @param binary The encoded items. Must not be modified afterwards.
+     * @return The new list.
+     */
+    @NonNull
+    public static LazyResultItemList ofBinary(@NonNull byte[] binary) {
+        return new LazyResultItemList(null, binary);
+    }
+
+    /**
+     * Returns the item at the given index, decoding it if it hasn't been decoded before.
+     *
+     * @throws IllegalArgumentException If the serialized items are malformed.
+     */
+    @Override
+    public synchronized ResultItem get(int index) {
+        index();
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+
+        ResultItem item = decoded[index];
+        if (item == null) {
+            item =
+                    jsonReader != null
+                            ? jsonReader.itemAt(offsets[index])
+                            : binaryReader.itemAt(offsets[index], stringIndices[index]);
+            decoded[index] = item;
+        }
+        return item;
+    }
+
+    /**
+     * Returns the number of items, scanning the serialized items if necessary.
+     *
+     * @throws IllegalArgumentException If the serialized items are malformed.
+     */
+    @Override
+    public synchronized int size() {
+        index();
+        return size;
+    }
+
+    /** Returns the JSON text backing this list, if any. */
+    @Nullable
+    String json() {
+        return json;
+    }
+
+    /** Returns the binary data backing this list, if any. */
+    @Nullable
+    byte[] binary() {
+        return binary;
+    }
+
+    private void index() {
+        if (size >= 0) return;
+
+        int[] offsets = new int[16];
+        int[] stringIndices = null;
+        int count = 0;
+        if (json != null) {
+            ResultItemJsonReader reader = new ResultItemJsonReader(json);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+                offsets[count++] = reader.position();
+                reader.skipItem();
+            }
+            reader.endArray();
+            jsonReader = reader;
+        } else {
+            ResultItemBinaryReader reader = new ResultItemBinaryReader(binary);
+            stringIndices = new int[16];
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    stringIndices = Arrays.copyOf(stringIndices, count * 2);
+                }
+                offsets[count] = reader.position();
+                stringIndices[count++] = reader.stringIndex();
+                reader.skipItem();
+            }
+            reader.endArray();
+            binaryReader = reader;
+        }
+
+        this.offsets = offsets;
+        this.stringIndices = stringIndices;
+        decoded = new ResultItem[count];
+        size = count;
+    }
+}
@@ -0,0 +1,403 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the items of many results in parallel, e.g. on a server that processes uploads containing
+ * thousands of results. Items are decoded with the same semantics as {@link ResultItemCodec}.
+ *
+ * <p>Work is split by result, and the items of a result with more than {@code itemsPerTask} items
+ * are additionally split into chunks that are decoded in parallel. To find the chunk boundaries,
+ * such a result is first scanned without decoding anything, like {@link LazyResultItemList} does.
+ *
+ * <p>The outcome of each result is reported separately, in the order of the input, so that a
+ * malformed result neither affects the others nor the order in which they are returned. The outcome
+ * does not depend on how the work was scheduled.
+ *
+ * <p>By default, the work is done in the {@link ForkJoinPool#commonPool() common pool}, with the
+ * calling thread taking part. Instances are immutable and thread-safe.
+ */
+public final class ParallelResultItemDecoder {
+
+    /** The default value of {@code itemsPerTask}, see {@link ParallelResultItemDecoder}. */
+    public static final int DEFAULT_ITEMS_PER_TASK = 1024;
+
+    /** The outcome of decoding the items of one result. */
+    public static final class Outcome {
+        /**
+         * The decoded items, or null if decoding failed or the JSON payload was <code>"null"
+         * </code>.
+         */
+        @Nullable public final List<ResultItem> items;
+
+        /** The reason why decoding failed, or null if it succeeded. */
+        @Nullable public final RuntimeException error;
+
+        Outcome(@Nullable List<ResultItem> items, @Nullable RuntimeException error) {
+            this.items = items;
+            this.error = error;
+        }
+
+        /** Returns whether decoding succeeded. */
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    @Nullable private final ForkJoinPool pool;
+    @Nullable private final Executor executor;
+    private final int itemsPerTask;
+
+    /** Creates a decoder that uses the common pool and {@link #DEFAULT_ITEMS_PER_TASK}. */
+    public ParallelResultItemDecoder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_ITEMS_PER_TASK);
+    }
+
+    /**
+     * Creates a decoder that uses the given pool.
+     *
+     * @param pool The pool to decode in.
+     * @param itemsPerTask The number of items above which a result is split into chunks.
+     * @throws IllegalArgumentException If {@code itemsPerTask} is not positive.
+     */
+    public ParallelResultItemDecoder(@NonNull ForkJoinPool pool, int itemsPerTask) {
+        this(pool, null, itemsPerTask);
+    }
+
+    /**
+     * Creates a decoder that uses the given executor. Unlike with a {@link ForkJoinPool}, the
+     * calling thread only waits for the work to be done. Tasks that the executor rejects are run on
+     * the thread that submits them.
+     *
+     * @param executor The executor to decode in.
+     * @param itemsPerTask The number of items above which a result is split into chunks.
+     * @throws IllegalArgumentException If {@code itemsPerTask} is not positive.
+     */
+    public ParallelResultItemDecoder(@NonNull Executor executor, int itemsPerTask) {
+        this(null, executor, itemsPerTask);
+    }
+
+    private ParallelResultItemDecoder(
+            @Nullable ForkJoinPool pool, @Nullable Executor executor, int itemsPerTask) {
+        if (itemsPerTask <= 0)
+            throw new IllegalArgumentException("Items per task must be positive.");
+        this.pool = pool;
+        this.executor = executor;
+        this.itemsPerTask = itemsPerTask;
+    }
+
+    /**
+     * Decodes payloads in either format, detecting which one each of them uses, like {@link
+     * ResultItemCodec#decode(byte[])}.
+     *
+     * @param payloads The encoded items of each result. JSON text must be encoded as UTF-8.
+     * @return The outcome for each payload, in the same order.
+     * @throws InterruptedException If the current thread is interrupted while waiting for an
+     *     executor.
+     */
+    @NonNull
+    public List<Outcome> decode(@NonNull List<byte[]> payloads) throws InterruptedException {
+        Payload[] decoded = new Payload[payloads.size()];
+        for (int i = 0; i < decoded.length; i++) decoded[i] = Payload.of(payloads.get(i));
+        return run(decoded);
+    }
+
+    /**
+     * Decodes JSON payloads, like {@link ResultItemCodec#decodeJson(String)}.
+     *
+     * @param payloads The JSON text of each result.
+     * @return The outcome for each payload, in the same order.
+     * @throws InterruptedException If the current thread is interrupted while waiting for an
+     *     executor.
+     */
+    @NonNull
+    public List<Outcome> decodeJson(@NonNull List<String> payloads) throws InterruptedException {
+        Payload[] decoded = new Payload[payloads.size()];
+        for (int i = 0; i < decoded.length; i++) decoded[i] = new JsonPayload(payloads.get(i));
+        return run(decoded);
+    }
+
+    @NonNull
+    private List<Outcome> run(@NonNull Payload[] payloads) throws InterruptedException {
+        if (pool != null) pool.invoke(new PayloadsTask(payloads, 0, payloads.length));
+        else new ExecutorRun(payloads).run();
+
+        List<Outcome> outcomes = new ArrayList<>(payloads.length);
+        for (Payload payload : payloads) outcomes.add(payload.outcome());
+        return outcomes;
+    }
+
+    /** Splits a range of payloads in halves until each task decodes one payload. */
+    private final class PayloadsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @NonNull private final Payload[] payloads;
+        private final int from;
+        private final int to;
+
+        PayloadsTask(@NonNull Payload[] payloads, int from, int to) {
+            this.payloads = payloads;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new PayloadsTask(payloads, from, middle),
+                        new PayloadsTask(payloads, middle, to));
+                return;
+            }
+            if (to == from) return;
+
+            Payload payload = payloads[from];
+            int chunks = payload.index(itemsPerTask);
+            if (chunks == 1) payload.decodeChunk(0);
+            else if (chunks > 1) {
+                List<ChunkTask> tasks = new ArrayList<>(chunks);
+                for (int i = 0; i < chunks; i++) tasks.add(new ChunkTask(payload, i));
+                invokeAll(tasks);
+            }
+        }
+    }
+
+    /** Decodes one chunk of a payload that is split. */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @NonNull private final Payload payload;
+        private final int chunk;
+
+        ChunkTask(@NonNull Payload payload, int chunk) {
+            this.payload = payload;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            payload.decodeChunk(chunk);
+        }
+    }
+
+    /** Submits one task per payload, and one per chunk of payloads that are split. */
+    private final class ExecutorRun {
+        @NonNull private final Payload[] payloads;
+        @NonNull private final AtomicInteger pending = new AtomicInteger(1);
+        @NonNull private final CountDownLatch done = new CountDownLatch(1);
+
+        ExecutorRun(@NonNull Payload[] payloads) {
+            this.payloads = payloads;
+        }
+
+        void run() throws InterruptedException {
+            for (Payload payload : payloads)
+                submit(
+                        () -> {
+                            int chunks = payload.index(itemsPerTask);
+                            for (int i = 1; i < chunks; i++) {
+                                int chunk = i;
+                                submit(() -> payload.decodeChunk(chunk));
+                            }
+                            if (chunks > 0) payload.decodeChunk(0);
+                        });
+            finish();
+            done.await();
+        }
+
+        private void submit(@NonNull Runnable task) {
+            pending.incrementAndGet();
+            Runnable counted =
+                    () -> {
+                        try {
+                            task.run();
+                        } finally {
+                            finish();
+                        }
+                    };
+            try {
+                executor.execute(counted);
+            } catch (RejectedExecutionException e) {
+                counted.run();
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) done.countDown();
+        }
+    }
+
+    /**
+     * The items of one result. {@link #index} is called first, on one thread, after which the
+     * chunks it returns are decoded concurrently.
+     */
+    private abstract static class Payload {
+        @Nullable private int[] offsets;
+        @Nullable private ResultItem[] items;
+        private int itemsPerChunk;
+        @Nullable private RuntimeException[] chunkErrors;
+        @Nullable private RuntimeException error;
+        private boolean isNull;
+
+        @NonNull
+        static Payload of(@NonNull byte[] data) {
+            return ResultItemCodec.isBinary(data) ? new BinaryPayload(data) : new JsonPayload(data);
+        }
+
+        /**
+         * Scans the items to find the offset of each.
+         *
+         * @return The number of chunks to decode, or 0 if there is nothing to decode.
+         */
+        final int index(int itemsPerTask) {
+            int[] offsets;
+            try {
+                offsets = scan();
+            } catch (RuntimeException e) {
+                error = e;
+                return 0;
+            }
+            if (offsets == null) {
+                isNull = true;
+                return 0;
+            }
+            int count = offsets.length;
+            this.offsets = offsets;
+            items = new ResultItem[count];
+            int chunks = Math.max(1, (count + itemsPerTask - 1) / itemsPerTask);
+            // Spreads the items evenly, so that no chunk is much smaller than the others.
+            itemsPerChunk = (count + chunks - 1) / chunks;
+            chunkErrors = new RuntimeException[chunks];
+            return chunks;
+        }
+
+        final void decodeChunk(int chunk) {
+            int from = chunk * itemsPerChunk;
+            int to = Math.min(from + itemsPerChunk, items.length);
+            try {
+                Decoder decoder = decoder();
+                for (int i = from; i < to; i++) items[i] = decoder.itemAt(i, offsets[i]);
+            } catch (RuntimeException e) {
+                chunkErrors[chunk] = e;
+            }
+        }
+
+        @NonNull
+        final Outcome outcome() {
+            if (error != null) return new Outcome(null, error);
+            if (isNull) return new Outcome(null, null);
+            // The error of the first failed chunk, regardless of which one failed first.
+            for (RuntimeException chunkError : chunkErrors)
+                if (chunkError != null) return new Outcome(null, chunkError);
+            return new Outcome(Collections.unmodifiableList(Arrays.asList(items)), null);
+        }
+
+        /** Returns the offset of each item, or null if the payload is the JSON text "null". */
+        @Nullable
+        abstract int[] scan();
+
+        /** Returns a decoder for use by a single thread. */
+        @NonNull
+        abstract Decoder decoder();
+    }
+
+    private interface Decoder {
+        @NonNull
+        ResultItem itemAt(int index, int offset);
+    }
+
+    private static final class JsonPayload extends Payload {
+        @Nullable private byte[] data;
+        @Nullable private String json;
+
+        JsonPayload(@NonNull byte[] data) {
+            this.data = data;
+        }
+
+        JsonPayload(@NonNull String json) {
+            this.json = json;
+        }
+
+        @Nullable
+        @Override
+        int[] scan() {
+            if (json == null) {
+                json = new String(data, StandardCharsets.UTF_8);
+                data = null;
+            }
+            if (json.equals("null")) return null;
+            ResultItemJsonReader reader = new ResultItemJsonReader(json);
+            int[] offsets = new int[16];
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+                offsets[count++] = reader.position();
+                reader.skipItem();
+            }
+            reader.endArray();
+            return Arrays.copyOf(offsets, count);
+        }
+
+        @NonNull
+        @Override
+        Decoder decoder() {
+            ResultItemJsonReader reader = new ResultItemJsonReader(json);
+            return (index, offset) -> reader.itemAt(offset);
+        }
+    }
+
+    private static final class BinaryPayload extends Payload {
+        @NonNull private final byte[] data;
+        @Nullable private ResultItemBinaryReader indexed;
+        @Nullable private int[] stringIndices;
+
+        BinaryPayload(@NonNull byte[] data) {
+            this.data = data;
+        }
+
+        @NonNull
+        @Override
+        int[] scan() {
+            ResultItemBinaryReader reader = new ResultItemBinaryReader(data);
+            int[] offsets = new int[16];
+            int[] stringIndices = new int[16];
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                    stringIndices = Arrays.copyOf(stringIndices, count * 2);
+                }
+                offsets[count] = reader.position();
+                stringIndices[count++] = reader.stringIndex();
+                reader.skipItem();
+            }
+            reader.endArray();
+            indexed = reader;
+            this.stringIndices = stringIndices;
+            return Arrays.copyOf(offsets, count);
+        }
+
+        @NonNull
+        @Override
+        Decoder decoder() {
+            // The scan has located all strings, so each chunk can decode its items independently.
+            ResultItemBinaryReader reader = indexed.fork();
+            return (index, offset) -> reader.itemAt(offset, stringIndices[index]);
+        }
+    }
+}
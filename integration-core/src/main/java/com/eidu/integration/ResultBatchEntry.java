@@ -0,0 +1,91 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of one learning unit run as stored in a result batch, see {@link ResultBatchWriter}.
+ *
+ * <p>This holds the same data as {@code RunLearningUnitResult}, which can be converted from and to
+ * an entry with {@code RunLearningUnitResult.toBatchEntry(String)} and {@code
+ * RunLearningUnitResult.fromBatchEntry(ResultBatchEntry)}, plus the ID of the run it belongs to.
+ */
+public final class ResultBatchEntry {
+
+    /** The ID of the run, see {@code RunLearningUnitRequest.learningUnitRunId}. */
+    @NonNull public final String learningUnitRunId;
+
+    /** The name of the result type, see {@code RunLearningUnitResult.resultType}. */
+    @NonNull public final String resultType;
+
+    /** <i>Optional,</i> see {@code RunLearningUnitResult.score}. */
+    @Nullable public final Float score;
+
+    /** See {@code RunLearningUnitResult.foregroundDurationInMs}. */
+    public final long foregroundDurationInMs;
+
+    /** <i>Optional,</i> see {@code RunLearningUnitResult.additionalData}. */
+    @Nullable public final String additionalData;
+
+    /** <i>Optional,</i> see {@code RunLearningUnitResult.errorDetails}. */
+    @Nullable public final String errorDetails;
+
+    /** <i>Optional,</i> see {@code RunLearningUnitResult.items}. */
+    @Nullable public final List<ResultItem> items;
+
+    /**
+     * Creates a new entry.
+     *
+     * @param learningUnitRunId See {@link #learningUnitRunId}.
+     * @param resultType See {@link #resultType}.
+     * @param score <i>Optional,</i> see {@link #score}.
+     * @param foregroundDurationInMs See {@link #foregroundDurationInMs}.
+     * @param additionalData <i>Optional,</i> see {@link #additionalData}.
+     * @param errorDetails <i>Optional,</i> see {@link #errorDetails}.
+     * @param items <i>Optional,</i> see {@link #items}.
+     */
+    public ResultBatchEntry(
+            @NonNull String learningUnitRunId,
+            @NonNull String resultType,
+            @Nullable Float score,
+            long foregroundDurationInMs,
+            @Nullable String additionalData,
+            @Nullable String errorDetails,
+            @Nullable List<ResultItem> items) {
+        this.learningUnitRunId = learningUnitRunId;
+        this.resultType = resultType;
+        this.score = score;
+        this.foregroundDurationInMs = foregroundDurationInMs;
+        this.additionalData = additionalData;
+        this.errorDetails = errorDetails;
+        this.items = items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ResultBatchEntry that = (ResultBatchEntry) o;
+        return foregroundDurationInMs == that.foregroundDurationInMs
+                && learningUnitRunId.equals(that.learningUnitRunId)
+                && resultType.equals(that.resultType)
+                && Objects.equals(score, that.score)
+                && Objects.equals(additionalData, that.additionalData)
+                && Objects.equals(errorDetails, that.errorDetails)
+                && Objects.equals(items, that.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                learningUnitRunId,
+                resultType,
+                score,
+                foregroundDurationInMs,
+                additionalData,
+                errorDetails,
+                items);
+    }
+}
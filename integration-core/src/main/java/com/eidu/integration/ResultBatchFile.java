@@ -0,0 +1,179 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+
+/**
+ * Gives random access to the entries of a batch file written by {@link ResultBatchWriter}, by
+ * {@link ResultBatchEntry#learningUnitRunId}.
+ *
+ * <p>Opening a file builds an index of the runs it contains by reading only the uncompressed block
+ * headers, skipping the payloads. {@link #get(String)} then seeks to the block containing the run
+ * and decodes that block only. The most recently decoded block is kept, so that looking up runs in
+ * the order in which they were written decodes each block once.
+ *
+ * <p>If a file ends with an incomplete block, e.g. because the app died while appending to it, the
+ * entries of that block are ignored. If a run ID occurs more than once, the last entry wins.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class ResultBatchFile implements Closeable {
+
+    @NonNull private final RandomAccessFile file;
+    @NonNull private final Map<String, Long> index;
+    @NonNull private final Inflater inflater = new Inflater();
+    private long cachedOffset = -1;
+    @NonNull private List<ResultBatchEntry> cachedBlock = Collections.emptyList();
+
+    private ResultBatchFile(@NonNull RandomAccessFile file, @NonNull Map<String, Long> index) {
+        this.file = file;
+        this.index = index;
+    }
+
+    /**
+     * Opens a batch file and builds its index.
+     *
+     * @param file The batch file.
+     * @return The opened file, which must be closed.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not a result batch.
+     */
+    @NonNull
+    public static ResultBatchFile open(@NonNull File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            Map<String, Long> index = new LinkedHashMap<>();
+            scan(randomAccessFile, index);
+            return new ResultBatchFile(randomAccessFile, index);
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /** Returns the IDs of all runs in the file, in the order in which they were written. */
+    @NonNull
+    public Set<String> learningUnitRunIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Returns whether the file contains an entry for the given run.
+     *
+     * @param learningUnitRunId The ID of the run.
+     */
+    public boolean contains(@NonNull String learningUnitRunId) {
+        return index.containsKey(learningUnitRunId);
+    }
+
+    /**
+     * Reads the entry for the given run.
+     *
+     * @param learningUnitRunId The ID of the run.
+     * @return The entry, or null if the file doesn't contain the run.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the block containing the entry is corrupt.
+     */
+    @Nullable
+    public ResultBatchEntry get(@NonNull String learningUnitRunId) throws IOException {
+        Long offset = index.get(learningUnitRunId);
+        if (offset == null) return null;
+        if (offset != cachedOffset) {
+            file.seek(offset);
+            ResultBatchReader.Header header =
+                    ResultBatchReader.readHeader(file, file.read(), file.length() - offset);
+            cachedBlock = ResultBatchReader.readBlock(file, header, inflater);
+            cachedOffset = offset;
+        }
+        // Search backwards, since the last entry for a run wins.
+        for (int i = cachedBlock.size() - 1; i >= 0; i--) {
+            ResultBatchEntry entry = cachedBlock.get(i);
+            if (entry.learningUnitRunId.equals(learningUnitRunId)) return entry;
+        }
+        throw new IllegalArgumentException("Result batch index is inconsistent.");
+    }
+
+    /** Closes the file. */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        file.close();
+    }
+
+    /**
+     * Skips from block header to block header through a batch file, starting at the beginning.
+     *
+     * <p>The valid blocks end at the first block that is incomplete or garbled, e.g. because the
+     * app died while writing it or the device lost power before the file system had written it out,
+     * which may leave garbage or zeros at the end of the file. Since such a tail can also start
+     * with an intact header, the checksum of the last valid block is verified as well.
+     *
+     * @param file The file.
+     * @param index If not null, receives the offset of the block of each run.
+     * @return The offset at which the valid blocks end.
+     * @throws IllegalArgumentException If the file doesn't start with a valid block header.
+     */
+    static long scan(@NonNull RandomAccessFile file, @Nullable Map<String, Long> index)
+            throws IOException {
+        long length = file.length();
+        long offset = 0;
+        long lastOffset = -1;
+        ResultBatchReader.Header last = null;
+        file.seek(0);
+        while (offset < length) {
+            ResultBatchReader.Header header;
+            try {
+                header = ResultBatchReader.readHeader(file, file.read(), length - offset);
+            } catch (EOFException e) {
+                break;
+            } catch (IllegalArgumentException e) {
+                if (offset == 0) throw e;
+                break;
+            }
+            long end = file.getFilePointer() + header.compressedLength;
+            if (end > length) break;
+            if (index != null)
+                for (String learningUnitRunId : header.learningUnitRunIds) {
+                    // Re-inserting moves a run that was written again to its latest position.
+                    index.remove(learningUnitRunId);
+                    index.put(learningUnitRunId, offset);
+                }
+            last = header;
+            lastOffset = offset;
+            file.seek(end);
+            offset = end;
+        }
+        if (last != null && !hasValidPayload(file, offset - last.compressedLength, last)) {
+            if (index != null)
+                for (String learningUnitRunId : last.learningUnitRunIds)
+                    index.remove(learningUnitRunId);
+            offset = lastOffset;
+        }
+        return offset;
+    }
+
+    private static boolean hasValidPayload(
+            @NonNull RandomAccessFile file,
+            long payloadOffset,
+            @NonNull ResultBatchReader.Header header)
+            throws IOException {
+        byte[] compressed = new byte[header.compressedLength];
+        file.seek(payloadOffset);
+        file.readFully(compressed);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        return (int) crc.getValue() == header.checksum;
+    }
+}
@@ -0,0 +1,249 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the entries of a batch written by {@link ResultBatchWriter} in order, e.g. while uploading
+ * it. Only one block is held in memory at a time, so batches of any size can be read.
+ *
+ * <p>To look up the entries of individual runs, use {@link ResultBatchFile}.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class ResultBatchReader implements Closeable {
+
+    /** The encoded length of an item without score and durations: its mask and four strings. */
+    private static final int MIN_ITEM_LENGTH = 17;
+
+    @NonNull private final DataInputStream in;
+    @NonNull private final Inflater inflater = new Inflater();
+    @NonNull private List<ResultBatchEntry> block = Collections.emptyList();
+    private int position;
+
+    /**
+     * Creates a reader.
+     *
+     * @param in The stream to read the batch from, which is closed along with the reader.
+     */
+    public ResultBatchReader(@NonNull InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Reads the next entry.
+     *
+     * @return The entry, or null if the end of the batch has been reached.
+     * @throws IOException If the stream cannot be read or ends within a block.
+     * @throws IllegalArgumentException If the stream doesn't contain a valid batch.
+     */
+    @Nullable
+    public ResultBatchEntry next() throws IOException {
+        while (position == block.size()) {
+            int first = in.read();
+            if (first < 0) return null;
+            block =
+                    readBlock(
+                            in,
+                            readHeader(in, first, ResultBatchWriter.MAX_BLOCK_LENGTH),
+                            inflater);
+            position = 0;
+        }
+        return block.get(position++);
+    }
+
+    /** Closes the stream. */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    /** The uncompressed header of a block. */
+    static final class Header {
+        @NonNull final String[] learningUnitRunIds;
+        final int payloadLength;
+        final int compressedLength;
+        final int checksum;
+
+        Header(
+                @NonNull String[] learningUnitRunIds,
+                int payloadLength,
+                int compressedLength,
+                int checksum) {
+            this.learningUnitRunIds = learningUnitRunIds;
+            this.payloadLength = payloadLength;
+            this.compressedLength = compressedLength;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * Reads the header of a block.
+     *
+     * @param in The input, positioned after the first byte of the block.
+     * @param first The first byte of the block, which has already been read.
+     * @param limit The number of bytes left in the input, counted from the first byte of the block.
+     *     Counts and lengths that wouldn't fit into it or into {@link
+     *     ResultBatchWriter#MAX_BLOCK_LENGTH} are rejected before anything is allocated for them.
+     * @throws IllegalArgumentException If the header is invalid or doesn't fit into the limit.
+     */
+    @NonNull
+    static Header readHeader(@NonNull DataInput in, int first, long limit) throws IOException {
+        int magic = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+        if (magic != ResultBatchWriter.MAGIC)
+            throw new IllegalArgumentException("Not a result batch block.");
+        limit = Math.min(limit, ResultBatchWriter.MAX_BLOCK_LENGTH);
+        // The bytes that can remain in the header after the magic number and the run ID count.
+        long remaining = limit - 8;
+        // Each run ID takes at least the four bytes of its length.
+        String[] learningUnitRunIds = new String[checkLength(in.readInt(), remaining / 4)];
+        for (int i = 0; i < learningUnitRunIds.length; i++) {
+            remaining -= 4;
+            byte[] bytes = new byte[checkLength(in.readInt(), remaining)];
+            remaining -= bytes.length;
+            in.readFully(bytes);
+            learningUnitRunIds[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int payloadLength = checkLength(in.readInt(), ResultBatchWriter.MAX_BLOCK_LENGTH);
+        int compressedLength = checkLength(in.readInt(), limit);
+        return new Header(learningUnitRunIds, payloadLength, compressedLength, in.readInt());
+    }
+
+    /**
+     * Reads and decodes the payload of a block.
+     *
+     * @param in The input, positioned after the header of the block.
+     * @param header The header of the block.
+     * @param inflater The inflater to decompress the payload with.
+     * @throws IllegalArgumentException If the block is corrupt or malformed.
+     */
+    @NonNull
+    static List<ResultBatchEntry> readBlock(
+            @NonNull DataInput in, @NonNull Header header, @NonNull Inflater inflater)
+            throws IOException {
+        byte[] compressed = new byte[header.compressedLength];
+        in.readFully(compressed);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        if ((int) crc.getValue() != header.checksum)
+            throw new IllegalArgumentException("Result batch block is corrupt.");
+
+        byte[] payload = new byte[header.payloadLength];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            if (inflater.inflate(payload) != payload.length || !inflater.finished())
+                throw new IllegalArgumentException("Result batch block has an invalid length.");
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Result batch block is corrupt.", e);
+        }
+
+        // The checksum only detects accidental corruption, so the payload may still be crafted to
+        // be malformed. Counts and lengths are checked against the bytes remaining in the payload.
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            // Each string takes at least the four bytes of its length.
+            String[] strings = new String[checkLength(data.readInt(), data.available() / 4)];
+            for (int i = 0; i < strings.length; i++) strings[i] = readString(data);
+
+            List<ResultBatchEntry> entries = new ArrayList<>(header.learningUnitRunIds.length);
+            for (String learningUnitRunId : header.learningUnitRunIds)
+                entries.add(readEntry(data, learningUnitRunId, strings));
+            return entries;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Result batch block is truncated.", e);
+        }
+    }
+
+    @NonNull
+    private static ResultBatchEntry readEntry(
+            @NonNull DataInputStream in,
+            @NonNull String learningUnitRunId,
+            @NonNull String[] strings)
+            throws IOException {
+        int mask = in.readUnsignedByte();
+        String resultType = string(strings, in.readInt());
+        if (resultType == null) throw new IllegalArgumentException("Result type is missing.");
+        Float score = (mask & ResultBatchWriter.SCORE) != 0 ? in.readFloat() : null;
+        long foregroundDurationInMs = in.readLong();
+        String additionalData = string(strings, in.readInt());
+        String errorDetails = string(strings, in.readInt());
+
+        ResultItemBatch items = null;
+        if ((mask & ResultBatchWriter.ITEMS) != 0) {
+            int count = checkLength(in.readInt(), in.available() / MIN_ITEM_LENGTH);
+            ResultItemBatch.Builder builder = new ResultItemBatch.Builder(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                int itemMask = in.readUnsignedByte();
+                String id = string(strings, in.readInt());
+                String challenge = string(strings, in.readInt());
+                String givenResponse = string(strings, in.readInt());
+                String correctResponse = string(strings, in.readInt());
+                boolean hasScore = (itemMask & ResultItemBinaryWriter.SCORE) != 0;
+                float itemScore = hasScore ? in.readFloat() : 0f;
+                boolean hasDuration = (itemMask & ResultItemBinaryWriter.DURATION_IN_MS) != 0;
+                long durationInMs = hasDuration ? in.readLong() : 0L;
+                boolean hasTimeToFirstAction =
+                        (itemMask & ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS) != 0;
+                long timeToFirstActionInMs = hasTimeToFirstAction ? in.readLong() : 0L;
+                builder.add(
+                        id,
+                        challenge,
+                        givenResponse,
+                        correctResponse,
+                        hasScore,
+                        itemScore,
+                        hasDuration,
+                        durationInMs,
+                        hasTimeToFirstAction,
+                        timeToFirstActionInMs);
+            }
+            items = builder.build();
+        }
+
+        return new ResultBatchEntry(
+                learningUnitRunId,
+                resultType,
+                score,
+                foregroundDurationInMs,
+                additionalData,
+                errorDetails,
+                items);
+    }
+
+    @Nullable
+    private static String string(@NonNull String[] strings, int reference) {
+        if (reference == ResultBatchWriter.NO_STRING) return null;
+        if (reference < 0 || reference >= strings.length)
+            throw new IllegalArgumentException("Invalid string reference " + reference);
+        return strings[reference];
+    }
+
+    @NonNull
+    private static String readString(@NonNull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[checkLength(in.readInt(), in.available())];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkLength(int length, long limit) {
+        if (length < 0 || length > limit)
+            throw new IllegalArgumentException("Invalid length " + length);
+        return length;
+    }
+}
@@ -0,0 +1,280 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes many learning unit results into a compact batch, e.g. to store them on a device that is
+ * offline and upload them all at once later. Batches are read with {@link ResultBatchReader}, or
+ * with {@link ResultBatchFile} to look up the result of a given run.
+ *
+ * <p>A batch is a sequence of blocks, each holding up to {@code entriesPerBlock} {@link
+ * ResultBatchEntry entries}. Every block consists of an uncompressed header followed by a DEFLATE
+ * compressed payload:
+ *
+ * <ul>
+ *   <li>The header contains {@link #MAGIC}, the number of entries, the run ID of each entry, the
+ *       length of the payload before and after compression, and a CRC-32 of the compressed payload.
+ *       Since the run IDs are in the header, a reader can find the block of a run by skipping from
+ *       header to header, without decompressing anything.
+ *   <li>The payload starts with a dictionary of all strings in the block's entries and their items,
+ *       followed by the entries, which refer to strings by their index in the dictionary. Values
+ *       that are repeated across results, such as result types, challenges and responses, are thus
+ *       stored once per block.
+ * </ul>
+ *
+ * <p>Blocks are independent of each other, so a batch can be appended to by writing further blocks,
+ * see {@link #append(File)}, and read one block at a time. Each block is written when it is full or
+ * when the writer is {@link #flush() flushed}. Since small blocks compress poorly, a writer should
+ * be kept open while results are added, or a batch consisting of many small blocks be copied with a
+ * {@link ResultBatchReader} into a new writer before it is uploaded.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class ResultBatchWriter implements Closeable, Flushable {
+
+    /** The first four bytes of every block, "ERB1". */
+    public static final int MAGIC = 0x45524231;
+
+    /**
+     * The maximum length in bytes of a block's header, and of its payload both before and after
+     * compression. Blocks that would be larger are written as several smaller blocks. Readers
+     * reject larger blocks without allocating memory for them, so that a malicious batch cannot
+     * exhaust the memory of the server it is uploaded to.
+     */
+    public static final int MAX_BLOCK_LENGTH = 64 << 20;
+
+    /** The default value of {@code entriesPerBlock}, see {@link ResultBatchWriter}. */
+    public static final int DEFAULT_ENTRIES_PER_BLOCK = 64;
+
+    static final int NO_STRING = -1;
+    static final int SCORE = 1;
+    static final int ITEMS = 1 << 1;
+
+    @NonNull private final DataOutputStream out;
+    private final int entriesPerBlock;
+    @NonNull private final List<ResultBatchEntry> pending = new ArrayList<>();
+    @NonNull private final HashMap<String, Integer> dictionary = new HashMap<>();
+    @NonNull private final List<String> strings = new ArrayList<>();
+    @NonNull private final ByteArrayOutputStream payload = new ByteArrayOutputStream(16384);
+    @NonNull private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(4096);
+    @NonNull private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    @NonNull private final byte[] deflateBuffer = new byte[4096];
+    private boolean closed;
+
+    /**
+     * Creates a writer with {@link #DEFAULT_ENTRIES_PER_BLOCK}.
+     *
+     * @param out The stream to write the batch to, which is closed along with the writer.
+     */
+    public ResultBatchWriter(@NonNull OutputStream out) {
+        this(out, DEFAULT_ENTRIES_PER_BLOCK);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param out The stream to write the batch to, which is closed along with the writer.
+     * @param entriesPerBlock The number of entries at which a block is written.
+     * @throws IllegalArgumentException If {@code entriesPerBlock} is not positive.
+     */
+    public ResultBatchWriter(@NonNull OutputStream out, int entriesPerBlock) {
+        if (entriesPerBlock <= 0)
+            throw new IllegalArgumentException("Entries per block must be positive.");
+        this.out = new DataOutputStream(out);
+        this.entriesPerBlock = entriesPerBlock;
+    }
+
+    /**
+     * Opens a writer that appends to a batch file, which is created if it doesn't exist. If the
+     * file ends with an incomplete or garbled block, e.g. because the app died while writing it or
+     * the device lost power, everything from that block on is discarded first.
+     *
+     * @param file The batch file.
+     * @return The writer.
+     * @throws IOException If the file cannot be read or written.
+     * @throws IllegalArgumentException If the file exists but is not a result batch.
+     */
+    @NonNull
+    public static ResultBatchWriter append(@NonNull File file) throws IOException {
+        if (file.exists()) {
+            try (RandomAccessFile existing = new RandomAccessFile(file, "rw")) {
+                long end = ResultBatchFile.scan(existing, null);
+                if (end < existing.length()) existing.setLength(end);
+            }
+        }
+        return new ResultBatchWriter(new FileOutputStream(file, true));
+    }
+
+    /**
+     * Adds an entry to the batch.
+     *
+     * @param entry The entry.
+     * @throws IOException If a full block cannot be written.
+     * @throws IllegalArgumentException If a full block contains an entry that doesn't fit into a
+     *     block by itself, see {@link #MAX_BLOCK_LENGTH}. The block's entries are discarded.
+     * @throws IllegalStateException If the writer has been closed.
+     */
+    public void add(@NonNull ResultBatchEntry entry) throws IOException {
+        if (closed) throw new IllegalStateException("Result batch writer is closed.");
+        pending.add(entry);
+        if (pending.size() >= entriesPerBlock) writeBlock();
+    }
+
+    /**
+     * Writes the pending entries as a block, even if it isn't full, and flushes the stream.
+     *
+     * @throws IOException If the block cannot be written.
+     * @throws IllegalArgumentException If an entry doesn't fit into a block by itself, see {@link
+     *     #add(ResultBatchEntry)}.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    /** Writes the pending entries and closes the stream. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (pending.isEmpty()) return;
+        try {
+            writeBlock(pending);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void writeBlock(@NonNull List<ResultBatchEntry> entries) throws IOException {
+        payload.reset();
+        DataOutputStream data = new DataOutputStream(payload);
+        for (ResultBatchEntry entry : entries) writeEntry(data, entry);
+        byte[] body = payload.toByteArray();
+
+        payload.reset();
+        data.writeInt(strings.size());
+        for (String string : strings) writeString(data, string);
+        dictionary.clear();
+        strings.clear();
+        data.write(body);
+        int payloadLength = payload.size();
+        byte[] deflated = deflate(payload.toByteArray());
+
+        long headerLength = 20;
+        for (ResultBatchEntry entry : entries)
+            headerLength += 4 + entry.learningUnitRunId.getBytes(StandardCharsets.UTF_8).length;
+        if (payloadLength > MAX_BLOCK_LENGTH
+                || deflated.length > MAX_BLOCK_LENGTH
+                || headerLength > MAX_BLOCK_LENGTH) {
+            if (entries.size() == 1)
+                throw new IllegalArgumentException(
+                        "Result of run "
+                                + entries.get(0).learningUnitRunId
+                                + " is too large for a result batch.");
+            int half = entries.size() / 2;
+            writeBlock(entries.subList(0, half));
+            writeBlock(entries.subList(half, entries.size()));
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(deflated);
+        out.writeInt(MAGIC);
+        out.writeInt(entries.size());
+        for (ResultBatchEntry entry : entries) writeString(out, entry.learningUnitRunId);
+        out.writeInt(payloadLength);
+        out.writeInt(deflated.length);
+        out.writeInt((int) crc.getValue());
+        out.write(deflated);
+    }
+
+    private void writeEntry(@NonNull DataOutputStream out, @NonNull ResultBatchEntry entry)
+            throws IOException {
+        int mask = 0;
+        if (entry.score != null) mask |= SCORE;
+        if (entry.items != null) mask |= ITEMS;
+        out.writeByte(mask);
+        out.writeInt(reference(entry.resultType));
+        if (entry.score != null) out.writeFloat(entry.score);
+        out.writeLong(entry.foregroundDurationInMs);
+        out.writeInt(reference(entry.additionalData));
+        out.writeInt(reference(entry.errorDetails));
+        if (entry.items == null) return;
+
+        List<ResultItem> items = entry.items;
+        out.writeInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ResultItem item = items.get(i);
+            int itemMask = 0;
+            if (item.score != null) itemMask |= ResultItemBinaryWriter.SCORE;
+            if (item.durationInMs != null) itemMask |= ResultItemBinaryWriter.DURATION_IN_MS;
+            if (item.timeToFirstActionInMs != null)
+                itemMask |= ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS;
+            out.writeByte(itemMask);
+            out.writeInt(reference(item.id));
+            out.writeInt(reference(item.challenge));
+            out.writeInt(reference(item.givenResponse));
+            out.writeInt(reference(item.correctResponse));
+            if (item.score != null) out.writeFloat(item.score);
+            if (item.durationInMs != null) out.writeLong(item.durationInMs);
+            if (item.timeToFirstActionInMs != null) out.writeLong(item.timeToFirstActionInMs);
+        }
+    }
+
+    private int reference(@Nullable String string) {
+        if (string == null) return NO_STRING;
+        Integer index = dictionary.get(string);
+        if (index == null) {
+            index = strings.size();
+            dictionary.put(string, index);
+            strings.add(string);
+        }
+        return index;
+    }
+
+    @NonNull
+    private byte[] deflate(@NonNull byte[] bytes) {
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        compressed.reset();
+        while (!deflater.finished()) {
+            int count = deflater.deflate(deflateBuffer);
+            compressed.write(deflateBuffer, 0, count);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @NonNull String string)
+            throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -23,15 +23,16 @@ import org.json.JSONObject;
  * instances at all. If you encounter such a unit, you are invited to contact EIDU to see if the
  * data model can be extended to cover your use case.
  */
+@Codec(Codec.Format.Json)
 public class ResultItem {
 
-    private static final String ID = "id";
-    private static final String CHALLENGE = "challenge";
-    private static final String GIVEN_RESPONSE = "givenResponse";
-    private static final String CORRECT_RESPONSE = "correctResponse";
-    private static final String SCORE = "score";
-    private static final String DURATION_IN_MS = "durationInMs";
-    private static final String TIME_TO_FIRST_ACTION_IN_MS = "timeToFirstActionInMs";
+    static final String ID = "id";
+    static final String CHALLENGE = "challenge";
+    static final String GIVEN_RESPONSE = "givenResponse";
+    static final String CORRECT_RESPONSE = "correctResponse";
+    static final String SCORE = "score";
+    static final String DURATION_IN_MS = "durationInMs";
+    static final String TIME_TO_FIRST_ACTION_IN_MS = "timeToFirstActionInMs";
 
     /**
      * <i>Optional.</i> Identifies the item within the learning unit being played. The ID _must_ be
@@ -39,35 +40,49 @@ public class ResultItem {
      * and that challenge only. Depending on the structure of the learning unit, this may be an
      * index ("0", "1", "2", ...) or the same as {@link #challenge} or something else.
      */
-    @Nullable public final String id;
+    @CodecField(value = ID, pooled = false)
+    @Nullable
+    public final String id;
 
     /** <i>Optional.</i> A description of the challenge, e.g. "2 + 4". */
-    @Nullable public final String challenge;
+    @CodecField(CHALLENGE)
+    @Nullable
+    public final String challenge;
 
     /** <i>Optional.</i> The response given by the learner, e.g. "5". */
-    @Nullable public final String givenResponse;
+    @CodecField(GIVEN_RESPONSE)
+    @Nullable
+    public final String givenResponse;
 
     /** <i>Optional.</i> The correct response to the challenge, e.g. "6". */
-    @Nullable public final String correctResponse;
+    @CodecField(CORRECT_RESPONSE)
+    @Nullable
+    public final String correctResponse;
 
     /**
      * <i>Optional.</i> A score between 0.0f and 1.0f that describes how the learner did in the
      * challenge.
      */
-    @Nullable public final Float score;
+    @CodecField(SCORE)
+    @Nullable
+    public final Float score;
 
     /**
      * <i>Optional.</i> The time it took the learner to give a response after being presented with
      * the challenge.
      */
-    @Nullable public final Long durationInMs;
+    @CodecField(DURATION_IN_MS)
+    @Nullable
+    public final Long durationInMs;
 
     /**
      * <i>Optional.</i> The time it took until the learner began responding to the challenge after
      * being presented with it. This is important because it can be a good predictor of the
      * learner's engagement.
      */
-    @Nullable public final Long timeToFirstActionInMs;
+    @CodecField(TIME_TO_FIRST_ACTION_IN_MS)
+    @Nullable
+    public final Long timeToFirstActionInMs;
 
     /**
      * Creates a new ResultItem instance.
@@ -99,30 +114,12 @@ public class ResultItem {
 
     @NonNull
     public static ResultItem fromJson(@NonNull JSONObject json) {
-        return new ResultItem(
-                json.isNull(ID) ? null : json.optString(ID),
-                json.isNull(CHALLENGE) ? null : json.optString(CHALLENGE),
-                json.isNull(GIVEN_RESPONSE) ? null : json.optString(GIVEN_RESPONSE),
-                json.isNull(CORRECT_RESPONSE) ? null : json.optString(CORRECT_RESPONSE),
-                json.isNull(SCORE) ? null : (float) json.optDouble(SCORE),
-                json.isNull(DURATION_IN_MS) ? null : json.optLong(DURATION_IN_MS),
-                json.isNull(TIME_TO_FIRST_ACTION_IN_MS)
-                        ? null
-                        : json.optLong(TIME_TO_FIRST_ACTION_IN_MS));
+        return ResultItemMapper.fromJson(json);
     }
 
     @NonNull
     public JSONObject toJson() throws JSONException {
-        JSONObject obj = new JSONObject();
-        if (id != null) obj.put(ID, id);
-        if (challenge != null) obj.put(CHALLENGE, challenge);
-        if (givenResponse != null) obj.put(GIVEN_RESPONSE, givenResponse);
-        if (correctResponse != null) obj.put(CORRECT_RESPONSE, correctResponse);
-        if (score != null) obj.put(SCORE, score);
-        if (durationInMs != null) obj.put(DURATION_IN_MS, durationInMs);
-        if (timeToFirstActionInMs != null)
-            obj.put(TIME_TO_FIRST_ACTION_IN_MS, timeToFirstActionInMs);
-        return obj;
+        return ResultItemMapper.toJson(this);
     }
 
     @Override
@@ -0,0 +1,341 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of {@link ResultItem}s that stores each field in a separate column, using
+ * primitive arrays for numeric fields.
+ *
+ * <p>Unlike a list of {@link ResultItem} instances, which box every score and duration, a batch
+ * needs a constant number of objects regardless of how many items it holds, apart from the strings
+ * themselves. This considerably reduces the memory footprint of results with many items, and the
+ * work of the garbage collector. Missing numeric values are tracked in a bitmap per column.
+ *
+ * <p>Batches are created with a {@link Builder}. The primitive accessors such as {@link
+ * #score(int)} read fields without allocating; {@link #get(int)} creates a new {@link ResultItem}
+ * on each call. Batches can be passed wherever a list of items is expected, in particular to the
+ * {@code RunLearningUnitResult} factory methods, and {@link ResultItemJsonWriter} and {@link
+ * ResultItemBinaryWriter} encode them without creating any {@link ResultItem} instances.
+ */
+public final class ResultItemBatch extends AbstractList<ResultItem> implements RandomAccess {
+
+    private final int size;
+    @NonNull private final String[] ids;
+    @NonNull private final String[] challenges;
+    @NonNull private final String[] givenResponses;
+    @NonNull private final String[] correctResponses;
+    @NonNull private final float[] scores;
+    @NonNull private final long[] durationsInMs;
+    @NonNull private final long[] timesToFirstActionInMs;
+    @NonNull private final long[] hasScore;
+    @NonNull private final long[] hasDurationInMs;
+    @NonNull private final long[] hasTimeToFirstActionInMs;
+
+    private ResultItemBatch(@NonNull Builder builder) {
+        size = builder.size;
+        ids = Arrays.copyOf(builder.ids, size);
+        challenges = Arrays.copyOf(builder.challenges, size);
+        givenResponses = Arrays.copyOf(builder.givenResponses, size);
+        correctResponses = Arrays.copyOf(builder.correctResponses, size);
+        scores = Arrays.copyOf(builder.scores, size);
+        durationsInMs = Arrays.copyOf(builder.durationsInMs, size);
+        timesToFirstActionInMs = Arrays.copyOf(builder.timesToFirstActionInMs, size);
+        int words = words(size);
+        hasScore = Arrays.copyOf(builder.hasScore, words);
+        hasDurationInMs = Arrays.copyOf(builder.hasDurationInMs, words);
+        hasTimeToFirstActionInMs = Arrays.copyOf(builder.hasTimeToFirstActionInMs, words);
+    }
+
+    /**
+     * Creates a batch containing the given items.
+     *
+     * @param items The items.
+     * @return The new batch.
+     */
+    @NonNull
+    public static ResultItemBatch of(@NonNull List<ResultItem> items) {
+        if (items instanceof ResultItemBatch) return (ResultItemBatch) items;
+        Builder builder = new Builder(items.size());
+        for (int i = 0; i < items.size(); i++) builder.add(items.get(i));
+        return builder.build();
+    }
+
+    /**
+     * Returns a new {@link ResultItem} with the fields of the item at the given index. Prefer the
+     * primitive accessors where possible, which don't allocate.
+     */
+    @Override
+    public ResultItem get(int index) {
+        checkIndex(index);
+        return new ResultItem(
+                ids[index],
+                challenges[index],
+                givenResponses[index],
+                correctResponses[index],
+                hasScore(index) ? scores[index] : null,
+                hasDurationInMs(index) ? durationsInMs[index] : null,
+                hasTimeToFirstActionInMs(index) ? timesToFirstActionInMs[index] : null);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Returns the {@link ResultItem#id} of the item at the given index. */
+    @Nullable
+    public String id(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /** Returns the {@link ResultItem#challenge} of the item at the given index. */
+    @Nullable
+    public String challenge(int index) {
+        checkIndex(index);
+        return challenges[index];
+    }
+
+    /** Returns the {@link ResultItem#givenResponse} of the item at the given index. */
+    @Nullable
+    public String givenResponse(int index) {
+        checkIndex(index);
+        return givenResponses[index];
+    }
+
+    /** Returns the {@link ResultItem#correctResponse} of the item at the given index. */
+    @Nullable
+    public String correctResponse(int index) {
+        checkIndex(index);
+        return correctResponses[index];
+    }
+
+    /** Returns whether the item at the given index has a {@link ResultItem#score}. */
+    public boolean hasScore(int index) {
+        checkIndex(index);
+        return isSet(hasScore, index);
+    }
+
+    /**
+     * Returns the {@link ResultItem#score} of the item at the given index, or 0 if it has none. See
+     * {@link #hasScore(int)}.
+     */
+    public float score(int index) {
+        checkIndex(index);
+        return scores[index];
+    }
+
+    /** Returns whether the item at the given index has a {@link ResultItem#durationInMs}. */
+    public boolean hasDurationInMs(int index) {
+        checkIndex(index);
+        return isSet(hasDurationInMs, index);
+    }
+
+    /**
+     * Returns the {@link ResultItem#durationInMs} of the item at the given index, or 0 if it has
+     * none. See {@link #hasDurationInMs(int)}.
+     */
+    public long durationInMs(int index) {
+        checkIndex(index);
+        return durationsInMs[index];
+    }
+
+    /**
+     * Returns whether the item at the given index has a {@link ResultItem#timeToFirstActionInMs}.
+     */
+    public boolean hasTimeToFirstActionInMs(int index) {
+        checkIndex(index);
+        return isSet(hasTimeToFirstActionInMs, index);
+    }
+
+    /**
+     * Returns the {@link ResultItem#timeToFirstActionInMs} of the item at the given index, or 0 if
+     * it has none. See {@link #hasTimeToFirstActionInMs(int)}.
+     */
+    public long timeToFirstActionInMs(int index) {
+        checkIndex(index);
+        return timesToFirstActionInMs[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    private static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private static boolean isSet(@NonNull long[] bitmap, int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /** Builds a {@link ResultItemBatch} by appending one item at a time. */
+    public static final class Builder {
+
+        private int size;
+        @NonNull private String[] ids;
+        @NonNull private String[] challenges;
+        @NonNull private String[] givenResponses;
+        @NonNull private String[] correctResponses;
+        @NonNull private float[] scores;
+        @NonNull private long[] durationsInMs;
+        @NonNull private long[] timesToFirstActionInMs;
+        @NonNull private long[] hasScore;
+        @NonNull private long[] hasDurationInMs;
+        @NonNull private long[] hasTimeToFirstActionInMs;
+
+        /** Creates a new builder with a default initial capacity. */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Creates a new builder.
+         *
+         * @param initialCapacity The number of items to allocate space for up front.
+         */
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(initialCapacity, 1);
+            ids = new String[capacity];
+            challenges = new String[capacity];
+            givenResponses = new String[capacity];
+            correctResponses = new String[capacity];
+            scores = new float[capacity];
+            durationsInMs = new long[capacity];
+            timesToFirstActionInMs = new long[capacity];
+            hasScore = new long[words(capacity)];
+            hasDurationInMs = new long[words(capacity)];
+            hasTimeToFirstActionInMs = new long[words(capacity)];
+        }
+
+        /**
+         * Appends an item.
+         *
+         * @param item The item to append.
+         * @return This builder.
+         */
+        @NonNull
+        public Builder add(@NonNull ResultItem item) {
+            int index = next();
+            setStrings(index, item.id, item.challenge, item.givenResponse, item.correctResponse);
+            if (item.score != null) setScore(index, item.score);
+            if (item.durationInMs != null) setDurationInMs(index, item.durationInMs);
+            if (item.timeToFirstActionInMs != null)
+                setTimeToFirstActionInMs(index, item.timeToFirstActionInMs);
+            return this;
+        }
+
+        /**
+         * Appends an item with all numeric fields present, without boxing them. See {@link
+         * ResultItem#ResultItem} for a description of the parameters.
+         *
+         * @return This builder.
+         */
+        @NonNull
+        public Builder add(
+                @Nullable String id,
+                @Nullable String challenge,
+                @Nullable String givenResponse,
+                @Nullable String correctResponse,
+                float score,
+                long durationInMs,
+                long timeToFirstActionInMs) {
+            int index = next();
+            setStrings(index, id, challenge, givenResponse, correctResponse);
+            setScore(index, score);
+            setDurationInMs(index, durationInMs);
+            setTimeToFirstActionInMs(index, timeToFirstActionInMs);
+            return this;
+        }
+
+        /**
+         * Appends an item, where each numeric field is only present if its flag is set. This allows
+         * decoders to fill a batch without boxing.
+         */
+        @NonNull
+        Builder add(
+                @Nullable String id,
+                @Nullable String challenge,
+                @Nullable String givenResponse,
+                @Nullable String correctResponse,
+                boolean hasScore,
+                float score,
+                boolean hasDurationInMs,
+                long durationInMs,
+                boolean hasTimeToFirstActionInMs,
+                long timeToFirstActionInMs) {
+            int index = next();
+            setStrings(index, id, challenge, givenResponse, correctResponse);
+            if (hasScore) setScore(index, score);
+            if (hasDurationInMs) setDurationInMs(index, durationInMs);
+            if (hasTimeToFirstActionInMs) setTimeToFirstActionInMs(index, timeToFirstActionInMs);
+            return this;
+        }
+
+        /** Returns the number of items appended so far. */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Creates a batch of the items appended so far. The builder may continue to be used
+         * afterwards, which doesn't affect the batch.
+         *
+         * @return The new batch.
+         */
+        @NonNull
+        public ResultItemBatch build() {
+            return new ResultItemBatch(this);
+        }
+
+        private int next() {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                challenges = Arrays.copyOf(challenges, capacity);
+                givenResponses = Arrays.copyOf(givenResponses, capacity);
+                correctResponses = Arrays.copyOf(correctResponses, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                durationsInMs = Arrays.copyOf(durationsInMs, capacity);
+                timesToFirstActionInMs = Arrays.copyOf(timesToFirstActionInMs, capacity);
+                hasScore = Arrays.copyOf(hasScore, words(capacity));
+                hasDurationInMs = Arrays.copyOf(hasDurationInMs, words(capacity));
+                hasTimeToFirstActionInMs = Arrays.copyOf(hasTimeToFirstActionInMs, words(capacity));
+            }
+            return size++;
+        }
+
+        private void setStrings(
+                int index,
+                @Nullable String id,
+                @Nullable String challenge,
+                @Nullable String givenResponse,
+                @Nullable String correctResponse) {
+            ids[index] = id;
+            challenges[index] = challenge;
+            givenResponses[index] = givenResponse;
+            correctResponses[index] = correctResponse;
+        }
+
+        private void setScore(int index, float score) {
+            scores[index] = score;
+            hasScore[index >>> 6] |= 1L << index;
+        }
+
+        private void setDurationInMs(int index, long durationInMs) {
+            durationsInMs[index] = durationInMs;
+            hasDurationInMs[index >>> 6] |= 1L << index;
+        }
+
+        private void setTimeToFirstActionInMs(int index, long timeToFirstActionInMs) {
+            timesToFirstActionInMs[index] = timeToFirstActionInMs;
+            hasTimeToFirstActionInMs[index >>> 6] |= 1L << index;
+        }
+    }
+}
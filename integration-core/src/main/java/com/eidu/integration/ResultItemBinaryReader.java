@@ -0,0 +1,281 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads {@link ResultItem} lists written by {@link ResultItemBinaryWriter}. See there for a
+ * description of the format.
+ *
+ * <p>Strings are only decoded once, when they are first referenced by an item that is read, and
+ * items that refer to the same string share the same {@link String} instance. Strings other than
+ * {@link ResultItem#id}s are also canonicalized through a {@link StringPool}, so that values
+ * repeated across payloads are retained only once. IDs are usually unique, so pooling them would
+ * only evict the values that do repeat.
+ */
+public final class ResultItemBinaryReader {
+
+    @NonNull private final byte[] data;
+    @NonNull private final StringPool pool;
+    private int pos;
+
+    private int[] stringOffsets = new int[16];
+    private String[] strings = new String[16];
+    private int stringCount;
+    private int nextStringIndex;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param data The bytes to read.
+     */
+    public ResultItemBinaryReader(@NonNull byte[] data) {
+        this(data, StringPool.shared());
+    }
+
+    /**
+     * Creates a new reader that deduplicates strings across payloads using the given pool.
+     *
+     * @param data The bytes to read.
+     * @param pool The pool to take strings from.
+     */
+    public ResultItemBinaryReader(@NonNull byte[] data, @NonNull StringPool pool) {
+        this.data = data;
+        this.pool = pool;
+    }
+
+    /**
+     * Parses a binary array of items, as written by {@link
+     * ResultItemBinaryWriter#writeItems(List)}.
+     *
+     * @param data The bytes to parse.
+     * @return The parsed items.
+     * @throws IllegalArgumentException If the data is malformed or of an unsupported version.
+     */
+    @NonNull
+    public static List<ResultItem> readItems(@NonNull byte[] data) {
+        return readItems(data, null);
+    }
+
+    /**
+     * Parses an array of items like {@link #readItems(byte[])}, adding each item to the given
+     * statistics as it is read.
+     */
+    @NonNull
+    static List<ResultItem> readItems(@NonNull byte[] data, @Nullable ResultItemStats stats) {
+        ResultItemBinaryReader reader = new ResultItemBinaryReader(data);
+        ArrayList<ResultItem> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ResultItem item = reader.nextItem();
+            items.add(item);
+            if (stats != null) stats.add(item);
+        }
+        reader.endArray();
+        return items;
+    }
+
+    /**
+     * Consumes the header of the items array.
+     *
+     * @throws IllegalArgumentException If the data is of an unsupported version.
+     */
+    public void beginArray() {
+        int version = readByte();
+        if (version != ResultItemBinaryWriter.VERSION)
+            throw new IllegalArgumentException("Unsupported items format version " + version);
+    }
+
+    /**
+     * Returns whether the current array has another element.
+     *
+     * @throws IllegalArgumentException If the data is truncated.
+     */
+    public boolean hasNext() {
+        if (pos >= data.length) throw formatError("Unexpected end of input");
+        return data[pos] != (byte) ResultItemBinaryWriter.END;
+    }
+
+    /**
+     * Reads the next element of the current array.
+     *
+     * @throws IllegalArgumentException If the data is malformed or there is no next element.
+     */
+    @NonNull
+    public ResultItem nextItem() {
+        int mask = readMask();
+        return new ResultItem(
+                (mask & ResultItemBinaryWriter.ID) != 0 ? readString(false) : null,
+                (mask & ResultItemBinaryWriter.CHALLENGE) != 0 ? readString(true) : null,
+                (mask & ResultItemBinaryWriter.GIVEN_RESPONSE) != 0 ? readString(true) : null,
+                (mask & ResultItemBinaryWriter.CORRECT_RESPONSE) != 0 ? readString(true) : null,
+                (mask & ResultItemBinaryWriter.SCORE) != 0 ? readFloat() : null,
+                (mask & ResultItemBinaryWriter.DURATION_IN_MS) != 0 ? readSignedVarLong() : null,
+                (mask & ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS) != 0
+                        ? readSignedVarLong()
+                        : null);
+    }
+
+    /**
+     * Skips the next element of the current array without decoding its values.
+     *
+     * @throws IllegalArgumentException If the data is malformed or there is no next element.
+     */
+    public void skipItem() {
+        int mask = readMask();
+        if ((mask & ResultItemBinaryWriter.ID) != 0) skipString();
+        if ((mask & ResultItemBinaryWriter.CHALLENGE) != 0) skipString();
+        if ((mask & ResultItemBinaryWriter.GIVEN_RESPONSE) != 0) skipString();
+        if ((mask & ResultItemBinaryWriter.CORRECT_RESPONSE) != 0) skipString();
+        if ((mask & ResultItemBinaryWriter.SCORE) != 0) skip(4);
+        if ((mask & ResultItemBinaryWriter.DURATION_IN_MS) != 0) readVarLong();
+        if ((mask & ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS) != 0) readVarLong();
+    }
+
+    /** Consumes the terminator of the items array. */
+    public void endArray() {
+        if (readByte() != ResultItemBinaryWriter.END) throw formatError("Expected end of array");
+    }
+
+    /** Returns the offset of the next byte to be read. */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Returns the number of strings that were introduced up to the current position. Together with
+     * {@link #position()}, this makes it possible to come back to this position with {@link
+     * #itemAt(int, int)}.
+     */
+    int stringIndex() {
+        return nextStringIndex;
+    }
+
+    /**
+     * Reads the array element that starts at the given position, as previously obtained from {@link
+     * #position()} and {@link #stringIndex()}. All strings that are referenced by the element, but
+     * were introduced by earlier elements, must already have been read or skipped.
+     */
+    @NonNull
+    ResultItem itemAt(int offset, int stringIndex) {
+        pos = offset;
+        nextStringIndex = stringIndex;
+        return nextItem();
+    }
+
+    /**
+     * Returns a new reader for the same data that shares the string table built up so far, but not
+     * any decoded strings. Once the whole array has been scanned, several such readers can decode
+     * its elements concurrently with {@link #itemAt(int, int)}.
+     */
+    @NonNull
+    ResultItemBinaryReader fork() {
+        ResultItemBinaryReader reader = new ResultItemBinaryReader(data, pool);
+        reader.stringOffsets = Arrays.copyOf(stringOffsets, stringCount);
+        reader.strings = new String[stringCount];
+        reader.stringCount = stringCount;
+        return reader;
+    }
+
+    private int readMask() {
+        if (!hasNext()) throw formatError("Expected another element");
+        int mask = readByte();
+        if ((mask & ~0x7F) != 0) throw formatError("Invalid field mask " + mask);
+        return mask;
+    }
+
+    @NonNull
+    private String readString(boolean pooled) {
+        int index = readStringIndex();
+        String value = strings[index];
+        if (value == null) {
+            int offset = stringOffsets[index];
+            int savedPos = pos;
+            pos = offset;
+            int length = readLength();
+            value = new String(data, pos, length, StandardCharsets.UTF_8);
+            if (pooled) value = pool.intern(value);
+            strings[index] = value;
+            pos = savedPos;
+        }
+        return value;
+    }
+
+    private void skipString() {
+        readStringIndex();
+    }
+
+    /**
+     * Reads a string reference. If it introduces a new string, records its offset in the string
+     * table, unless it is already known, and skips over its bytes.
+     */
+    private int readStringIndex() {
+        long reference = readVarLong();
+        if (reference < 0) throw formatError("Invalid string reference");
+        if (reference > 0) {
+            if (reference > nextStringIndex) throw formatError("Invalid string reference");
+            return (int) reference - 1;
+        }
+        int index = nextStringIndex++;
+        if (index == stringCount) {
+            if (stringCount == stringOffsets.length) {
+                stringOffsets = Arrays.copyOf(stringOffsets, stringCount * 2);
+                strings = Arrays.copyOf(strings, stringCount * 2);
+            }
+            stringOffsets[stringCount++] = pos;
+        }
+        skip(readLength());
+        return index;
+    }
+
+    private int readLength() {
+        long length = readVarLong();
+        if (length < 0 || length > data.length - pos) throw formatError("Invalid length " + length);
+        return (int) length;
+    }
+
+    private float readFloat() {
+        if (data.length - pos < 4) throw formatError("Unexpected end of input");
+        int bits =
+                (data[pos] & 0xFF) << 24
+                        | (data[pos + 1] & 0xFF) << 16
+                        | (data[pos + 2] & 0xFF) << 8
+                        | (data[pos + 3] & 0xFF);
+        pos += 4;
+        return Float.intBitsToFloat(bits);
+    }
+
+    private long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw formatError("Malformed variable-length integer");
+    }
+
+    private int readByte() {
+        if (pos >= data.length) throw formatError("Unexpected end of input");
+        return data[pos++] & 0xFF;
+    }
+
+    private void skip(int count) {
+        if (data.length - pos < count) throw formatError("Unexpected end of input");
+        pos += count;
+    }
+
+    @NonNull
+    private IllegalArgumentException formatError(@NonNull String message) {
+        return new IllegalArgumentException(message + " at byte " + pos);
+    }
+}
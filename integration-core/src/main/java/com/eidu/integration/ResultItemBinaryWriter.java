@@ -0,0 +1,252 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Writes {@link ResultItem} lists in a compact binary format, as an alternative to {@link
+ * ResultItemJsonWriter}.
+ *
+ * <p>The format consists of a version byte followed by one record per item and a terminating {@link
+ * #END} byte. Each record starts with a bitmask of the fields present in the item, followed by
+ * these fields in declaration order:
+ *
+ * <ul>
+ *   <li>Strings are written as a reference into a string table that is built up while writing: a
+ *       reference of 0 is followed by the length of the string in UTF-8 bytes and the bytes
+ *       themselves, which adds the string to the table. A reference of <i>n</i> &gt; 0 refers to
+ *       the <i>n</i>-th string added to the table. Values repeated across items are thus only
+ *       stored once.
+ *   <li>Scores are written as 4-byte big-endian IEEE 754 floats.
+ *   <li>Durations are written as zigzag-encoded variable-length integers.
+ * </ul>
+ *
+ * <p>All lengths and references are written as unsigned variable-length integers with 7 bits per
+ * byte, least significant group first.
+ */
+public final class ResultItemBinaryWriter {
+
+    static final int VERSION = 1;
+    static final int END = 0x80;
+
+    static final int ID = 1;
+    static final int CHALLENGE = 1 << 1;
+    static final int GIVEN_RESPONSE = 1 << 2;
+    static final int CORRECT_RESPONSE = 1 << 3;
+    static final int SCORE = 1 << 4;
+    static final int DURATION_IN_MS = 1 << 5;
+    static final int TIME_TO_FIRST_ACTION_IN_MS = 1 << 6;
+
+    private static final int ESTIMATED_ITEM_LENGTH = 24;
+
+    @NonNull private final HashMap<String, Integer> strings = new HashMap<>();
+    @NonNull private byte[] buffer;
+    private int size;
+
+    /** Creates a new writer with a default initial capacity. */
+    public ResultItemBinaryWriter() {
+        this(256);
+    }
+
+    /**
+     * Creates a new writer.
+     *
+     * @param initialCapacity The initial capacity of the output buffer, in bytes.
+     */
+    public ResultItemBinaryWriter(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Serializes a list of items into the binary format.
+     *
+     * @param items The items to serialize.
+     * @return The encoded bytes.
+     */
+    @NonNull
+    public static byte[] writeItems(@NonNull List<ResultItem> items) {
+        ResultItemBinaryWriter writer =
+                new ResultItemBinaryWriter(2 + items.size() * ESTIMATED_ITEM_LENGTH);
+        writer.beginArray();
+        if (items instanceof ResultItemBatch) {
+            ResultItemBatch batch = (ResultItemBatch) items;
+            for (int i = 0; i < batch.size(); i++) writer.write(batch, i);
+        } else for (int i = 0; i < items.size(); i++) writer.write(items.get(i));
+        return writer.endArray().toByteArray();
+    }
+
+    /** Writes the header of the items array. */
+    @NonNull
+    public ResultItemBinaryWriter beginArray() {
+        writeByte(VERSION);
+        return this;
+    }
+
+    /**
+     * Writes a single item as an element of the current array.
+     *
+     * @param item The item to write.
+     * @return This writer.
+     */
+    @NonNull
+    public ResultItemBinaryWriter write(@NonNull ResultItem item) {
+        return write(
+                item.id,
+                item.challenge,
+                item.givenResponse,
+                item.correctResponse,
+                item.score != null,
+                item.score != null ? item.score : 0f,
+                item.durationInMs != null,
+                item.durationInMs != null ? item.durationInMs : 0L,
+                item.timeToFirstActionInMs != null,
+                item.timeToFirstActionInMs != null ? item.timeToFirstActionInMs : 0L);
+    }
+
+    /**
+     * Writes an item of a batch as an element of the current array, without creating a {@link
+     * ResultItem} for it.
+     *
+     * @param batch The batch containing the item.
+     * @param index The index of the item in the batch.
+     * @return This writer.
+     */
+    @NonNull
+    public ResultItemBinaryWriter write(@NonNull ResultItemBatch batch, int index) {
+        return write(
+                batch.id(index),
+                batch.challenge(index),
+                batch.givenResponse(index),
+                batch.correctResponse(index),
+                batch.hasScore(index),
+                batch.score(index),
+                batch.hasDurationInMs(index),
+                batch.durationInMs(index),
+                batch.hasTimeToFirstActionInMs(index),
+                batch.timeToFirstActionInMs(index));
+    }
+
+    @NonNull
+    private ResultItemBinaryWriter write(
+            @Nullable String id,
+            @Nullable String challenge,
+            @Nullable String givenResponse,
+            @Nullable String correctResponse,
+            boolean hasScore,
+            float score,
+            boolean hasDurationInMs,
+            long durationInMs,
+            boolean hasTimeToFirstActionInMs,
+            long timeToFirstActionInMs) {
+        int mask = 0;
+        if (id != null) mask |= ID;
+        if (challenge != null) mask |= CHALLENGE;
+        if (givenResponse != null) mask |= GIVEN_RESPONSE;
+        if (correctResponse != null) mask |= CORRECT_RESPONSE;
+        if (hasScore) mask |= SCORE;
+        if (hasDurationInMs) mask |= DURATION_IN_MS;
+        if (hasTimeToFirstActionInMs) mask |= TIME_TO_FIRST_ACTION_IN_MS;
+        writeByte(mask);
+
+        if (id != null) writeString(id);
+        if (challenge != null) writeString(challenge);
+        if (givenResponse != null) writeString(givenResponse);
+        if (correctResponse != null) writeString(correctResponse);
+        if (hasScore) writeFloat(score);
+        if (hasDurationInMs) writeSignedVarLong(durationInMs);
+        if (hasTimeToFirstActionInMs) writeSignedVarLong(timeToFirstActionInMs);
+        return this;
+    }
+
+    /** Writes the terminator of the items array. */
+    @NonNull
+    public ResultItemBinaryWriter endArray() {
+        writeByte(END);
+        return this;
+    }
+
+    /** Discards everything written so far, so that the writer can be reused. */
+    void reset() {
+        strings.clear();
+        size = 0;
+    }
+
+    /** Returns the number of bytes written so far. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the internal buffer, whose first {@link #size()} bytes have been written. */
+    @NonNull
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /** Returns a copy of the bytes written so far. */
+    @NonNull
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Returns a copy of the bytes written so far, followed by the array terminator, without ending
+     * the array. Writing may continue afterwards.
+     */
+    @NonNull
+    byte[] toTerminatedByteArray() {
+        byte[] result = Arrays.copyOf(buffer, size + 1);
+        result[size] = (byte) END;
+        return result;
+    }
+
+    private void writeString(@NonNull String value) {
+        Integer reference = strings.get(value);
+        if (reference != null) {
+            writeVarLong(reference);
+            return;
+        }
+        strings.put(value, strings.size() + 1);
+        writeByte(0);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void writeFloat(float value) {
+        int bits = Float.floatToIntBits(value);
+        ensureCapacity(4);
+        buffer[size++] = (byte) (bits >>> 24);
+        buffer[size++] = (byte) (bits >>> 16);
+        buffer[size++] = (byte) (bits >>> 8);
+        buffer[size++] = (byte) bits;
+    }
+
+    private void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+    }
+}
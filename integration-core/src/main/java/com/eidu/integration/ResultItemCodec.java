@@ -0,0 +1,129 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes and decodes lists of {@link ResultItem}s in the formats that learning apps use to deliver
+ * them to the EIDU app.
+ *
+ * <p>This class, like everything else in the integration-core artifact, doesn't depend on Android,
+ * so that services processing uploaded results can decode items with exactly the same semantics as
+ * the EIDU app.
+ */
+public final class ResultItemCodec {
+
+    private ResultItemCodec() {}
+
+    /**
+     * Encodes items as a JSON array. See {@link ResultItemJsonWriter}.
+     *
+     * @param items The items to encode. May be null.
+     * @return The JSON text, or <code>"null"</code> if items is null.
+     * @throws IllegalArgumentException If an item contains a non-finite score.
+     */
+    @NonNull
+    public static String encodeJson(@Nullable List<ResultItem> items) {
+        return ResultItemJsonWriter.writeItems(items);
+    }
+
+    /**
+     * Encodes items in the compact binary format. See {@link ResultItemBinaryWriter}.
+     *
+     * @param items The items to encode.
+     * @return The encoded bytes.
+     */
+    @NonNull
+    public static byte[] encodeBinary(@NonNull List<ResultItem> items) {
+        return ResultItemBinaryWriter.writeItems(items);
+    }
+
+    /**
+     * Decodes items from a JSON array. See {@link ResultItemJsonReader}.
+     *
+     * @param json The JSON text.
+     * @return The decoded items, or null if json is <code>"null"</code>.
+     * @throws IllegalArgumentException If the JSON text is malformed.
+     */
+    @Nullable
+    public static List<ResultItem> decodeJson(@NonNull String json) {
+        return ResultItemJsonReader.readItems(json);
+    }
+
+    /**
+     * Decodes items from the compact binary format. See {@link ResultItemBinaryReader}.
+     *
+     * @param data The encoded bytes.
+     * @return The decoded items.
+     * @throws IllegalArgumentException If the data is malformed or of an unsupported version.
+     */
+    @NonNull
+    public static List<ResultItem> decodeBinary(@NonNull byte[] data) {
+        return ResultItemBinaryReader.readItems(data);
+    }
+
+    /**
+     * Decodes items from either format, detecting which one is used. JSON text must be encoded as
+     * UTF-8. This is useful when payloads of both formats are stored side by side.
+     *
+     * @param data The encoded items.
+     * @return The decoded items, or null if data is the JSON text <code>"null"</code>.
+     * @throws IllegalArgumentException If the data is malformed.
+     */
+    @Nullable
+    public static List<ResultItem> decode(@NonNull byte[] data) {
+        if (isBinary(data)) return decodeBinary(data);
+        return decodeJson(new String(data, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes items from either format like {@link #decode(byte[])}, and adds them to the given
+     * statistics in the same pass. This is cheaper than computing the statistics of the decoded
+     * items afterwards.
+     *
+     * @param data The encoded items.
+     * @param stats The statistics to add the items to. They are only changed if decoding succeeds.
+     * @return The decoded items, or null if data is the JSON text <code>"null"</code>.
+     * @throws IllegalArgumentException If the data is malformed.
+     */
+    @Nullable
+    public static List<ResultItem> decode(@NonNull byte[] data, @NonNull ResultItemStats stats) {
+        ResultItemStats decoded = new ResultItemStats();
+        List<ResultItem> items =
+                isBinary(data)
+                        ? ResultItemBinaryReader.readItems(data, decoded)
+                        : ResultItemJsonReader.readItems(
+                                new String(data, StandardCharsets.UTF_8), decoded);
+        stats.merge(decoded);
+        return items;
+    }
+
+    /**
+     * Decodes items from a JSON array like {@link #decodeJson(String)}, and adds them to the given
+     * statistics in the same pass.
+     *
+     * @param json The JSON text.
+     * @param stats The statistics to add the items to. They are only changed if decoding succeeds.
+     * @return The decoded items, or null if json is <code>"null"</code>.
+     * @throws IllegalArgumentException If the JSON text is malformed.
+     */
+    @Nullable
+    public static List<ResultItem> decodeJson(
+            @NonNull String json, @NonNull ResultItemStats stats) {
+        ResultItemStats decoded = new ResultItemStats();
+        List<ResultItem> items = ResultItemJsonReader.readItems(json, decoded);
+        stats.merge(decoded);
+        return items;
+    }
+
+    /**
+     * Returns whether the given data is in the binary format rather than JSON. This only inspects
+     * the first byte, which is a version number for the binary format and always a printable
+     * character or whitespace for JSON.
+     */
+    public static boolean isBinary(@NonNull byte[] data) {
+        return data.length > 0 && data[0] == ResultItemBinaryWriter.VERSION;
+    }
+}
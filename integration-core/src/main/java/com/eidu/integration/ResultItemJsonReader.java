@@ -0,0 +1,476 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads {@link ResultItem} lists from JSON text in a single pass, without building an intermediate
+ * {@code JSONArray} of {@code JSONObject}s.
+ *
+ * <p>Values are interpreted exactly as {@link ResultItem#fromJson} would interpret them, including
+ * its coercion of numbers to strings and vice versa, so the two can be used interchangeably.
+ *
+ * <p>String values other than {@link ResultItem#id} are looked up in a {@link StringPool} before
+ * allocating them, so values that repeat across items are usually only allocated once. IDs are
+ * usually unique, so pooling them would only evict the values that do repeat.
+ */
+public final class ResultItemJsonReader {
+
+    private static final String[] KEYS = {
+        ResultItem.ID,
+        ResultItem.CHALLENGE,
+        ResultItem.GIVEN_RESPONSE,
+        ResultItem.CORRECT_RESPONSE,
+        ResultItem.SCORE,
+        ResultItem.DURATION_IN_MS,
+        ResultItem.TIME_TO_FIRST_ACTION_IN_MS
+    };
+    private static final int ID = 0;
+    private static final int CHALLENGE = 1;
+    private static final int GIVEN_RESPONSE = 2;
+    private static final int CORRECT_RESPONSE = 3;
+    private static final int SCORE = 4;
+    private static final int DURATION_IN_MS = 5;
+    private static final int TIME_TO_FIRST_ACTION_IN_MS = 6;
+
+    @NonNull private final String json;
+    @NonNull private final StringPool pool;
+    private int pos;
+    private boolean first;
+    private boolean elementPending;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param json The JSON text to read.
+     */
+    public ResultItemJsonReader(@NonNull String json) {
+        this(json, StringPool.shared());
+    }
+
+    /**
+     * Creates a new reader that deduplicates the string values of items using the given pool.
+     *
+     * @param json The JSON text to read.
+     * @param pool The pool to take string values from.
+     */
+    public ResultItemJsonReader(@NonNull String json, @NonNull StringPool pool) {
+        this.json = json;
+        this.pool = pool;
+    }
+
+    /**
+     * Parses a JSON array of items, as written by {@link ResultItemJsonWriter#writeItems(List)}.
+     *
+     * @param json The JSON text to parse.
+     * @return The parsed items, or null if json is <code>"null"</code>.
+     * @throws IllegalArgumentException If the JSON text is malformed.
+     */
+    @Nullable
+    public static List<ResultItem> readItems(@NonNull String json) {
+        return readItems(json, null);
+    }
+
+    /**
+     * Parses an array of items like {@link #readItems(String)}, adding each item to the given
+     * statistics as it is read.
+     */
+    @Nullable
+    static List<ResultItem> readItems(@NonNull String json, @Nullable ResultItemStats stats) {
+        if (json.equals("null")) return null;
+
+        ResultItemJsonReader reader = new ResultItemJsonReader(json);
+        ArrayList<ResultItem> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ResultItem item = reader.nextItem();
+            items.add(item);
+            if (stats != null) stats.add(item);
+        }
+        reader.endArray();
+        return items;
+    }
+
+    /** Consumes the opening bracket of the items array. */
+    public void beginArray() {
+        expect('[');
+        first = true;
+        elementPending = false;
+    }
+
+    /**
+     * Returns whether the current array has another element.
+     *
+     * @throws IllegalArgumentException If the JSON text is malformed.
+     */
+    public boolean hasNext() {
+        if (elementPending) return true;
+        if (peek() == ']') return false;
+        if (!first) expect(',');
+        first = false;
+        elementPending = true;
+        return true;
+    }
+
+    /**
+     * Reads the next element of the current array.
+     *
+     * @throws IllegalArgumentException If the JSON text is malformed or there is no next element.
+     */
+    @NonNull
+    public ResultItem nextItem() {
+        requireNext();
+
+        String id = null, challenge = null, givenResponse = null, correctResponse = null;
+        Float score = null;
+        Long durationInMs = null, timeToFirstActionInMs = null;
+
+        expect('{');
+        if (peek() == '}') pos++;
+        else
+            do {
+                int key = readKey();
+                expect(':');
+                switch (key) {
+                    case ID:
+                        id = readString(false);
+                        break;
+                    case CHALLENGE:
+                        challenge = readString(true);
+                        break;
+                    case GIVEN_RESPONSE:
+                        givenResponse = readString(true);
+                        break;
+                    case CORRECT_RESPONSE:
+                        correctResponse = readString(true);
+                        break;
+                    case SCORE:
+                        score = readFloat();
+                        break;
+                    case DURATION_IN_MS:
+                        durationInMs = readLong();
+                        break;
+                    case TIME_TO_FIRST_ACTION_IN_MS:
+                        timeToFirstActionInMs = readLong();
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (nextMember());
+
+        return new ResultItem(
+                id,
+                challenge,
+                givenResponse,
+                correctResponse,
+                score,
+                durationInMs,
+                timeToFirstActionInMs);
+    }
+
+    /**
+     * Skips the next element of the current array without decoding it.
+     *
+     * @throws IllegalArgumentException If the JSON text is malformed or there is no next element.
+     */
+    public void skipItem() {
+        requireNext();
+        skipValue();
+    }
+
+    /** Consumes the closing bracket of the items array. */
+    public void endArray() {
+        if (elementPending) throw syntaxError("Unexpected element");
+        expect(']');
+    }
+
+    /** Returns the offset of the next character to be read. */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Reads the array element that starts at the given offset, as previously obtained from {@link
+     * #position()}. This is independent of the state of the current array.
+     */
+    @NonNull
+    ResultItem itemAt(int offset) {
+        pos = offset;
+        elementPending = true;
+        return nextItem();
+    }
+
+    private void requireNext() {
+        if (!hasNext()) throw syntaxError("Expected another element");
+        elementPending = false;
+    }
+
+    private boolean nextMember() {
+        char c = next();
+        if (c == ',') return true;
+        if (c == '}') return false;
+        throw syntaxError("Expected ',' or '}'");
+    }
+
+    /** Reads an object key and returns the index of the matching field, or -1. */
+    private int readKey() {
+        if (peek() != '"') throw syntaxError("Expected key");
+        int start = pos + 1;
+        for (int end = start; end < json.length(); end++) {
+            char c = json.charAt(end);
+            if (c == '\\') break;
+            if (c == '"') {
+                pos = end + 1;
+                for (int i = 0; i < KEYS.length; i++)
+                    if (KEYS[i].length() == end - start && json.startsWith(KEYS[i], start))
+                        return i;
+                return -1;
+            }
+        }
+        String key = readQuoted();
+        for (int i = 0; i < KEYS.length; i++) if (KEYS[i].equals(key)) return i;
+        return -1;
+    }
+
+    @Nullable
+    private String readString(boolean pooled) {
+        char c = peek();
+        if (c == '"') {
+            // Fast path for strings without escape sequences, which are looked up in the pool
+            // without allocating a new string.
+            int start = pos + 1;
+            for (int i = start; i < json.length(); i++) {
+                char d = json.charAt(i);
+                if (d == '"') {
+                    pos = i + 1;
+                    return pooled ? pool.intern(json, start, i) : json.substring(start, i);
+                }
+                if (d == '\\') break;
+            }
+            String value = readQuoted();
+            return pooled ? pool.intern(value) : value;
+        }
+        if (isStructure(c)) {
+            int start = pos;
+            skipValue();
+            return json.substring(start, pos);
+        }
+        Object value = readLiteral();
+        return value == null ? null : String.valueOf(value);
+    }
+
+    @Nullable
+    private Float readFloat() {
+        if (peek() == '"') return (float) parseDouble(readQuoted());
+        if (isStructure(peek())) {
+            skipValue();
+            return Float.NaN;
+        }
+        Object value = readLiteral();
+        if (value == null) return null;
+        return value instanceof Number ? ((Number) value).floatValue() : Float.NaN;
+    }
+
+    @Nullable
+    private Long readLong() {
+        char c = peek();
+        if (c == '"') return (long) parseDouble(readQuoted());
+        if (isStructure(c)) {
+            skipValue();
+            return 0L;
+        }
+
+        // Fast path for plain integers, which is what ResultItemJsonWriter produces.
+        int i = pos;
+        boolean negative = c == '-';
+        if (negative) i++;
+        long value = 0;
+        int digits = 0;
+        for (; i < json.length() && digits <= 18; i++, digits++) {
+            char d = json.charAt(i);
+            if (d < '0' || d > '9') break;
+            value = value * 10 + (d - '0');
+        }
+        if (digits > 0 && digits <= 18 && (i == json.length() || isDelimiter(json.charAt(i)))) {
+            pos = i;
+            return negative ? -value : value;
+        }
+
+        Object literal = readLiteral();
+        if (literal == null) return null;
+        return literal instanceof Number ? ((Number) literal).longValue() : 0L;
+    }
+
+    private static double parseDouble(@NonNull String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Reads an unquoted literal and converts it the same way {@code JSONTokener} does: to null, a
+     * {@link Boolean}, a {@link Number} or, failing all of these, a {@link String}.
+     */
+    @Nullable
+    private Object readLiteral() {
+        int start = pos;
+        while (pos < json.length() && !isDelimiter(json.charAt(pos))) pos++;
+        if (start == pos) throw syntaxError("Expected value");
+        String literal = json.substring(start, pos);
+
+        if (literal.equals("null")) return null;
+        if (literal.equals("true")) return Boolean.TRUE;
+        if (literal.equals("false")) return Boolean.FALSE;
+
+        if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+            try {
+                long value = Long.parseLong(literal);
+                if (value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) return (int) value;
+                return value;
+            } catch (NumberFormatException ignored) {
+                // Fall through to parsing as a double.
+            }
+        }
+        try {
+            return Double.valueOf(literal);
+        } catch (NumberFormatException ignored) {
+            return literal;
+        }
+    }
+
+    @NonNull
+    private String readQuoted() {
+        expect('"');
+        int start = pos;
+        StringBuilder builder = null;
+        while (true) {
+            if (pos >= json.length()) throw syntaxError("Unterminated string");
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                if (builder == null) return json.substring(start, pos - 1);
+                return builder.append(json, start, pos - 1).toString();
+            }
+            if (c != '\\') continue;
+
+            if (builder == null) builder = new StringBuilder();
+            builder.append(json, start, pos - 1);
+            if (pos >= json.length()) throw syntaxError("Unterminated escape sequence");
+            char escaped = json.charAt(pos++);
+            switch (escaped) {
+                case 'u':
+                    if (pos + 4 > json.length()) throw syntaxError("Unterminated escape sequence");
+                    try {
+                        builder.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntaxError("Invalid escape sequence");
+                    }
+                    pos += 4;
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                default:
+                    builder.append(escaped);
+            }
+            start = pos;
+        }
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            skipQuoted();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                if (pos >= json.length()) throw syntaxError("Unterminated value");
+                c = json.charAt(pos);
+                if (c == '"') {
+                    skipQuoted();
+                    continue;
+                }
+                if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+                pos++;
+            } while (depth > 0);
+        } else {
+            int start = pos;
+            while (pos < json.length() && !isDelimiter(json.charAt(pos))) pos++;
+            if (start == pos) throw syntaxError("Expected value");
+        }
+    }
+
+    private void skipQuoted() {
+        pos++;
+        while (true) {
+            if (pos >= json.length()) throw syntaxError("Unterminated string");
+            char c = json.charAt(pos++);
+            if (c == '"') return;
+            if (c == '\\') pos++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) throw syntaxError("Expected '" + expected + "'");
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    /** Skips whitespace and returns the next character without consuming it. */
+    private char peek() {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return c;
+            pos++;
+        }
+        throw syntaxError("Unexpected end of input");
+    }
+
+    private static boolean isStructure(char c) {
+        return c == '{' || c == '[';
+    }
+
+    private static boolean isDelimiter(char c) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\r':
+            case ',':
+            case ':':
+            case '}':
+            case ']':
+            case '{':
+            case '[':
+            case '"':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @NonNull
+    private IllegalArgumentException syntaxError(@NonNull String message) {
+        return new IllegalArgumentException(message + " at character " + pos);
+    }
+}
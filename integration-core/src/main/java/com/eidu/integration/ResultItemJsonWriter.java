@@ -0,0 +1,223 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Writes {@link ResultItem} lists as JSON in a single pass, directly into a {@link StringBuilder}.
+ *
+ * <p>Unlike serializing each item with {@link ResultItem#toJson()} and collecting the results in a
+ * {@code JSONArray}, this does not build an intermediate object tree. The output is nevertheless
+ * identical, character by character, to that of {@code JSONArray.toString()} on Android.
+ */
+public final class ResultItemJsonWriter {
+
+    private static final int ESTIMATED_ITEM_LENGTH = 128;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @NonNull private final StringBuilder out;
+    private boolean first = true;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param out The builder to append the JSON text to.
+     */
+    public ResultItemJsonWriter(@NonNull StringBuilder out) {
+        this.out = out;
+    }
+
+    /**
+     * Serializes a list of items into a JSON array.
+     *
+     * @param items The items to serialize. May be null.
+     * @return The JSON text, or <code>"null"</code> if items is null.
+     * @throws IllegalArgumentException If an item contains a non-finite score.
+     */
+    @NonNull
+    public static String writeItems(@Nullable List<ResultItem> items) {
+        if (items == null) return "null";
+        StringBuilder builder = new StringBuilder(2 + items.size() * ESTIMATED_ITEM_LENGTH);
+        ResultItemJsonWriter writer = new ResultItemJsonWriter(builder).beginArray();
+        if (items instanceof ResultItemBatch) {
+            ResultItemBatch batch = (ResultItemBatch) items;
+            for (int i = 0; i < batch.size(); i++) writer.write(batch, i);
+        } else for (int i = 0; i < items.size(); i++) writer.write(items.get(i));
+        return writer.endArray().toString();
+    }
+
+    /** Writes the opening bracket of the items array. */
+    @NonNull
+    public ResultItemJsonWriter beginArray() {
+        out.append('[');
+        first = true;
+        return this;
+    }
+
+    /**
+     * Writes a single item as an element of the current array.
+     *
+     * @param item The item to write.
+     * @return This writer.
+     * @throws IllegalArgumentException If the item contains a non-finite score.
+     */
+    @NonNull
+    public ResultItemJsonWriter write(@NonNull ResultItem item) {
+        return write(
+                item.id,
+                item.challenge,
+                item.givenResponse,
+                item.correctResponse,
+                item.score != null,
+                item.score != null ? item.score : 0f,
+                item.durationInMs != null,
+                item.durationInMs != null ? item.durationInMs : 0L,
+                item.timeToFirstActionInMs != null,
+                item.timeToFirstActionInMs != null ? item.timeToFirstActionInMs : 0L);
+    }
+
+    /**
+     * Writes an item of a batch as an element of the current array, without creating a {@link
+     * ResultItem} for it.
+     *
+     * @param batch The batch containing the item.
+     * @param index The index of the item in the batch.
+     * @return This writer.
+     * @throws IllegalArgumentException If the item contains a non-finite score.
+     */
+    @NonNull
+    public ResultItemJsonWriter write(@NonNull ResultItemBatch batch, int index) {
+        return write(
+                batch.id(index),
+                batch.challenge(index),
+                batch.givenResponse(index),
+                batch.correctResponse(index),
+                batch.hasScore(index),
+                batch.score(index),
+                batch.hasDurationInMs(index),
+                batch.durationInMs(index),
+                batch.hasTimeToFirstActionInMs(index),
+                batch.timeToFirstActionInMs(index));
+    }
+
+    @NonNull
+    private ResultItemJsonWriter write(
+            @Nullable String id,
+            @Nullable String challenge,
+            @Nullable String givenResponse,
+            @Nullable String correctResponse,
+            boolean hasScore,
+            float score,
+            boolean hasDurationInMs,
+            long durationInMs,
+            boolean hasTimeToFirstActionInMs,
+            long timeToFirstActionInMs) {
+        if (hasScore && (Float.isNaN(score) || Float.isInfinite(score)))
+            throw new IllegalArgumentException("Forbidden numeric value: " + score);
+
+        if (!first) out.append(',');
+        first = false;
+
+        out.append('{');
+        boolean empty = true;
+        empty = string(ResultItem.ID, id, empty);
+        empty = string(ResultItem.CHALLENGE, challenge, empty);
+        empty = string(ResultItem.GIVEN_RESPONSE, givenResponse, empty);
+        empty = string(ResultItem.CORRECT_RESPONSE, correctResponse, empty);
+        if (hasScore) {
+            key(ResultItem.SCORE, empty);
+            number(score);
+            empty = false;
+        }
+        if (hasDurationInMs) {
+            key(ResultItem.DURATION_IN_MS, empty);
+            out.append(durationInMs);
+            empty = false;
+        }
+        if (hasTimeToFirstActionInMs) {
+            key(ResultItem.TIME_TO_FIRST_ACTION_IN_MS, empty);
+            out.append(timeToFirstActionInMs);
+        }
+        out.append('}');
+        return this;
+    }
+
+    /** Writes the closing bracket of the items array. */
+    @NonNull
+    public ResultItemJsonWriter endArray() {
+        out.append(']');
+        return this;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private boolean string(@NonNull String key, @Nullable String value, boolean empty) {
+        if (value == null) return empty;
+        key(key, empty);
+        quote(value);
+        return false;
+    }
+
+    private void key(@NonNull String key, boolean empty) {
+        if (!empty) out.append(',');
+        quote(key);
+        out.append(':');
+    }
+
+    /** Mirrors {@code JSONObject.numberToString}, which prints integral values without a dot. */
+    private void number(float value) {
+        long longValue = (long) value;
+        if ((double) value == (double) longValue) out.append(longValue);
+        else out.append(value);
+    }
+
+    /** Mirrors the escaping rules of {@code JSONStringer}. */
+    private void quote(@NonNull String value) {
+        out.append('"');
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"':
+                    replacement = "\\\"";
+                    break;
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case '/':
+                    replacement = "\\/";
+                    break;
+                case '\t':
+                    replacement = "\\t";
+                    break;
+                case '\b':
+                    replacement = "\\b";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "\\r";
+                    break;
+                case '\f':
+                    replacement = "\\f";
+                    break;
+                default:
+                    if (c > 0x1F) continue;
+                    replacement = null;
+            }
+            out.append(value, start, i);
+            if (replacement != null) out.append(replacement);
+            else out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            start = i + 1;
+        }
+        out.append(value, start, length).append('"');
+    }
+}
@@ -0,0 +1,122 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Collects the {@link ResultItem}s of a learning unit run as they occur, encoding each one right
+ * away.
+ *
+ * <p>Learning apps can record items one at a time during the run instead of keeping them in a list
+ * of their own. When the run ends, {@link #toItems()} returns a {@link LazyResultItemList} backed
+ * by the already encoded items, which can be passed to the {@code RunLearningUnitResult} factory
+ * methods. Since {@code RunLearningUnitResult.toIntent()} reuses that encoding, finishing a run
+ * with many items doesn't require serializing all of them at once.
+ *
+ * <p>Choose the encoding to match the one the result will be delivered in: {@link #ofJson()} for
+ * {@code toIntent()} and {@code toIntent(Context)}, {@link #ofBinary()} for {@code
+ * toIntent(ItemsEncoding.Binary)}. Otherwise, the items are converted when building the intent.
+ *
+ * <p>The recorder also keeps {@link ResultItemStats} of the items as they are recorded, so that a
+ * summary of the run, including a score derived from its items, is available from {@link #stats()}
+ * without going through the items again.
+ *
+ * <p>Instances are thread-safe, so items may be recorded on a different thread than the one that
+ * finishes the run.
+ */
+public final class ResultItemRecorder {
+
+    @Nullable private final StringBuilder json;
+    @Nullable private final ResultItemJsonWriter jsonWriter;
+    @Nullable private final ResultItemBinaryWriter binaryWriter;
+    @NonNull private final ResultItemStats stats = new ResultItemStats();
+    private int size;
+    @Nullable private LazyResultItemList items;
+
+    private ResultItemRecorder(boolean binary) {
+        if (binary) {
+            json = null;
+            jsonWriter = null;
+            binaryWriter = new ResultItemBinaryWriter(1024).beginArray();
+        } else {
+            json = new StringBuilder(4096);
+            jsonWriter = new ResultItemJsonWriter(json).beginArray();
+            binaryWriter = null;
+        }
+    }
+
+    /**
+     * Creates a recorder that encodes items as JSON, as written by {@link ResultItemJsonWriter}.
+     */
+    @NonNull
+    public static ResultItemRecorder ofJson() {
+        return new ResultItemRecorder(false);
+    }
+
+    /**
+     * Creates a recorder that encodes items in the binary format written by {@link
+     * ResultItemBinaryWriter}.
+     */
+    @NonNull
+    public static ResultItemRecorder ofBinary() {
+        return new ResultItemRecorder(true);
+    }
+
+    /**
+     * Records an item.
+     *
+     * @param item The item to record.
+     * @return This recorder.
+     * @throws IllegalArgumentException If the item contains a non-finite score, which can't be
+     *     delivered as JSON. The item is not recorded in that case.
+     */
+    @NonNull
+    public synchronized ResultItemRecorder record(@NonNull ResultItem item) {
+        if (item.score != null && (item.score.isNaN() || item.score.isInfinite()))
+            throw new IllegalArgumentException("Forbidden numeric value: " + item.score);
+
+        if (jsonWriter != null) jsonWriter.write(item);
+        else binaryWriter.write(item);
+        stats.add(item);
+        size++;
+        items = null;
+        return this;
+    }
+
+    /** Returns the number of items recorded so far. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the statistics of the items recorded so far. Recording may continue afterwards, which
+     * doesn't affect the returned statistics.
+     *
+     * @return A copy of the statistics.
+     */
+    @NonNull
+    public synchronized ResultItemStats stats() {
+        return new ResultItemStats(stats);
+    }
+
+    /**
+     * Returns the items recorded so far. Recording may continue afterwards, which doesn't affect
+     * the returned list.
+     *
+     * <p>This only copies the encoded items, without serializing them again. Repeated calls without
+     * recording items in between return the same list.
+     *
+     * @return An immutable list of the recorded items.
+     */
+    @NonNull
+    public synchronized LazyResultItemList toItems() {
+        if (items == null) {
+            if (json != null) {
+                json.append(']');
+                items = LazyResultItemList.ofJson(json.toString());
+                json.setLength(json.length() - 1);
+            } else items = LazyResultItemList.ofBinary(binaryWriter.toTerminatedByteArray());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,169 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Summarizes the {@link ResultItem}s of a learning unit run, e.g. to report how the learner did
+ * without going through all items again.
+ *
+ * <p>Items are added one at a time, and each one updates the summary in constant time. Percentiles
+ * of {@link ResultItem#durationInMs} and {@link ResultItem#timeToFirstActionInMs} are approximated
+ * by a {@link LatencySketch}, so the memory used doesn't depend on the number of items.
+ *
+ * <p>A {@link ResultItemRecorder} keeps statistics of the items recorded, see {@link
+ * ResultItemRecorder#stats()}, and {@link ResultItemCodec#decode(byte[], ResultItemStats)} fills
+ * them in while decoding items.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public final class ResultItemStats {
+
+    private int itemCount;
+    private int givenResponseCount;
+    private int correctResponseCount;
+    private int scoreCount;
+    private double scoreSum;
+    @NonNull private final LatencySketch durationsInMs;
+    @NonNull private final LatencySketch timesToFirstActionInMs;
+
+    /** Creates empty statistics. */
+    public ResultItemStats() {
+        durationsInMs = new LatencySketch();
+        timesToFirstActionInMs = new LatencySketch();
+    }
+
+    /**
+     * Creates a copy of other statistics.
+     *
+     * @param other The statistics to copy.
+     */
+    public ResultItemStats(@NonNull ResultItemStats other) {
+        itemCount = other.itemCount;
+        givenResponseCount = other.givenResponseCount;
+        correctResponseCount = other.correctResponseCount;
+        scoreCount = other.scoreCount;
+        scoreSum = other.scoreSum;
+        durationsInMs = new LatencySketch(other.durationsInMs);
+        timesToFirstActionInMs = new LatencySketch(other.timesToFirstActionInMs);
+    }
+
+    /**
+     * Computes the statistics of a list of items.
+     *
+     * @param items The items.
+     * @return The statistics.
+     */
+    @NonNull
+    public static ResultItemStats of(@NonNull Iterable<ResultItem> items) {
+        ResultItemStats stats = new ResultItemStats();
+        for (ResultItem item : items) stats.add(item);
+        return stats;
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item The item.
+     * @return These statistics.
+     */
+    @NonNull
+    public ResultItemStats add(@NonNull ResultItem item) {
+        itemCount++;
+        if (item.givenResponse != null && item.correctResponse != null) {
+            givenResponseCount++;
+            if (item.givenResponse.equals(item.correctResponse)) correctResponseCount++;
+        }
+        if (item.score != null) {
+            scoreCount++;
+            scoreSum += item.score;
+        }
+        if (item.durationInMs != null) durationsInMs.add(item.durationInMs);
+        if (item.timeToFirstActionInMs != null)
+            timesToFirstActionInMs.add(item.timeToFirstActionInMs);
+        return this;
+    }
+
+    /**
+     * Adds other statistics to these, e.g. to summarize many runs. The result is the same as if the
+     * items had been added to these statistics directly.
+     *
+     * @param other The statistics to add.
+     * @return These statistics.
+     */
+    @NonNull
+    public ResultItemStats merge(@NonNull ResultItemStats other) {
+        itemCount += other.itemCount;
+        givenResponseCount += other.givenResponseCount;
+        correctResponseCount += other.correctResponseCount;
+        scoreCount += other.scoreCount;
+        scoreSum += other.scoreSum;
+        durationsInMs.merge(other.durationsInMs);
+        timesToFirstActionInMs.merge(other.timesToFirstActionInMs);
+        return this;
+    }
+
+    /** Returns the number of items added. */
+    public int itemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the number of items that have both a {@link ResultItem#givenResponse} and a {@link
+     * ResultItem#correctResponse}. Items without a correct response are not counted, since their
+     * given response can't be judged.
+     */
+    public int givenResponseCount() {
+        return givenResponseCount;
+    }
+
+    /** Returns the number of items whose given response equals their correct response. */
+    public int correctResponseCount() {
+        return correctResponseCount;
+    }
+
+    /**
+     * Returns the fraction of given responses that were correct, or null if no responses were
+     * given. See {@link #givenResponseCount()}.
+     */
+    @Nullable
+    public Float accuracy() {
+        if (givenResponseCount == 0) return null;
+        return (float) correctResponseCount / givenResponseCount;
+    }
+
+    /** Returns the mean of the {@link ResultItem#score}s of all items, or null if none has one. */
+    @Nullable
+    public Float meanScore() {
+        if (scoreCount == 0) return null;
+        return (float) (scoreSum / scoreCount);
+    }
+
+    /**
+     * Derives a score for the whole run from its items, which can be used as the score of the run's
+     * result if the learning app doesn't compute one itself. This is the {@link #meanScore()} if
+     * any item has a score, or else the {@link #accuracy()}.
+     *
+     * @return The score, or null if no item has a score or a response that can be judged.
+     */
+    @Nullable
+    public Float score() {
+        Float meanScore = meanScore();
+        return meanScore != null ? meanScore : accuracy();
+    }
+
+    /** Returns the sketch of the {@link ResultItem#durationInMs} of all items that have one. */
+    @NonNull
+    public LatencySketch durationsInMs() {
+        return durationsInMs;
+    }
+
+    /**
+     * Returns the sketch of the {@link ResultItem#timeToFirstActionInMs} of all items that have
+     * one.
+     */
+    @NonNull
+    public LatencySketch timesToFirstActionInMs() {
+        return timesToFirstActionInMs;
+    }
+}
@@ -0,0 +1,95 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A bounded pool of canonical {@link String} instances, used when decoding {@link ResultItem}s so
+ * that values which repeat across items and results, such as challenges and responses, are only
+ * allocated and retained once.
+ *
+ * <p>The pool is a fixed-size, direct-mapped cache: each string is stored in the slot determined by
+ * its hash, replacing whatever was there before. Memory usage is thus bounded by the number of
+ * slots and {@link #MAX_LENGTH}, and frequently used values tend to stay in the pool. A miss merely
+ * leads to a new string being allocated, as it would be without a pool.
+ *
+ * <p>Instances are thread-safe without locking: concurrent updates of a slot may cause a string to
+ * be replaced earlier than necessary, but never lead to a wrong result.
+ */
+public final class StringPool {
+
+    /** The number of slots of the {@link #shared()} pool. */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    /** The maximum length of strings that are pooled. Longer strings are never pooled. */
+    public static final int MAX_LENGTH = 256;
+
+    private static final StringPool SHARED = new StringPool(DEFAULT_CAPACITY);
+
+    @NonNull private final String[] slots;
+    private final int mask;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity The number of slots, which is rounded up to the next power of two.
+     */
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        slots = new String[size];
+        mask = size - 1;
+    }
+
+    /** Returns the pool that the readers in this package use unless given a different one. */
+    @NonNull
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a canonical instance of the given string.
+     *
+     * @param value The string.
+     * @return A string equal to value, which may be value itself.
+     */
+    @NonNull
+    public String intern(@NonNull String value) {
+        if (value.length() > MAX_LENGTH) return value;
+        int slot = slot(value.hashCode());
+        String pooled = slots[slot];
+        if (value.equals(pooled)) return pooled;
+        slots[slot] = value;
+        return value;
+    }
+
+    /**
+     * Returns a canonical instance of the given range of a string, only allocating a new string if
+     * the pool doesn't contain it.
+     *
+     * @param source The string containing the value.
+     * @param start The index of the first character of the value.
+     * @param end The index after the last character of the value.
+     * @return A string equal to {@code source.substring(start, end)}.
+     */
+    @NonNull
+    String intern(@NonNull String source, int start, int end) {
+        int length = end - start;
+        if (length > MAX_LENGTH) return source.substring(start, end);
+
+        // Same as String.hashCode, so that both intern methods agree on slots.
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + source.charAt(i);
+        int slot = slot(hash);
+        String pooled = slots[slot];
+        if (pooled != null
+                && pooled.length() == length
+                && pooled.regionMatches(0, source, start, length)) return pooled;
+
+        String value = source.substring(start, end);
+        slots[slot] = value;
+        return value;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,85 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class LatencySketchTest {
+
+    @Test
+    public void approximatesPercentiles() {
+        Random random = new Random(42);
+        long[] values = new long[10_000];
+        LatencySketch sketch = new LatencySketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextGaussian() * 2 + 7);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double fraction : new double[] {0.01, 0.25, 0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            assertEquals(exact, sketch.percentile(fraction), exact * 0.016 + 1);
+        }
+        assertEquals(values[0], sketch.percentile(0));
+        assertEquals(values[values.length - 1], sketch.percentile(1));
+        assertEquals(Arrays.stream(values).average().getAsDouble(), sketch.mean(), 1e-6);
+    }
+
+    @Test
+    public void keepsSmallValuesExact() {
+        LatencySketch sketch = new LatencySketch();
+        for (long value = 0; value < 64; value++) sketch.add(value);
+
+        assertEquals(31, sketch.percentile(0.5));
+        assertEquals(6, sketch.percentile(0.1));
+    }
+
+    @Test
+    public void mergesLikeAddingDirectly() {
+        LatencySketch first = new LatencySketch();
+        LatencySketch second = new LatencySketch();
+        LatencySketch all = new LatencySketch();
+        for (long value = 0; value < 1000; value++) {
+            (value % 3 == 0 ? first : second).add(value * value);
+            all.add(value * value);
+        }
+
+        LatencySketch merged = new LatencySketch(first);
+        merged.merge(second);
+
+        assertEquals(all.count(), merged.count());
+        assertEquals(all.min(), merged.min());
+        assertEquals(all.max(), merged.max());
+        assertEquals(all.mean(), merged.mean());
+        for (double fraction = 0; fraction <= 1; fraction += 0.05)
+            assertEquals(all.percentile(fraction), merged.percentile(fraction));
+        assertEquals(334, first.count());
+    }
+
+    @Test
+    public void handlesExtremeValues() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.add(-5);
+        sketch.add(Long.MAX_VALUE);
+
+        assertEquals(-5, sketch.min());
+        assertEquals(0, sketch.percentile(0.5));
+        assertEquals(Long.MAX_VALUE, sketch.percentile(0.75), Long.MAX_VALUE * 0.016);
+        assertEquals(Long.MAX_VALUE, sketch.percentile(1));
+    }
+
+    @Test
+    public void rejectsInvalidQueries() {
+        LatencySketch sketch = new LatencySketch();
+        assertThrows(IllegalStateException.class, () -> sketch.percentile(0.5));
+        assertThrows(IllegalStateException.class, sketch::mean);
+
+        sketch.add(1);
+        assertThrows(IllegalArgumentException.class, () -> sketch.percentile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.percentile(Double.NaN));
+    }
+}
@@ -0,0 +1,65 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LazyResultItemListTest {
+    List<ResultItem> items = new ArrayList<>();
+
+    public LazyResultItemListTest() {
+        for (int i = 0; i < 50; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge " + (i % 3),
+                            i % 2 == 0 ? "4" : null,
+                            "4",
+                            i % 2 == 0 ? 1f : 0f,
+                            1000L + i,
+                            i % 5 == 0 ? null : 500L));
+    }
+
+    @Test
+    public void decodesJsonItemsInAnyOrder() {
+        verifyRandomAccess(LazyResultItemList.ofJson(ResultItemJsonWriter.writeItems(items)));
+    }
+
+    @Test
+    public void decodesBinaryItemsInAnyOrder() {
+        verifyRandomAccess(LazyResultItemList.ofBinary(ResultItemBinaryWriter.writeItems(items)));
+    }
+
+    @Test
+    public void equalsEagerlyDecodedList() {
+        assertEquals(items, LazyResultItemList.ofJson(ResultItemJsonWriter.writeItems(items)));
+        assertEquals(items, LazyResultItemList.ofBinary(ResultItemBinaryWriter.writeItems(items)));
+    }
+
+    @Test
+    public void defersErrorsUntilAccessed() {
+        LazyResultItemList json = LazyResultItemList.ofJson("[{\"id\":\"1\"}");
+        LazyResultItemList binary = LazyResultItemList.ofBinary(new byte[] {1, 0});
+
+        assertThrows(IllegalArgumentException.class, json::size);
+        assertThrows(IllegalArgumentException.class, () -> binary.get(0));
+    }
+
+    @Test
+    public void throwsIndexOutOfBoundsException() {
+        LazyResultItemList list = LazyResultItemList.ofJson(ResultItemJsonWriter.writeItems(items));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(items.size()));
+    }
+
+    private void verifyRandomAccess(LazyResultItemList list) {
+        assertEquals(items.get(37), list.get(37));
+        assertEquals(items.get(2), list.get(2));
+        assertEquals(items.size(), list.size());
+        for (int i = items.size() - 1; i >= 0; i--) assertEquals(items.get(i), list.get(i));
+    }
+}
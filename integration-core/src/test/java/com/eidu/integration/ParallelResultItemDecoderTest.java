@@ -0,0 +1,94 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class ParallelResultItemDecoderTest {
+    List<byte[]> payloads = new ArrayList<>();
+
+    public ParallelResultItemDecoderTest() {
+        for (int i = 0; i < 40; i++) {
+            List<ResultItem> items = items(i * 5);
+            payloads.add(
+                    i % 2 == 0
+                            ? ResultItemCodec.encodeBinary(items)
+                            : ResultItemCodec.encodeJson(items).getBytes(StandardCharsets.UTF_8));
+        }
+        payloads.set(7, "[{\"id\":".getBytes(StandardCharsets.UTF_8));
+        payloads.set(12, Arrays.copyOf(payloads.get(12), payloads.get(12).length - 1));
+        payloads.set(13, "null".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void decodesInForkJoinPool() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            verify(new ParallelResultItemDecoder(pool, 7).decode(payloads));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void decodesInExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            verify(new ParallelResultItemDecoder(executor, 7).decode(payloads));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void decodesJsonText() throws InterruptedException {
+        List<ResultItem> items = items(5000);
+
+        List<ParallelResultItemDecoder.Outcome> outcomes =
+                new ParallelResultItemDecoder()
+                        .decodeJson(Arrays.asList(ResultItemCodec.encodeJson(items), "[]"));
+
+        assertEquals(items, outcomes.get(0).items);
+        assertEquals(0, outcomes.get(1).items.size());
+    }
+
+    private void verify(List<ParallelResultItemDecoder.Outcome> outcomes) {
+        assertEquals(payloads.size(), outcomes.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            ParallelResultItemDecoder.Outcome outcome = outcomes.get(i);
+            if (i == 7 || i == 12) {
+                assertFalse(outcome.isSuccess());
+                assertTrue(outcome.error instanceof IllegalArgumentException);
+                assertNull(outcome.items);
+            } else {
+                assertTrue(outcome.isSuccess());
+                assertEquals(ResultItemCodec.decode(payloads.get(i)), outcome.items);
+            }
+        }
+    }
+
+    private static List<ResultItem> items(int count) {
+        List<ResultItem> items = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge " + (i % 13),
+                            i % 2 == 0 ? "4" : null,
+                            "4",
+                            i % 3 == 0 ? null : 0.5f,
+                            1000L + i,
+                            i % 5 == 0 ? null : 200L));
+        return items;
+    }
+}
@@ -0,0 +1,291 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResultBatchTest {
+    @TempDir File directory;
+
+    @Test
+    public void readsEntriesInOrder() throws IOException {
+        List<ResultBatchEntry> entries = entries(0, 150);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultBatchWriter writer = new ResultBatchWriter(out, 64)) {
+            for (ResultBatchEntry entry : entries) writer.add(entry);
+        }
+
+        assertEquals(entries, readAll(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void sharesStringsAcrossEntries() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultBatchWriter writer = new ResultBatchWriter(out)) {
+            for (ResultBatchEntry entry : entries(0, 64)) writer.add(entry);
+        }
+
+        int separateSize = 0;
+        for (ResultBatchEntry entry : entries(0, 64))
+            if (entry.items != null)
+                separateSize += ResultItemJsonWriter.writeItems(entry.items).length();
+        assertTrue(out.size() * 10 < separateSize);
+    }
+
+    @Test
+    public void appendsToFileAndSeeksToRun() throws IOException {
+        File file = new File(directory, "results");
+        try (ResultBatchWriter writer = ResultBatchWriter.append(file)) {
+            for (ResultBatchEntry entry : entries(0, 100)) writer.add(entry);
+        }
+        try (ResultBatchWriter writer = ResultBatchWriter.append(file)) {
+            for (ResultBatchEntry entry : entries(100, 10)) writer.add(entry);
+        }
+
+        try (ResultBatchFile batch = ResultBatchFile.open(file)) {
+            assertEquals(110, batch.learningUnitRunIds().size());
+            assertEquals(entries(42, 1).get(0), batch.get("run42"));
+            assertEquals(entries(105, 1).get(0), batch.get("run105"));
+            assertEquals(entries(3, 1).get(0), batch.get("run3"));
+            assertNull(batch.get("unknown"));
+        }
+        try (ResultBatchReader reader = new ResultBatchReader(new FileInputStream(file))) {
+            assertEquals(entries(0, 110), readAll(reader));
+        }
+    }
+
+    @Test
+    public void discardsIncompleteBlockWhenAppending() throws IOException {
+        File file = new File(directory, "results");
+        try (ResultBatchWriter writer = new ResultBatchWriter(new FileOutputStream(file), 5)) {
+            for (ResultBatchEntry entry : entries(0, 10)) writer.add(entry);
+        }
+        try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+            truncated.setLength(truncated.length() - 3);
+        }
+
+        try (ResultBatchFile batch = ResultBatchFile.open(file)) {
+            assertEquals(5, batch.learningUnitRunIds().size());
+            assertFalse(batch.contains("run5"));
+        }
+
+        try (ResultBatchWriter writer = ResultBatchWriter.append(file)) {
+            writer.add(entries(10, 1).get(0));
+        }
+        try (ResultBatchReader reader = new ResultBatchReader(new FileInputStream(file))) {
+            List<ResultBatchEntry> expected = entries(0, 5);
+            expected.addAll(entries(10, 1));
+            assertEquals(expected, readAll(reader));
+        }
+    }
+
+    @Test
+    public void discardsGarbageTailWhenAppending() throws IOException {
+        File file = new File(directory, "results");
+        try (ResultBatchWriter writer = new ResultBatchWriter(new FileOutputStream(file), 5)) {
+            for (ResultBatchEntry entry : entries(0, 10)) writer.add(entry);
+        }
+        long validLength = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            // Zeros, as left by a write that didn't reach the disk before the device lost power.
+            out.write(new byte[4096]);
+        }
+
+        try (ResultBatchFile batch = ResultBatchFile.open(file)) {
+            assertEquals(10, batch.learningUnitRunIds().size());
+        }
+        ResultBatchWriter.append(file).close();
+        assertEquals(validLength, file.length());
+
+        try (RandomAccessFile garbled = new RandomAccessFile(file, "rw")) {
+            // A block header claiming more run IDs than the file could hold.
+            garbled.seek(validLength);
+            garbled.writeInt(ResultBatchWriter.MAGIC);
+            garbled.writeInt(Integer.MAX_VALUE);
+        }
+        ResultBatchWriter.append(file).close();
+        assertEquals(validLength, file.length());
+        try (RandomAccessFile zeroed = new RandomAccessFile(file, "rw")) {
+            // The last block keeps its header, but part of its payload is zeros.
+            zeroed.seek(validLength - 10);
+            zeroed.write(new byte[10]);
+        }
+
+        try (ResultBatchWriter writer = ResultBatchWriter.append(file)) {
+            writer.add(entries(10, 1).get(0));
+        }
+        try (ResultBatchReader reader = new ResultBatchReader(new FileInputStream(file))) {
+            List<ResultBatchEntry> expected = entries(0, 5);
+            expected.addAll(entries(10, 1));
+            assertEquals(expected, readAll(reader));
+        }
+    }
+
+    @Test
+    public void rejectsFileThatIsNotBatch() throws IOException {
+        File file = new File(directory, "results");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ResultBatchFile.open(file));
+        assertThrows(IllegalArgumentException.class, () -> ResultBatchWriter.append(file));
+    }
+
+    @Test
+    public void rejectsCorruptBlock() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultBatchWriter writer = new ResultBatchWriter(out)) {
+            writer.add(entries(0, 1).get(0));
+        }
+        byte[] bytes = out.toByteArray();
+        bytes[bytes.length - 1] ^= 1;
+
+        assertThrows(
+                IllegalArgumentException.class, () -> readAll(new ByteArrayInputStream(bytes)));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> readAll(new ByteArrayInputStream(new byte[] {1, 2, 3, 4})));
+    }
+
+    @Test
+    public void rejectsHostileHeadersWithoutAllocating() throws IOException {
+        for (int[] header :
+                new int[][] {
+                    // A huge number of run IDs.
+                    {ResultBatchWriter.MAGIC, Integer.MAX_VALUE},
+                    // A huge run ID.
+                    {ResultBatchWriter.MAGIC, 1, Integer.MAX_VALUE},
+                    // A huge payload.
+                    {ResultBatchWriter.MAGIC, 0, Integer.MAX_VALUE, 0, 0},
+                    // A huge compressed payload.
+                    {ResultBatchWriter.MAGIC, 0, 0, Integer.MAX_VALUE, 0},
+                }) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            for (int value : header) data.writeInt(value);
+            data.write(new byte[64]);
+
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> readAll(new ByteArrayInputStream(out.toByteArray())));
+        }
+    }
+
+    @Test
+    public void rejectsHostilePayloadsWithValidChecksum() throws IOException {
+        ByteArrayOutputStream manyStrings = new ByteArrayOutputStream();
+        new DataOutputStream(manyStrings).writeInt(Integer.MAX_VALUE);
+
+        ByteArrayOutputStream hugeString = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(hugeString);
+        data.writeInt(1);
+        data.writeInt(Integer.MAX_VALUE);
+
+        ByteArrayOutputStream manyItems = new ByteArrayOutputStream();
+        data = new DataOutputStream(manyItems);
+        data.writeInt(1);
+        data.writeInt(7);
+        data.writeBytes("Success");
+        data.writeByte(ResultBatchWriter.ITEMS);
+        data.writeInt(0);
+        data.writeLong(1000);
+        data.writeInt(ResultBatchWriter.NO_STRING);
+        data.writeInt(ResultBatchWriter.NO_STRING);
+        data.writeInt(Integer.MAX_VALUE);
+
+        ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+        data = new DataOutputStream(truncated);
+        data.writeInt(0);
+        data.writeByte(0);
+
+        for (ByteArrayOutputStream payload :
+                Arrays.asList(manyStrings, hugeString, manyItems, truncated))
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> readAll(new ByteArrayInputStream(block(payload.toByteArray()))));
+    }
+
+    /** Builds a block of one entry with the given payload and a correct checksum. */
+    private static byte[] block(byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(payload);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed.toByteArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(ResultBatchWriter.MAGIC);
+        data.writeInt(1);
+        data.writeInt(3);
+        data.writeBytes("run");
+        data.writeInt(payload.length);
+        data.writeInt(compressed.size());
+        data.writeInt((int) crc.getValue());
+        compressed.writeTo(data);
+        return out.toByteArray();
+    }
+
+    private static List<ResultBatchEntry> readAll(ByteArrayInputStream in) throws IOException {
+        try (ResultBatchReader reader = new ResultBatchReader(in)) {
+            return readAll(reader);
+        }
+    }
+
+    private static List<ResultBatchEntry> readAll(ResultBatchReader reader) throws IOException {
+        List<ResultBatchEntry> entries = new ArrayList<>();
+        for (ResultBatchEntry entry = reader.next(); entry != null; entry = reader.next())
+            entries.add(entry);
+        return entries;
+    }
+
+    private static List<ResultBatchEntry> entries(int start, int count) {
+        List<ResultBatchEntry> entries = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            List<ResultItem> items = null;
+            if (i % 9 != 0) {
+                items = new ArrayList<>();
+                for (int j = 0; j < 20; j++)
+                    items.add(
+                            new ResultItem(
+                                    "id" + j,
+                                    "challenge " + j,
+                                    j % 2 == 0 ? "4" : null,
+                                    "4",
+                                    j % 3 == 0 ? null : 0.5f,
+                                    1000L + j,
+                                    j % 5 == 0 ? null : 200L));
+            }
+            entries.add(
+                    new ResultBatchEntry(
+                            "run" + i,
+                            i % 4 == 0 ? "Abort" : "Success",
+                            i % 4 == 0 ? null : 0.75f,
+                            60_000L + i,
+                            i % 2 == 0 ? "{\"level\":" + (i % 3) + "}" : null,
+                            null,
+                            items));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,76 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemBatchTest {
+    List<ResultItem> items = new ArrayList<>();
+
+    public ResultItemBatchTest() {
+        for (int i = 0; i < 150; i++)
+            items.add(
+                    new ResultItem(
+                            i % 7 == 0 ? null : "id" + i,
+                            "challenge " + (i % 3),
+                            i % 2 == 0 ? "4" : null,
+                            "4",
+                            i % 2 == 0 ? (Float) 1f : i % 3 == 0 ? null : 0.25f,
+                            i % 11 == 0 ? null : 1000L + i,
+                            i % 5 == 0 ? null : -500L));
+    }
+
+    @Test
+    public void equalsItsItems() {
+        ResultItemBatch batch = ResultItemBatch.of(items);
+
+        assertEquals(items, batch);
+        assertEquals(items.hashCode(), batch.hashCode());
+    }
+
+    @Test
+    public void providesPrimitiveAccess() {
+        ResultItemBatch batch =
+                new ResultItemBatch.Builder(1)
+                        .add("id", "challenge", "given", "correct", 0.5f, 1000L, 200L)
+                        .add(new ResultItem(null, null, null, null, null, null, null))
+                        .build();
+
+        assertEquals(2, batch.size());
+        assertTrue(batch.hasScore(0));
+        assertEquals(0.5f, batch.score(0));
+        assertEquals(1000L, batch.durationInMs(0));
+        assertEquals(200L, batch.timeToFirstActionInMs(0));
+        assertFalse(batch.hasScore(1));
+        assertFalse(batch.hasDurationInMs(1));
+        assertFalse(batch.hasTimeToFirstActionInMs(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.score(2));
+    }
+
+    @Test
+    public void encodesLikeItsItems() {
+        ResultItemBatch batch = ResultItemBatch.of(items);
+
+        assertEquals(
+                ResultItemJsonWriter.writeItems(items), ResultItemJsonWriter.writeItems(batch));
+        assertArrayEquals(
+                ResultItemBinaryWriter.writeItems(items), ResultItemBinaryWriter.writeItems(batch));
+    }
+
+    @Test
+    public void isUnaffectedByLaterAdditionsToBuilder() {
+        ResultItemBatch.Builder builder = new ResultItemBatch.Builder();
+        builder.add(items.get(0));
+        ResultItemBatch batch = builder.build();
+        builder.add(items.get(1));
+
+        assertEquals(1, batch.size());
+        assertEquals(2, builder.build().size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemBinaryReaderTest {
+    List<ResultItem> items =
+            Arrays.asList(
+                    new ResultItem(
+                            "id1",
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L),
+                    new ResultItem(
+                            "id2",
+                            "challenge",
+                            "é ",
+                            "correctResponse",
+                            Float.NaN,
+                            Long.MIN_VALUE,
+                            Long.MAX_VALUE),
+                    new ResultItem(null, null, "", null, -0f, -1L, 0L),
+                    new ResultItem(null, null, null, null, null, null, null));
+
+    @Test
+    public void readsWhatWriterWrites() {
+        assertEquals(
+                items, ResultItemBinaryReader.readItems(ResultItemBinaryWriter.writeItems(items)));
+        assertEquals(
+                new ArrayList<ResultItem>(),
+                ResultItemBinaryReader.readItems(
+                        ResultItemBinaryWriter.writeItems(new ArrayList<ResultItem>())));
+    }
+
+    @Test
+    public void storesRepeatedStringsOnce() {
+        List<ResultItem> repeated = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            repeated.add(new ResultItem(null, "a long challenge", "6", "6", 1f, 1000L, 500L));
+
+        byte[] data = ResultItemBinaryWriter.writeItems(repeated);
+        List<ResultItem> read = ResultItemBinaryReader.readItems(data);
+
+        assertEquals(repeated, read);
+        assertTrue(data.length * 4 < ResultItemJsonWriter.writeItems(repeated).length());
+        assertSame(read.get(0).challenge, read.get(99).challenge);
+    }
+
+    @Test
+    public void resolvesStringsIntroducedBySkippedItems() {
+        ResultItemBinaryReader reader =
+                new ResultItemBinaryReader(ResultItemBinaryWriter.writeItems(items));
+        reader.beginArray();
+        reader.skipItem();
+        assertEquals(items.get(1), reader.nextItem());
+        reader.skipItem();
+        assertEquals(items.get(3), reader.nextItem());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+    }
+
+    @Test
+    public void throwsIllegalArgumentExceptionForMalformedData() {
+        byte[] data = ResultItemBinaryWriter.writeItems(items);
+        for (int length = 0; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> ResultItemBinaryReader.readItems(truncated));
+        }
+
+        byte[] unsupportedVersion = data.clone();
+        unsupportedVersion[0] = 99;
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> ResultItemBinaryReader.readItems(unsupportedVersion));
+    }
+
+    @Test
+    public void rejectsNegativeAndOverlongVarints() {
+        // An item with an ID whose length or reference is the varint encoding of -1.
+        byte[] negativeLength = {1, 1, 0, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1, -128};
+        byte[] negativeReference = {1, 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1, -128};
+        // An ID of 1000 bytes in a payload that is much shorter.
+        byte[] overlongLength = {1, 1, 0, -24, 7, 'a', -128};
+
+        for (byte[] data : Arrays.asList(negativeLength, negativeReference, overlongLength)) {
+            assertThrows(
+                    IllegalArgumentException.class, () -> ResultItemBinaryReader.readItems(data));
+            assertThrows(
+                    IllegalArgumentException.class, () -> LazyResultItemList.ofBinary(data).size());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemCodecTest {
+    List<ResultItem> items =
+            Arrays.asList(
+                    new ResultItem(
+                            "id1",
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L),
+                    new ResultItem(null, null, null, null, null, null, null));
+
+    @Test
+    public void decodesBothFormatsFromBytes() {
+        byte[] json = ResultItemCodec.encodeJson(items).getBytes(StandardCharsets.UTF_8);
+        byte[] binary = ResultItemCodec.encodeBinary(items);
+
+        assertFalse(ResultItemCodec.isBinary(json));
+        assertTrue(ResultItemCodec.isBinary(binary));
+        assertEquals(items, ResultItemCodec.decode(json));
+        assertEquals(items, ResultItemCodec.decode(binary));
+    }
+
+    @Test
+    public void decodesNullJson() {
+        assertNull(ResultItemCodec.decode(ResultItemCodec.encodeJson(null).getBytes()));
+    }
+}
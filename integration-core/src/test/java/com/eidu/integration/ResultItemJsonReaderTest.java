@@ -0,0 +1,83 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemJsonReaderTest {
+    List<ResultItem> items =
+            Arrays.asList(
+                    new ResultItem(
+                            "id1",
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L),
+                    new ResultItem("id2", "2 / 4", "\"quoted\"\n", "\\u00e9\u0001", 0.25f, 0L, -3L),
+                    new ResultItem(null, null, null, null, null, null, null));
+
+    @Test
+    public void readsWhatWriterWrites() {
+        assertEquals(items, ResultItemJsonReader.readItems(ResultItemJsonWriter.writeItems(items)));
+    }
+
+    @Test
+    public void readsNullAndEmptyLists() {
+        assertNull(ResultItemJsonReader.readItems(ResultItemJsonWriter.writeItems(null)));
+        assertEquals(
+                new ArrayList<ResultItem>(),
+                ResultItemJsonReader.readItems(
+                        ResultItemJsonWriter.writeItems(new ArrayList<ResultItem>())));
+    }
+
+    @Test
+    public void toleratesWhitespaceUnknownKeysAndExplicitNulls() {
+        String json =
+                " [ { \"id\" : \"a\" , \"extra\" : {\"nested\": [1, \"]\"]}, "
+                        + "\"score\": null, \"durationInMs\": 12 } ] ";
+
+        assertEquals(
+                Arrays.asList(new ResultItem("a", null, null, null, null, 12L, null)),
+                ResultItemJsonReader.readItems(json));
+    }
+
+    @Test
+    public void coercesValuesLikeJsonObject() {
+        String json =
+                "[{\"id\":5,\"challenge\":1.50,\"givenResponse\":true,"
+                    + "\"score\":\"0.5\",\"durationInMs\":\"12.9\",\"timeToFirstActionInMs\":3.7}]";
+
+        assertEquals(
+                Arrays.asList(new ResultItem("5", "1.5", "true", null, 0.5f, 12L, 3L)),
+                ResultItemJsonReader.readItems(json));
+    }
+
+    @Test
+    public void skipsItemsWithoutDecodingThem() {
+        ResultItemJsonReader reader =
+                new ResultItemJsonReader(ResultItemJsonWriter.writeItems(items));
+        reader.beginArray();
+        assertTrue(reader.hasNext());
+        reader.skipItem();
+        reader.skipItem();
+        assertEquals(items.get(2), reader.nextItem());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+    }
+
+    @Test
+    public void throwsIllegalArgumentExceptionForMalformedJson() {
+        for (String json : new String[] {"", "{}", "[", "[{]", "[{\"id\":\"a}]", "[{} {}]", "[1]"})
+            assertThrows(
+                    IllegalArgumentException.class, () -> ResultItemJsonReader.readItems(json));
+    }
+}
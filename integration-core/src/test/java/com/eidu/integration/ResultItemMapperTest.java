@@ -0,0 +1,56 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/** Checks that the generated mapper agrees with the hand-written streaming JSON codec. */
+public class ResultItemMapperTest {
+    List<ResultItem> items =
+            Arrays.asList(
+                    new ResultItem(
+                            "id1",
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L),
+                    new ResultItem("id2", "2 / 4", "\"quoted\"\n", "é\u0001", 0.25f, 0L, -3L),
+                    new ResultItem(null, "challenge", null, null, 0.1f, null, null),
+                    new ResultItem(null, null, null, null, null, null, null));
+
+    @Test
+    public void encodesLikeJsonWriter() throws JSONException {
+        JSONArray written = new JSONArray(ResultItemJsonWriter.writeItems(items));
+
+        for (int i = 0; i < items.size(); i++) {
+            JSONObject expected = written.getJSONObject(i);
+            // Round-trips through text, where numbers are written like the writer writes them.
+            JSONObject actual = new JSONObject(items.get(i).toJson().toString());
+            assertEquals(expected.length(), actual.length());
+            for (Iterator<String> keys = expected.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                assertEquals(expected.get(key).toString(), actual.get(key).toString());
+            }
+        }
+    }
+
+    @Test
+    public void decodesLikeJsonReader() throws JSONException {
+        String json = ResultItemJsonWriter.writeItems(items);
+        JSONArray array = new JSONArray(json);
+
+        List<ResultItem> read = ResultItemJsonReader.readItems(json);
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(read.get(i), ResultItem.fromJson(array.getJSONObject(i)));
+            assertEquals(items.get(i), ResultItem.fromJson(items.get(i).toJson()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemRecorderTest {
+    List<ResultItem> items = new ArrayList<>();
+
+    public ResultItemRecorderTest() {
+        for (int i = 0; i < 20; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge",
+                            "4",
+                            "4",
+                            1f,
+                            1000L + i,
+                            i % 5 == 0 ? null : 500L));
+    }
+
+    @Test
+    public void encodesLikeWritingTheWholeList() {
+        ResultItemRecorder json = ResultItemRecorder.ofJson();
+        ResultItemRecorder binary = ResultItemRecorder.ofBinary();
+        for (ResultItem item : items) {
+            json.record(item);
+            binary.record(item);
+        }
+
+        assertEquals(items.size(), json.size());
+        assertEquals(ResultItemJsonWriter.writeItems(items), json.toItems().json());
+        assertArrayEquals(ResultItemBinaryWriter.writeItems(items), binary.toItems().binary());
+        assertEquals(items, binary.toItems());
+    }
+
+    @Test
+    public void continuesRecordingAfterSnapshot() {
+        for (ResultItemRecorder recorder :
+                new ResultItemRecorder[] {
+                    ResultItemRecorder.ofJson(), ResultItemRecorder.ofBinary()
+                }) {
+            recorder.record(items.get(0));
+            List<ResultItem> first = recorder.toItems();
+            assertSame(first, recorder.toItems());
+
+            recorder.record(items.get(1));
+
+            assertEquals(items.subList(0, 1), first);
+            assertEquals(items.subList(0, 2), recorder.toItems());
+        }
+    }
+
+    @Test
+    public void recordsNothing() {
+        assertEquals("[]", ResultItemRecorder.ofJson().toItems().json());
+        assertEquals(0, ResultItemRecorder.ofBinary().toItems().size());
+    }
+
+    @Test
+    public void rejectsNonFiniteScore() {
+        ResultItemRecorder recorder = ResultItemRecorder.ofBinary();
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        recorder.record(
+                                new ResultItem(null, null, null, null, Float.NaN, null, null)));
+        assertEquals(0, recorder.size());
+    }
+}
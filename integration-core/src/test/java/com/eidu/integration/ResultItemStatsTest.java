@@ -0,0 +1,106 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemStatsTest {
+    List<ResultItem> items = new ArrayList<>();
+
+    public ResultItemStatsTest() {
+        for (int i = 0; i < 100; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge",
+                            i % 10 == 0 ? null : i % 4 == 0 ? "5" : "4",
+                            i % 20 == 1 ? null : "4",
+                            i % 2 == 0 ? 0.5f : null,
+                            100L * (i + 1),
+                            i % 5 == 0 ? null : 10L + i));
+    }
+
+    @Test
+    public void summarizesItems() {
+        ResultItemStats stats = ResultItemStats.of(items);
+
+        int given = 0, correct = 0;
+        for (ResultItem item : items)
+            if (item.givenResponse != null && item.correctResponse != null) {
+                given++;
+                if (item.givenResponse.equals(item.correctResponse)) correct++;
+            }
+        assertEquals(100, stats.itemCount());
+        assertEquals(given, stats.givenResponseCount());
+        assertEquals(correct, stats.correctResponseCount());
+        assertEquals((float) correct / given, stats.accuracy());
+        assertEquals(0.5f, stats.meanScore());
+        assertEquals(0.5f, stats.score());
+        assertEquals(100, stats.durationsInMs().count());
+        assertEquals(5050, stats.durationsInMs().mean());
+        assertEquals(5000, stats.durationsInMs().percentile(0.5), 5000 * 0.016);
+        assertEquals(80, stats.timesToFirstActionInMs().count());
+        assertEquals(11, stats.timesToFirstActionInMs().min());
+    }
+
+    @Test
+    public void derivesScoreFromAccuracyWithoutItemScores() {
+        ResultItemStats stats = new ResultItemStats();
+        stats.add(new ResultItem(null, null, "4", "4", null, null, null));
+        stats.add(new ResultItem(null, null, "3", "4", null, null, null));
+        stats.add(new ResultItem(null, null, "4", null, null, null, null));
+
+        assertEquals(0.5f, stats.score());
+        assertEquals(0, stats.durationsInMs().count());
+        assertNull(new ResultItemStats().score());
+    }
+
+    @Test
+    public void recorderKeepsStats() {
+        ResultItemRecorder recorder = ResultItemRecorder.ofBinary();
+        for (ResultItem item : items.subList(0, 50)) recorder.record(item);
+        ResultItemStats stats = recorder.stats();
+        for (ResultItem item : items.subList(50, 100)) recorder.record(item);
+
+        assertEquals(50, stats.itemCount());
+        assertEquals(
+                ResultItemStats.of(items).durationsInMs().percentile(0.9),
+                recorder.stats().durationsInMs().percentile(0.9));
+        assertEquals(ResultItemStats.of(items).accuracy(), recorder.stats().accuracy());
+    }
+
+    @Test
+    public void decodesWithStats() {
+        ResultItemStats stats = new ResultItemStats();
+        ResultItemCodec.decode(ResultItemCodec.encodeBinary(items.subList(0, 30)), stats);
+        ResultItemCodec.decode(
+                ResultItemCodec.encodeJson(items.subList(30, 60)).getBytes(StandardCharsets.UTF_8),
+                stats);
+        ResultItemCodec.decodeJson(ResultItemCodec.encodeJson(items.subList(60, 100)), stats);
+
+        ResultItemStats expected = ResultItemStats.of(items);
+        assertEquals(expected.itemCount(), stats.itemCount());
+        assertEquals(expected.correctResponseCount(), stats.correctResponseCount());
+        assertEquals(expected.meanScore(), stats.meanScore());
+        assertEquals(
+                expected.timesToFirstActionInMs().percentile(0.5),
+                stats.timesToFirstActionInMs().percentile(0.5));
+    }
+
+    @Test
+    public void leavesStatsUnchangedIfDecodingFails() {
+        ResultItemStats stats = new ResultItemStats();
+        byte[] data = ResultItemCodec.encodeBinary(items);
+        byte[] truncated = Arrays.copyOf(data, data.length - 1);
+
+        assertThrows(
+                IllegalArgumentException.class, () -> ResultItemCodec.decode(truncated, stats));
+        assertEquals(0, stats.itemCount());
+    }
+}
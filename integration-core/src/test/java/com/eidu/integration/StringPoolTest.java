@@ -0,0 +1,92 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class StringPoolTest {
+    @Test
+    public void returnsCanonicalInstances() {
+        StringPool pool = new StringPool(16);
+        String first = pool.intern(new String("challenge"));
+
+        assertSame(first, pool.intern(new String("challenge")));
+        assertSame(first, pool.intern("a challenge!", 2, 11));
+        assertEquals("chall", pool.intern("a challenge!", 2, 7));
+    }
+
+    @Test
+    public void doesNotPoolLongStrings() {
+        StringPool pool = new StringPool(16);
+        char[] chars = new char[StringPool.MAX_LENGTH + 1];
+        Arrays.fill(chars, 'x');
+        String first = pool.intern(new String(chars));
+
+        assertNotSame(first, pool.intern(new String(chars)));
+    }
+
+    @Test
+    public void sharesRepeatedValuesAcrossDecodedResults() {
+        List<ResultItem> items =
+                Arrays.asList(
+                        new ResultItem("1", "2 + 4", "6", "6", 1f, 1000L, 500L),
+                        new ResultItem("2", "2 + 4", "5", "6", 0f, 1000L, 500L));
+        String json = ResultItemJsonWriter.writeItems(items);
+        byte[] binary = ResultItemBinaryWriter.writeItems(items);
+        StringPool pool = new StringPool(64);
+
+        ResultItem fromJson = readJson(json, pool).get(1);
+        ResultItem fromOtherJson = readJson(json, pool).get(0);
+        ResultItem fromBinary = readBinary(binary, pool).get(0);
+
+        assertEquals(items.get(1), fromJson);
+        assertSame(fromJson.challenge, fromOtherJson.challenge);
+        assertSame(fromJson.correctResponse, fromOtherJson.givenResponse);
+        assertSame(fromJson.challenge, fromBinary.challenge);
+    }
+
+    @Test
+    public void keepsRepeatedValuesWhileDecodingUniqueIds() {
+        List<ResultItem> repeated =
+                Collections.nCopies(2, new ResultItem("0", "2 + 4", "6", "6", 1f, 1000L, 500L));
+        List<ResultItem> unique = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++)
+            unique.add(new ResultItem("item " + i, null, null, null, null, null, null));
+        StringPool pool = new StringPool(64);
+
+        ResultItem fromJson = readJson(ResultItemJsonWriter.writeItems(repeated), pool).get(0);
+        ResultItemJsonReader jsonReader =
+                new ResultItemJsonReader(ResultItemJsonWriter.writeItems(unique), pool);
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) jsonReader.nextItem();
+        ResultItemBinaryReader binaryReader =
+                new ResultItemBinaryReader(ResultItemBinaryWriter.writeItems(unique), pool);
+        binaryReader.beginArray();
+        while (binaryReader.hasNext()) binaryReader.nextItem();
+        ResultItem fromBinary =
+                readBinary(ResultItemBinaryWriter.writeItems(repeated), pool).get(0);
+
+        assertSame(fromJson.challenge, fromBinary.challenge);
+        assertSame(fromJson.correctResponse, fromBinary.givenResponse);
+    }
+
+    private static List<ResultItem> readJson(String json, StringPool pool) {
+        ResultItemJsonReader reader = new ResultItemJsonReader(json, pool);
+        reader.beginArray();
+        ResultItem first = reader.nextItem();
+        return Arrays.asList(first, reader.nextItem());
+    }
+
+    private static List<ResultItem> readBinary(byte[] data, StringPool pool) {
+        ResultItemBinaryReader reader = new ResultItemBinaryReader(data, pool);
+        reader.beginArray();
+        ResultItem first = reader.nextItem();
+        return Arrays.asList(first, reader.nextItem());
+    }
+}
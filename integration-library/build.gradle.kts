@@ -66,7 +66,9 @@ tasks.named("check") {
 }
 
 dependencies {
+    api(project(":integration-core"))
     implementation("androidx.annotation:annotation:1.8.0")
+    annotationProcessor(project(":integration-codegen"))
 
     androidTestImplementation("androidx.test:runner:1.6.1")
     androidTestImplementation("org.junit.jupiter:junit-jupiter-api:5.10.3")
@@ -123,6 +125,16 @@ publishing {
             artifact(sourcesJar)
             artifact(javadocJar)
 
+            // The publication is assembled from the AAR by hand, so its dependencies have to be
+            // declared by hand as well.
+            pom.withXml {
+                val dependency = asNode().appendNode("dependencies").appendNode("dependency")
+                dependency.appendNode("groupId", "com.eidu")
+                dependency.appendNode("artifactId", "integration-core")
+                dependency.appendNode("version", gitVersion())
+                dependency.appendNode("scope", "compile")
+            }
+
             pom {
                 name.value(libraryArtifactId())
                 description.value("EIDU Integration Library")
@@ -0,0 +1,89 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.Context;
+import android.net.Uri;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AssetCacheTest {
+    RunLearningUnitRequest request =
+            RunLearningUnitRequest.of(
+                    "learningUnitId",
+                    "learningUnitRunId",
+                    "learnerId",
+                    "schoolId",
+                    "stage",
+                    null,
+                    null,
+                    Uri.parse("content://authority/assets"));
+    Context context =
+            TestUtil.contextWithMockResolver(
+                    "authority", Uri.parse("content://authority/assets/path"), "content");
+
+    @Test
+    public void keepsSmallAssetsInMemory() throws IOException {
+        AssetCache cache = new AssetCache(context, request);
+
+        assertEquals("content", TestUtil.readLine(cache.getAssetAsStream("path")));
+        assertEquals("content", TestUtil.readLine(cache.getAssetAsStream("path")));
+
+        AssetCache.Stats stats = cache.stats();
+        assertEquals(1, stats.misses);
+        assertEquals(1, stats.memoryHits);
+        assertEquals(7, stats.sizeInBytes);
+        cache.close();
+    }
+
+    @Test
+    public void sharesDescriptorsOfLargeAssets() throws IOException {
+        AssetCache cache = new AssetCache(context, request, 1024, 4, 1);
+
+        try (InputStream first = cache.getAssetAsStream("path");
+                InputStream second = cache.getAssetAsStream("path")) {
+            assertEquals(3, first.skip(3));
+            assertEquals('c', second.read());
+            assertEquals('t', first.read());
+        }
+        assertEquals(
+                "content",
+                StandardCharsets.UTF_8.decode(cache.getAssetAsBuffer("path")).toString());
+
+        AssetCache.Stats stats = cache.stats();
+        assertEquals(1, stats.misses);
+        assertEquals(2, stats.descriptorHits);
+        assertEquals(1, stats.openDescriptors);
+        cache.close();
+        assertEquals(0, cache.stats().openDescriptors);
+    }
+
+    @Test
+    public void prefetchesAssetsIntoCache() throws IOException, InterruptedException {
+        AssetCache cache = new AssetCache(context, request);
+        AssetPrefetcher prefetcher = new AssetPrefetcher(cache, 2);
+
+        AssetPrefetcher.Handle handle = prefetcher.prefetch(Arrays.asList("path"), 1);
+        assertTrue(handle.await(5, TimeUnit.SECONDS));
+        assertTrue(handle.failures().isEmpty());
+
+        assertEquals("content", TestUtil.readLine(cache.getAssetAsStream("path")));
+        assertEquals(1, cache.stats().memoryHits);
+        prefetcher.shutdown();
+        cache.close();
+    }
+
+    @Test
+    public void rejectsUseAfterClose() {
+        AssetCache cache = new AssetCache(context, request);
+        cache.close();
+
+        assertThrows(IllegalStateException.class, () -> cache.getAssetAsStream("path"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.test.mock.MockContentProvider;
+import android.test.mock.MockContentResolver;
+import android.test.mock.MockContext;
+import androidx.annotation.NonNull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class AssetPrefetcherTest {
+    Map<String, String> assets = new HashMap<>();
+    List<String> opened = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch blockerStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocker = new CountDownLatch(1);
+
+    RunLearningUnitRequest request =
+            RunLearningUnitRequest.of(
+                    "learningUnitId",
+                    "learningUnitRunId",
+                    "learnerId",
+                    "schoolId",
+                    "stage",
+                    null,
+                    null,
+                    Uri.parse("content://authority/assets"));
+
+    Context context =
+            new MockContext() {
+                @Override
+                public ContentResolver getContentResolver() {
+                    MockContentResolver resolver = new MockContentResolver();
+                    resolver.addProvider("authority", provider);
+                    return resolver;
+                }
+            };
+
+    MockContentProvider provider =
+            new MockContentProvider() {
+                @Override
+                public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode)
+                        throws FileNotFoundException {
+                    String path = uri.getLastPathSegment();
+                    if (path.equals("blocker")) {
+                        blockerStarted.countDown();
+                        try {
+                            releaseBlocker.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    opened.add(path);
+                    String content = assets.get(path);
+                    if (content == null) throw new FileNotFoundException(path);
+                    try {
+                        return ParcelFileDescriptor.open(
+                                TestUtil.tempFileWithContent(content),
+                                ParcelFileDescriptor.MODE_READ_ONLY);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Test failure", e);
+                    }
+                }
+            };
+
+    AssetCache cache = new AssetCache(context, request);
+    AssetPrefetcher prefetcher = new AssetPrefetcher(cache, 1);
+
+    public AssetPrefetcherTest() {
+        for (String path : Arrays.asList("blocker", "a", "b", "c")) assets.put(path, path);
+    }
+
+    @Test
+    public void retrievesHigherPrioritiesFirst() throws InterruptedException {
+        AssetPrefetcher.Handle blocker = block();
+        AssetPrefetcher.Handle low = prefetcher.prefetch(Arrays.asList("a", "b"), 1);
+        AssetPrefetcher.Handle high = prefetcher.prefetch(Collections.singletonList("c"), 2);
+        releaseBlocker.countDown();
+
+        assertTrue(low.await(5, TimeUnit.SECONDS));
+        assertTrue(high.await(5, TimeUnit.SECONDS));
+        assertTrue(blocker.isDone());
+        assertEquals(Arrays.asList("blocker", "c", "a", "b"), opened);
+        close();
+    }
+
+    @Test
+    public void cancelsPendingAssets() throws InterruptedException {
+        block();
+        AssetPrefetcher.Handle handle = prefetcher.prefetch(Arrays.asList("a", "b"), 1);
+
+        handle.cancel();
+        releaseBlocker.countDown();
+
+        assertTrue(handle.await(5, TimeUnit.SECONDS));
+        assertTrue(handle.isCancelled());
+        assertTrue(handle.failures().isEmpty());
+        assertEquals(Collections.singletonList("blocker"), opened);
+        close();
+    }
+
+    @Test
+    public void prefetchesAssetsListedInManifest() throws InterruptedException {
+        assets.put("manifest", "# The first screen\na\n\n  b  \n#c\n");
+
+        AssetPrefetcher.Handle handle = prefetcher.prefetchManifest("manifest", 1);
+
+        assertTrue(handle.await(5, TimeUnit.SECONDS));
+        assertTrue(handle.failures().isEmpty());
+        assertEquals(Arrays.asList("manifest", "a", "b"), opened);
+        close();
+    }
+
+    @Test
+    public void reportsMissingManifest() throws InterruptedException {
+        AssetPrefetcher.Handle handle = prefetcher.prefetchManifest("missing", 1);
+
+        assertTrue(handle.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singleton("missing"), handle.failures().keySet());
+        close();
+    }
+
+    @Test
+    public void skipsPendingAssetsOnShutdown() throws InterruptedException {
+        AssetPrefetcher.Handle blocker = block();
+        AssetPrefetcher.Handle handle = prefetcher.prefetch(Arrays.asList("a", "b"), 1);
+
+        prefetcher.shutdown();
+        releaseBlocker.countDown();
+
+        assertTrue(handle.await(5, TimeUnit.SECONDS));
+        // The asset that was being retrieved is not interrupted.
+        assertTrue(blocker.await(5, TimeUnit.SECONDS));
+        assertTrue(blocker.failures().isEmpty());
+        AssetPrefetcher.Handle afterShutdown =
+                prefetcher.prefetch(Collections.singletonList("c"), 1);
+        assertTrue(afterShutdown.isDone());
+        assertFalse(opened.contains("a"));
+        assertFalse(opened.contains("c"));
+        cache.close();
+    }
+
+    /** Occupies the prefetcher's only thread until {@link #releaseBlocker} is counted down. */
+    @NonNull
+    private AssetPrefetcher.Handle block() throws InterruptedException {
+        AssetPrefetcher.Handle handle =
+                prefetcher.prefetch(Collections.singletonList("blocker"), Integer.MAX_VALUE);
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+        return handle;
+    }
+
+    private void close() {
+        prefetcher.shutdown();
+        cache.close();
+    }
+}
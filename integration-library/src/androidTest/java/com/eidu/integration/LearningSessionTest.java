@@ -0,0 +1,231 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import androidx.annotation.NonNull;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class LearningSessionTest {
+    ComponentName component = new ComponentName("com.example.learningapp", "SessionService");
+    List<String> grants = Collections.synchronizedList(new ArrayList<>());
+    List<String> revocations = Collections.synchronizedList(new ArrayList<>());
+
+    Context context =
+            new ContextWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext()) {
+                @Override
+                public Context getApplicationContext() {
+                    return this;
+                }
+
+                @Override
+                public void unbindService(@NonNull ServiceConnection connection) {}
+
+                @Override
+                public void grantUriPermission(String packageName, Uri uri, int modeFlags) {
+                    assertEquals(component.getPackageName(), packageName);
+                    assertTrue((modeFlags & Intent.FLAG_GRANT_READ_URI_PERMISSION) != 0);
+                    grants.add(uri.toString());
+                }
+
+                @Override
+                public void revokeUriPermission(String packageName, Uri uri, int modeFlags) {
+                    assertEquals(component.getPackageName(), packageName);
+                    revocations.add(uri.toString());
+                }
+            };
+
+    BlockingQueue<LearningSessionService.Run> runs = new LinkedBlockingQueue<>();
+    LearningSessionService service =
+            new LearningSessionService() {
+                @Override
+                protected void onRunLearningUnit(@NonNull Run run) {
+                    runs.add(run);
+                }
+            };
+
+    @Test
+    public void deliversRunsQueuedBeforeConnecting() throws InterruptedException {
+        LearningSessionClient client = new LearningSessionClient(context, component);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        client.run(request("first", null), first);
+        client.run(request("second", null), second);
+
+        connect(client);
+
+        LearningSessionService.Run firstRun = nextRun();
+        LearningSessionService.Run secondRun = nextRun();
+        assertEquals("first", firstRun.getRequest().learningUnitRunId);
+        assertEquals("second", secondRun.getRequest().learningUnitRunId);
+
+        // Results are matched to runs by their sequence number, regardless of order.
+        secondRun.finish(RunLearningUnitResult.ofSuccess(1f, 2, null, null));
+        firstRun.finish(RunLearningUnitResult.ofAbort(0f, 1, null, null));
+
+        assertEquals(1, first.nextResult().foregroundDurationInMs);
+        assertEquals(2, second.nextResult().foregroundDurationInMs);
+        assertThrows(
+                IllegalStateException.class,
+                () -> firstRun.finish(RunLearningUnitResult.ofAbort(0f, 1, null, null)));
+    }
+
+    @Test
+    public void reportsSessionLostOnDisconnect() throws InterruptedException {
+        LearningSessionClient client = new LearningSessionClient(context, component);
+        RecordingCallback callback = new RecordingCallback();
+        connect(client);
+        client.run(request("run", null), callback);
+        LearningSessionService.Run run = nextRun();
+
+        client.connection.onServiceDisconnected(component);
+
+        assertEquals(LOST, callback.events.poll(5, TimeUnit.SECONDS));
+        run.finish(RunLearningUnitResult.ofSuccess(1f, 1, null, null));
+        assertNull(callback.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void reportsSessionLostOnClose() {
+        LearningSessionClient client = new LearningSessionClient(context, component);
+        RecordingCallback callback = new RecordingCallback();
+        client.run(request("run", null), callback);
+
+        client.close();
+
+        assertEquals(LOST, callback.events.poll());
+        assertThrows(
+                IllegalStateException.class,
+                () -> client.run(request("run", null), new RecordingCallback()));
+    }
+
+    @Test
+    public void grantsAccessToContentUrisUntilFinished() throws InterruptedException {
+        LearningSessionClient client = new LearningSessionClient(context, component);
+        RecordingCallback callback = new RecordingCallback();
+        connect(client);
+
+        client.run(request("run", Uri.parse("content://host/assets")), callback);
+        nextRun().finish(RunLearningUnitResult.ofSuccess(1f, 1, null, null));
+        callback.nextResult();
+
+        assertEquals(Collections.singletonList("content://host/assets"), grants);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+            assertEquals(Collections.singletonList("content://host/assets"), revocations);
+    }
+
+    @Test
+    public void repliesWithErrorToInvalidRequests() throws InterruptedException, RemoteException {
+        Bundle missingRequest = new Bundle();
+        missingRequest.putInt(
+                LearningSessionService.PROTOCOL_VERSION_KEY,
+                LearningSessionService.PROTOCOL_VERSION);
+        Bundle unsupportedVersion = new Bundle();
+        unsupportedVersion.putInt(LearningSessionService.PROTOCOL_VERSION_KEY, 99);
+        unsupportedVersion.putParcelable(
+                LearningSessionService.REQUEST_KEY,
+                request("run", null).toIntent(component.getPackageName(), "Activity"));
+
+        RunLearningUnitResult missing = send(missingRequest);
+        RunLearningUnitResult unsupported = send(unsupportedVersion);
+
+        assertEquals(RunLearningUnitResult.ResultType.Error, missing.resultType);
+        assertEquals(RunLearningUnitResult.ResultType.Error, unsupported.resultType);
+        assertTrue(unsupported.errorDetails.contains("protocol version 99"));
+        assertTrue(runs.isEmpty());
+    }
+
+    private void connect(@NonNull LearningSessionClient client) {
+        client.connection.onServiceConnected(component, service.onBind(new Intent()));
+    }
+
+    @NonNull
+    private LearningSessionService.Run nextRun() throws InterruptedException {
+        LearningSessionService.Run run = runs.poll(5, TimeUnit.SECONDS);
+        if (run == null) throw new AssertionError("No run was requested.");
+        return run;
+    }
+
+    @NonNull
+    private RunLearningUnitResult send(@NonNull Bundle data)
+            throws InterruptedException, RemoteException {
+        BlockingQueue<RunLearningUnitResult> results = new LinkedBlockingQueue<>();
+        Message message = Message.obtain(null, LearningSessionService.MSG_RUN, 7, 0);
+        message.setData(data);
+        message.replyTo =
+                new Messenger(
+                        new Handler(
+                                Looper.getMainLooper(),
+                                reply -> {
+                                    assertEquals(7, reply.arg1);
+                                    Bundle replyData = reply.getData();
+                                    replyData.setClassLoader(getClass().getClassLoader());
+                                    results.add(
+                                            LearningSessionService.parcelable(
+                                                    replyData, LearningSessionService.RESULT_KEY));
+                                    return true;
+                                }));
+        new Messenger(service.onBind(new Intent())).send(message);
+        RunLearningUnitResult result = results.poll(5, TimeUnit.SECONDS);
+        if (result == null) throw new AssertionError("No reply was received.");
+        return result;
+    }
+
+    private static RunLearningUnitRequest request(String runId, Uri assetsBaseUri) {
+        return RunLearningUnitRequest.of(
+                "learningUnitId",
+                runId,
+                "learnerId",
+                "schoolId",
+                "stage",
+                null,
+                null,
+                assetsBaseUri);
+    }
+
+    private static final Object LOST = new Object();
+
+    private static class RecordingCallback implements LearningSessionClient.Callback {
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onResult(@NonNull RunLearningUnitResult result) {
+            events.add(result);
+        }
+
+        @Override
+        public void onSessionLost() {
+            events.add(LOST);
+        }
+
+        @NonNull
+        RunLearningUnitResult nextResult() throws InterruptedException {
+            Object event = events.poll(5, TimeUnit.SECONDS);
+            if (!(event instanceof RunLearningUnitResult))
+                throw new AssertionError("Expected a result but got " + event);
+            return (RunLearningUnitResult) event;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemJsonWriterTest {
+    List<ResultItem> items =
+            Arrays.asList(
+                    new ResultItem(
+                            "id1",
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L),
+                    new ResultItem(
+                            "id2",
+                            "2 / 4 </script>",
+                            "\"quoted\"\t\n\r\b\f",
+                            "\\ \u0001\u001f\u007f\u2028 \u00e9",
+                            0.1f,
+                            Long.MAX_VALUE,
+                            Long.MIN_VALUE),
+                    new ResultItem(null, null, "", null, -0f, null, 0L),
+                    new ResultItem("id4", null, null, null, 3e20f, -1L, null),
+                    new ResultItem(null, null, null, null, null, null, null));
+
+    @Test
+    public void producesSameOutputAsJsonArray() throws JSONException {
+        JSONArray expected = new JSONArray();
+        for (ResultItem item : items) expected.put(item.toJson());
+
+        assertEquals(expected.toString(), ResultItemJsonWriter.writeItems(items));
+    }
+
+    @Test
+    public void producesSameOutputForEmptyAndNullLists() {
+        assertEquals(
+                new JSONArray().toString(),
+                ResultItemJsonWriter.writeItems(new ArrayList<ResultItem>()));
+        assertEquals("null", ResultItemJsonWriter.writeItems(null));
+    }
+
+    @Test
+    public void readerInterpretsValuesLikeFromJson() throws JSONException {
+        String json =
+                "[{\"id\":5,\"challenge\":1.50,\"givenResponse\":true,\"correctResponse\":null,"
+                    + "\"score\":\"x\",\"durationInMs\":\"12.9\",\"timeToFirstActionInMs\":3.7},"
+                    + "{\"score\":1e2,\"durationInMs\":12345678901234567890}]";
+
+        JSONArray array = new JSONArray(json);
+        List<ResultItem> expected = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++)
+            expected.add(ResultItem.fromJson(array.getJSONObject(i)));
+
+        assertEquals(expected, ResultItemJsonReader.readItems(json));
+    }
+
+    @Test
+    public void rejectsNonFiniteScores() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        ResultItemJsonWriter.writeItems(
+                                Arrays.asList(
+                                        new ResultItem(
+                                                null, null, null, null, Float.NaN, null, null))));
+    }
+}
@@ -0,0 +1,147 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.test.mock.MockContentProvider;
+import android.test.mock.MockContentResolver;
+import android.test.mock.MockContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class ResultItemStreamTest {
+    List<ResultItem> received = Collections.synchronizedList(new ArrayList<>());
+    List<Integer> offsets = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch callStarted = new CountDownLatch(1);
+    CountDownLatch releaseCalls = new CountDownLatch(0);
+    boolean acknowledge = true;
+
+    Context context =
+            new MockContext() {
+                @Override
+                public ContentResolver getContentResolver() {
+                    MockContentResolver resolver = new MockContentResolver();
+                    resolver.addProvider(
+                            "host",
+                            new MockContentProvider() {
+                                @Override
+                                public Bundle call(String method, String arg, Bundle extras) {
+                                    callStarted.countDown();
+                                    try {
+                                        releaseCalls.await();
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                    assertEquals(ResultItemStream.METHOD_APPEND_ITEMS, method);
+                                    assertEquals("run", arg);
+                                    offsets.add(ResultItemStream.readOffset(extras));
+                                    received.addAll(ResultItemStream.readItems(extras));
+                                    return acknowledge
+                                            ? ResultItemStream.acknowledge(extras)
+                                            : null;
+                                }
+                            });
+                    return resolver;
+                }
+            };
+
+    @Test
+    public void streamsItemsInBatches() throws InterruptedException {
+        RunLearningUnitRequest request = request(Uri.parse("content://host/items"));
+        ResultItemStream stream = ResultItemStream.open(context, request, 2, 60_000, 4);
+
+        for (int i = 0; i < 5; i++)
+            stream.add(new ResultItem("id" + i, "challenge", "given", "correct", 1f, 2L, 3L));
+
+        assertTrue(stream.finish());
+        assertEquals(5, stream.streamedCount());
+        assertEquals(5, received.size());
+        assertEquals("id4", received.get(4).id);
+        assertEquals(0, (int) offsets.get(0));
+
+        Intent resultIntent =
+                stream.markAsStreamed(
+                        RunLearningUnitResult.ofSuccess(1f, 10, null, null).toIntent());
+        assertEquals(5, (int) ResultItemStream.streamedItemCount(resultIntent));
+    }
+
+    @Test
+    public void failsIfInterruptedBeforeAllItemsAreSent() throws InterruptedException {
+        releaseCalls = new CountDownLatch(1);
+        RunLearningUnitRequest request = request(Uri.parse("content://host/items"));
+        ResultItemStream stream = ResultItemStream.open(context, request, 2, 60_000, 4);
+        for (int i = 0; i < 3; i++)
+            stream.add(new ResultItem("id" + i, "challenge", "given", "correct", 1f, 2L, 3L));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+
+        Thread.currentThread().interrupt();
+        boolean finished = stream.finish();
+        assertTrue(Thread.interrupted());
+        releaseCalls.countDown();
+
+        assertFalse(finished);
+        assertTrue(stream.isFailed());
+        assertThrows(
+                IllegalStateException.class,
+                () ->
+                        stream.markAsStreamed(
+                                RunLearningUnitResult.ofSuccess(1f, 10, null, null).toIntent()));
+    }
+
+    @Test
+    public void failsForUnknownProvider() throws InterruptedException {
+        ResultItemStream stream =
+                ResultItemStream.open(context, request(Uri.parse("content://unknown/items")));
+
+        stream.add(new ResultItem("id", "challenge", "given", "correct", 1f, 2L, 3L));
+
+        assertFalse(stream.finish());
+        assertTrue(stream.isFailed());
+    }
+
+    @Test
+    public void failsIfBatchIsNotAcknowledged() throws InterruptedException {
+        // Like a provider that doesn't handle the method.
+        acknowledge = false;
+        RunLearningUnitRequest request = request(Uri.parse("content://host/items"));
+        ResultItemStream stream = ResultItemStream.open(context, request, 2, 60_000, 4);
+
+        stream.add(new ResultItem("id", "challenge", "given", "correct", 1f, 2L, 3L));
+
+        assertFalse(stream.finish());
+        assertTrue(stream.isFailed());
+        assertEquals(0, stream.streamedCount());
+    }
+
+    @Test
+    public void doesNotStreamUnlessRequested() {
+        assertNull(ResultItemStream.open(context, request(null)));
+        assertNull(ResultItemStream.streamedItemCount(new Intent()));
+    }
+
+    private static RunLearningUnitRequest request(Uri itemStreamUri) {
+        return RunLearningUnitRequest.of(
+                "learningUnitId",
+                "run",
+                "learnerId",
+                "schoolId",
+                "stage",
+                null,
+                null,
+                null,
+                Collections.emptyList(),
+                itemStreamUri);
+    }
+}
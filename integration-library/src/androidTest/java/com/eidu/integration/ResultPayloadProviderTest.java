@@ -0,0 +1,117 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ResultPayloadProviderTest {
+    Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    List<ResultItem> items = new ArrayList<>();
+
+    public ResultPayloadProviderTest() {
+        for (int i = 0; i < 1000; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge",
+                            "givenResponse",
+                            "correctResponse",
+                            1f,
+                            1000L,
+                            500L));
+    }
+
+    @Test
+    public void deliversSmallResultsInline() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(1f, 123L, "additional data", items);
+
+        Intent intent = result.toIntent(context);
+
+        assertNull(intent.getData());
+        assertEquals(result, RunLearningUnitResult.fromIntent(intent));
+    }
+
+    @Test
+    public void deliversLargeResultsThroughContentUri() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(1f, 123L, "additional data", items);
+
+        Intent intent = result.toIntent(context, 1024);
+
+        assertNotNull(intent.getData());
+        assertTrue((intent.getFlags() & Intent.FLAG_GRANT_READ_URI_PERMISSION) != 0);
+        assertFalse(intent.hasExtra("items"));
+        assertFalse(intent.hasExtra("additionalData"));
+        assertEquals(result, RunLearningUnitResult.fromIntent(context, intent));
+        assertThrows(
+                IllegalArgumentException.class, () -> RunLearningUnitResult.fromIntent(intent));
+    }
+
+    @Test
+    public void readsPayloadBeforeItemsAreAccessed() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(1f, 123L, "additional data", items);
+        Intent intent = result.toIntent(context, 1024);
+
+        RunLearningUnitResult received = RunLearningUnitResult.fromIntent(context, intent);
+        // Simulates losing access to the payload, e.g. once the receiving activity has finished.
+        assertTrue(
+                new File(
+                                new File(context.getCacheDir(), "eidu-integration-results"),
+                                intent.getData().getLastPathSegment())
+                        .delete());
+
+        assertEquals(items, received.items);
+    }
+
+    @Test
+    public void rejectsMalformedPayloads() throws IOException {
+        Intent intent = RunLearningUnitResult.ofAbort(null, 123L, null, null).toIntent(context, 0);
+        File file =
+                new File(
+                        new File(context.getCacheDir(), "eidu-integration-results"),
+                        intent.getData().getLastPathSegment());
+
+        for (byte[] payload :
+                new byte[][] {
+                    // A negative section length.
+                    {1, 1, -1, -1, -1, -1},
+                    // A section length that far exceeds the payload.
+                    {1, 1, 127, -1, -1, -1, 'x'},
+                    // A truncated section.
+                    {1, 0, 1, 0, 0, 0, 2, 0},
+                }) {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(payload);
+            }
+
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> RunLearningUnitResult.fromIntent(context, intent));
+        }
+    }
+
+    @Test
+    public void deliversNullPayloadThroughContentUri() {
+        RunLearningUnitResult result = RunLearningUnitResult.ofAbort(null, 123L, null, null);
+
+        Intent intent = result.toIntent(context, 0);
+
+        assertNotNull(intent.getData());
+        assertEquals(result, RunLearningUnitResult.fromIntent(context, intent));
+    }
+}
@@ -0,0 +1,71 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RunClockTest {
+    List<RunLearningUnitResult.ResultType> expiries = new ArrayList<>();
+
+    @Test
+    public void measuresForegroundTimeOnlyWhileRunning() throws InterruptedException {
+        RunClock clock = new RunClock(request(null, null), expiries::add);
+
+        clock.resume();
+        Thread.sleep(20);
+        clock.pause();
+        long duration = clock.getForegroundDurationInMs();
+        Thread.sleep(20);
+
+        assertTrue(duration >= 20);
+        assertEquals(duration, clock.getForegroundDurationInMs());
+        assertFalse(clock.isRunning());
+        assertNull(clock.getExpiry());
+        assertThrows(IllegalStateException.class, () -> clock.expiryResult(1f, null, null));
+    }
+
+    @Test
+    public void expiresWhenTimeIsUp() {
+        RunClock clock = new RunClock(request(0L, 1000L), expiries::add);
+
+        clock.resume();
+
+        assertEquals(1, expiries.size());
+        assertEquals(RunLearningUnitResult.ResultType.TimeUp, clock.getExpiry());
+        assertEquals(
+                RunLearningUnitResult.ResultType.TimeUp,
+                clock.expiryResult(1f, null, null).resultType);
+        assertFalse(clock.isRunning());
+    }
+
+    @Test
+    public void expiresAfterInactivity() {
+        RunClock clock = new RunClock(request(1000L, 0L), expiries::add);
+
+        clock.resume();
+
+        assertEquals(RunLearningUnitResult.ResultType.TimeoutInactivity, clock.getExpiry());
+        assertEquals(
+                RunLearningUnitResult.ResultType.TimeoutInactivity,
+                clock.expiryResult(null, null, null).resultType);
+    }
+
+    private static RunLearningUnitRequest request(
+            Long remainingForegroundTimeInMs, Long inactivityTimeoutInMs) {
+        return RunLearningUnitRequest.of(
+                "learningUnitId",
+                "learningUnitRunId",
+                "learnerId",
+                "schoolId",
+                "stage",
+                remainingForegroundTimeInMs,
+                inactivityTimeoutInMs,
+                null);
+    }
+}
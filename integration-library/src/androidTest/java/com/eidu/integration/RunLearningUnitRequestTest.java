@@ -1,14 +1,24 @@
 package com.eidu.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 public class RunLearningUnitRequestTest {
@@ -38,6 +48,76 @@ public class RunLearningUnitRequestTest {
         assertEquals(request, requestFromIntent);
     }
 
+    @Test
+    public void writesSameExtrasAsHandWrittenEncoder() {
+        Intent intent =
+                RunLearningUnitRequest.of(
+                                learningUnitId,
+                                learningUnitRunId,
+                                learnerId,
+                                schoolId,
+                                stage,
+                                remainingForegroundTimeInMs,
+                                null,
+                                null)
+                        .toIntent("package", "ActivityClass");
+
+        assertEquals(2, intent.getIntExtra("version", 0));
+        assertEquals(learningUnitRunId, intent.getStringExtra("learningUnitRunId"));
+        assertEquals(1L, intent.getLongExtra("remainingForegroundTimeInMs", 0));
+        // Previous versions of this library require the extra to be present.
+        assertTrue(intent.hasExtra("inactivityTimeoutInMs"));
+        assertNull(intent.getSerializableExtra("inactivityTimeoutInMs"));
+    }
+
+    @Test
+    public void createRequestWithUpcomingLearningUnitsFromIntent() {
+        RunLearningUnitRequest request =
+                RunLearningUnitRequest.of(
+                        learningUnitId,
+                        learningUnitRunId,
+                        learnerId,
+                        schoolId,
+                        stage,
+                        remainingForegroundTimeInMs,
+                        inactivityTimeoutInMs,
+                        null,
+                        Arrays.asList(
+                                new UpcomingLearningUnit(
+                                        "next", Uri.parse("content://authority/next")),
+                                new UpcomingLearningUnit("after next", null)));
+        RunLearningUnitRequest requestFromIntent =
+                RunLearningUnitRequest.fromIntent(request.toIntent("package", "ActivityClass"));
+
+        assertEquals(request, requestFromIntent);
+        assertEquals(2, requestFromIntent.upcomingLearningUnits.size());
+        assertNull(requestFromIntent.upcomingLearningUnits.get(1).assetsBaseUri);
+    }
+
+    @Test
+    public void ignoresMalformedUpcomingLearningUnits() {
+        Intent intent =
+                RunLearningUnitRequest.of(
+                                learningUnitId,
+                                learningUnitRunId,
+                                learnerId,
+                                schoolId,
+                                stage,
+                                remainingForegroundTimeInMs,
+                                inactivityTimeoutInMs,
+                                null,
+                                Collections.singletonList(new UpcomingLearningUnit("next", null)))
+                        .toIntent("package", "ActivityClass");
+
+        Intent mismatched =
+                new Intent(intent).putExtra("upcomingAssetsBaseUris", new String[] {null, null});
+        Intent emptyId = new Intent(intent).putExtra("upcomingLearningUnitIds", new String[] {""});
+
+        assertTrue(RunLearningUnitRequest.fromIntent(mismatched).upcomingLearningUnits.isEmpty());
+        assertTrue(RunLearningUnitRequest.fromIntent(emptyId).upcomingLearningUnits.isEmpty());
+        assertEquals(learningUnitId, RunLearningUnitRequest.fromIntent(emptyId).learningUnitId);
+    }
+
     @Test
     public void doesNotInstantiateFromIntentWithDifferentAction() {
         RunLearningUnitRequest request =
@@ -159,4 +239,82 @@ public class RunLearningUnitRequestTest {
         assertEquals(expectedUri, request.getAssetAsUri("path"));
         assertEquals(expectedContent, TestUtil.readLine(request.getAssetAsStream(context, "path")));
     }
+
+    @Test
+    public void mapsAssetAndRangeOfAsset() throws IOException {
+        RunLearningUnitRequest request =
+                RunLearningUnitRequest.of(
+                        learningUnitId,
+                        learningUnitRunId,
+                        learnerId,
+                        schoolId,
+                        stage,
+                        remainingForegroundTimeInMs,
+                        inactivityTimeoutInMs,
+                        Uri.parse("content://authority/assets"));
+        Context context =
+                TestUtil.contextWithMockResolver(
+                        "authority", Uri.parse("content://authority/assets/path"), "content");
+
+        assertEquals("content", decode(request.getAssetAsMappedBuffer(context, "path")));
+        assertEquals("nte", decode(request.getAssetRange(context, "path", 2, 3)));
+        try (FileChannel channel = request.getAssetAsChannel(context, "path")) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, 3);
+            buffer.flip();
+            assertEquals("tent", decode(buffer));
+        }
+        assertThrows(
+                IllegalArgumentException.class, () -> request.getAssetRange(context, "path", 5, 3));
+    }
+
+    @Test
+    public void loadsAssetInBackgroundUnlessCancelled() throws IOException {
+        RunLearningUnitRequest request =
+                RunLearningUnitRequest.of(
+                        learningUnitId,
+                        learningUnitRunId,
+                        learnerId,
+                        schoolId,
+                        stage,
+                        remainingForegroundTimeInMs,
+                        inactivityTimeoutInMs,
+                        Uri.parse("content://authority/assets"));
+        Context context =
+                TestUtil.contextWithMockResolver(
+                        "authority", Uri.parse("content://authority/assets/path"), "content");
+        List<Runnable> background = new ArrayList<>();
+        List<InputStream> loaded = new ArrayList<>();
+        AssetLoad.Callback<InputStream> callback =
+                new AssetLoad.Callback<InputStream>() {
+                    @Override
+                    public void onLoaded(InputStream asset) {
+                        loaded.add(asset);
+                    }
+
+                    @Override
+                    public void onFailed(Exception error) {
+                        throw new AssertionError(error);
+                    }
+                };
+
+        AssetLoad load =
+                request.loadAssetAsStream(
+                        context, "path", background::add, Runnable::run, callback);
+        AssetLoad cancelled =
+                request.loadAssetAsStream(
+                        context, "path", background::add, Runnable::run, callback);
+        cancelled.cancel();
+        assertTrue(loaded.isEmpty());
+        for (Runnable runnable : background) runnable.run();
+
+        assertEquals(1, loaded.size());
+        assertEquals("content", TestUtil.readLine(loaded.get(0)));
+        assertTrue(cancelled.isCancelled());
+        assertFalse(load.isCancelled());
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
 }
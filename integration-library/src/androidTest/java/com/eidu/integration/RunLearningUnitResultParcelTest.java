@@ -0,0 +1,68 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import android.content.Intent;
+import android.os.Parcel;
+import android.os.Parcelable;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RunLearningUnitResultParcelTest {
+    List<ResultItem> items = new ArrayList<>();
+
+    public RunLearningUnitResultParcelTest() {
+        items.add(
+                new ResultItem(
+                        "id1", "challenge", "givenResponse", "correctResponse", 1f, 1000L, 500L));
+        items.add(new ResultItem(null, "challenge", null, null, null, 0L, null));
+    }
+
+    @Test
+    public void writesAndReadsResult() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofError(null, 123L, "error details", "data", items);
+
+        RunLearningUnitResult parsed = unparcel(result, RunLearningUnitResult.CREATOR);
+
+        assertEquals(result, parsed);
+        assertInstanceOf(ResultItemBatch.class, parsed.items);
+    }
+
+    @Test
+    public void writesAndReadsResultWithoutItems() {
+        RunLearningUnitResult result = RunLearningUnitResult.ofSuccess(0.5f, 123L, null, null);
+
+        assertEquals(result, unparcel(result, RunLearningUnitResult.CREATOR));
+    }
+
+    @Test
+    public void deliversItemsThroughMarshalledIntent() {
+        RunLearningUnitResult result = RunLearningUnitResult.ofSuccess(1f, 123L, null, items);
+        Intent intent = result.toIntent(RunLearningUnitResult.ItemsEncoding.Parcel);
+
+        Parcel parcel = Parcel.obtain();
+        try {
+            intent.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            Intent received = Intent.CREATOR.createFromParcel(parcel);
+
+            assertEquals(result, RunLearningUnitResult.fromIntent(received));
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static <T extends Parcelable> T unparcel(T value, Parcelable.Creator<T> creator) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            value.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return creator.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.eidu.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import android.content.Intent;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
@@ -40,6 +46,150 @@ public class RunLearningUnitResultTest {
         verifyConversion(result);
     }
 
+    @Test
+    public void createsResultFromParcelIntent() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(
+                        score, foregroundDurationInMs, additionalData, items);
+
+        assertEquals(
+                result,
+                RunLearningUnitResult.fromIntent(
+                        result.toIntent(RunLearningUnitResult.ItemsEncoding.Parcel)));
+    }
+
+    @Test
+    public void reportsMetricsToListener() {
+        List<IntegrationMetrics.Operation> operations = new ArrayList<>();
+        List<Long> itemCounts = new ArrayList<>();
+        IntegrationMetrics.setListener(
+                (operation, durationInNs, bytes, itemCount) -> {
+                    operations.add(operation);
+                    itemCounts.add(itemCount);
+                });
+        try {
+            RunLearningUnitResult.fromIntent(
+                    RunLearningUnitResult.ofSuccess(
+                                    score, foregroundDurationInMs, additionalData, items)
+                            .toIntent());
+        } finally {
+            IntegrationMetrics.setListener(null);
+        }
+
+        assertEquals(
+                Arrays.asList(
+                        IntegrationMetrics.Operation.ResultToIntent,
+                        IntegrationMetrics.Operation.ParseItems,
+                        IntegrationMetrics.Operation.ResultFromIntent),
+                operations);
+        assertEquals(2L, (long) itemCounts.get(0));
+    }
+
+    @Test
+    public void keepsMissingScore() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofAbort(null, foregroundDurationInMs, additionalData, items);
+
+        verifyConversion(result);
+    }
+
+    @Test
+    public void readsMissingScoreWrittenAsNullExtra() {
+        Intent intent =
+                RunLearningUnitResult.ofAbort(null, foregroundDurationInMs, null, null)
+                        .toIntent()
+                        .putExtra("score", (Float) null);
+
+        assertNull(RunLearningUnitResult.fromIntent(intent).score);
+    }
+
+    @Test
+    public void createsResultFromBinaryIntent() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(
+                        score, foregroundDurationInMs, additionalData, items);
+
+        assertEquals(
+                result,
+                RunLearningUnitResult.fromIntent(
+                        result.toIntent(RunLearningUnitResult.ItemsEncoding.Binary)));
+    }
+
+    @Test
+    public void createsResultWithoutItemsFromBinaryIntent() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofAbort(score, foregroundDurationInMs, additionalData, null);
+
+        assertEquals(
+                result,
+                RunLearningUnitResult.fromIntent(
+                        result.toIntent(RunLearningUnitResult.ItemsEncoding.Binary)));
+    }
+
+    @Test
+    public void reusesSerializedItemsWhenForwardingResult() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofSuccess(
+                        score, foregroundDurationInMs, additionalData, items);
+        Intent intent = result.toIntent();
+
+        RunLearningUnitResult parsed = RunLearningUnitResult.fromIntent(intent);
+
+        assertSame(intent.getStringExtra("items"), parsed.toIntent().getStringExtra("items"));
+        assertEquals(items.get(1), parsed.items.get(1));
+    }
+
+    @Test
+    public void reusesRecordedItems() {
+        ResultItemRecorder recorder = ResultItemRecorder.ofJson();
+        for (ResultItem item : items) recorder.record(item);
+        LazyResultItemList recorded = recorder.toItems();
+
+        Intent intent =
+                RunLearningUnitResult.ofSuccess(
+                                score, foregroundDurationInMs, additionalData, recorded)
+                        .toIntent();
+
+        assertSame(recorded.json(), intent.getStringExtra("items"));
+        assertEquals(items, RunLearningUnitResult.fromIntent(intent).items);
+    }
+
+    @Test
+    public void convertsToAndFromBatchEntry() {
+        RunLearningUnitResult result =
+                RunLearningUnitResult.ofTimeUp(
+                        score, foregroundDurationInMs, additionalData, items);
+
+        ResultBatchEntry entry = result.toBatchEntry("run");
+
+        assertEquals("run", entry.learningUnitRunId);
+        assertEquals("TimeUp", entry.resultType);
+        assertEquals(result, RunLearningUnitResult.fromBatchEntry(entry));
+    }
+
+    @Test
+    public void writesSameExtrasAsHandWrittenEncoder() {
+        Intent intent =
+                RunLearningUnitResult.ofError(
+                                null, foregroundDurationInMs, errorDetails, null, null)
+                        .toIntent();
+
+        assertEquals(2, intent.getIntExtra("version", 0));
+        assertEquals("Error", intent.getStringExtra("resultType"));
+        assertEquals(123L, intent.getLongExtra("foregroundDurationInMs", 0));
+        assertEquals(errorDetails, intent.getStringExtra("errorDetails"));
+        assertFalse(intent.hasExtra("score"));
+        assertEquals(
+                1f,
+                RunLearningUnitResult.ofSuccess(1f, 0, null, null)
+                        .toIntent()
+                        .getFloatExtra("score", 0f));
+        assertTrue(
+                RunLearningUnitResult.ofSuccess(1f, 0, null, null)
+                        .toIntent()
+                        .hasExtra("errorDetails"));
+    }
+
     private void verifyConversion(RunLearningUnitResult result) {
         assertEquals(result, RunLearningUnitResult.fromIntent(result.toIntent()));
     }
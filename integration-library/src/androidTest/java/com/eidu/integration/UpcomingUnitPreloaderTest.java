@@ -0,0 +1,165 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.test.mock.MockContentProvider;
+import android.test.mock.MockContentResolver;
+import android.test.mock.MockContext;
+import androidx.annotation.NonNull;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class UpcomingUnitPreloaderTest {
+    // The manifest of every unit lists three assets of 100 bytes each.
+    static final String MANIFEST = "a\nb\nc\n";
+    static final String ASSET = new String(new char[100]).replace('\0', 'x');
+    static final int UNIT_SIZE = MANIFEST.length() + 3 * ASSET.length();
+
+    List<String> opened = Collections.synchronizedList(new ArrayList<>());
+
+    Context context =
+            new MockContext() {
+                @Override
+                public ContentResolver getContentResolver() {
+                    MockContentResolver resolver = new MockContentResolver();
+                    resolver.addProvider(
+                            "authority",
+                            new MockContentProvider() {
+                                @Override
+                                public ParcelFileDescriptor openFile(
+                                        @NonNull Uri uri, @NonNull String mode)
+                                        throws FileNotFoundException {
+                                    opened.add(uri.getPath());
+                                    String content =
+                                            uri.getLastPathSegment().equals("manifest")
+                                                    ? MANIFEST
+                                                    : ASSET;
+                                    try {
+                                        return ParcelFileDescriptor.open(
+                                                TestUtil.tempFileWithContent(content),
+                                                ParcelFileDescriptor.MODE_READ_ONLY);
+                                    } catch (IOException e) {
+                                        throw new RuntimeException("Test failure", e);
+                                    }
+                                }
+                            });
+                    return resolver;
+                }
+            };
+
+    @Test
+    public void preloadsUpcomingUnits() throws InterruptedException, IOException {
+        UpcomingUnitPreloader preloader = new UpcomingUnitPreloader(context, "manifest", 1000);
+
+        preloader.preload(request("current", "next"));
+        AssetCache cache = preloader.take(request("next"));
+
+        assertNotNull(cache);
+        awaitSize(cache, UNIT_SIZE);
+        assertEquals(ASSET, TestUtil.readLine(cache.getAssetAsStream("c")));
+        assertNull(preloader.take(request("next")));
+        cache.close();
+        preloader.close();
+    }
+
+    @Test
+    public void keepsUnitsThatAreStillUpcoming() throws InterruptedException {
+        UpcomingUnitPreloader preloader = new UpcomingUnitPreloader(context, "manifest", 1000);
+        preloader.preload(request("current", "first", "second"));
+
+        preloader.preload(request("first", "second", "third"));
+
+        assertNull(preloader.take(request("first")));
+        AssetCache third = preloader.take(request("third"));
+        assertNotNull(third);
+        awaitSize(third, UNIT_SIZE);
+        AssetCache second = preloader.take(request("second"));
+        assertNotNull(second);
+        // The second unit comes first now, so it would have been loaded before the third if it
+        // hadn't been kept.
+        assertEquals(1, Collections.frequency(opened, "/second/manifest"));
+        second.close();
+        third.close();
+        preloader.close();
+    }
+
+    @Test
+    public void staysWithinBudgetWhenUpcomingUnitsChange() throws InterruptedException {
+        UpcomingUnitPreloader preloader = new UpcomingUnitPreloader(context, "manifest", UNIT_SIZE);
+        preloader.preload(request("current", "first"));
+        awaitOpened(4);
+
+        preloader.preload(request("current", "first", "second", "third"));
+        AssetCache kept = preloader.take(request("first"));
+
+        assertNotNull(kept);
+        assertEquals(4, kept.stats().misses);
+        assertTrue(kept.stats().sizeInBytes <= UNIT_SIZE / 3);
+        kept.close();
+        preloader.close();
+    }
+
+    @Test
+    public void rejectsUseAfterClose() {
+        UpcomingUnitPreloader preloader = new UpcomingUnitPreloader(context, "manifest");
+        preloader.preload(request("current", "next"));
+
+        preloader.close();
+
+        assertNull(preloader.take(request("next")));
+        assertThrows(IllegalStateException.class, () -> preloader.preload(request("next")));
+    }
+
+    private void awaitOpened(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (opened.size() < count) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Assets were not preloaded: " + opened);
+            Thread.sleep(10);
+        }
+        // Gives the last asset time to be put into the cache after it was opened.
+        Thread.sleep(100);
+    }
+
+    private static void awaitSize(@NonNull AssetCache cache, long sizeInBytes)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.stats().sizeInBytes < sizeInBytes) {
+            if (System.currentTimeMillis() > deadline)
+                throw new AssertionError("Assets were not preloaded: " + cache.stats());
+            Thread.sleep(10);
+        }
+    }
+
+    private static RunLearningUnitRequest request(String unit, String... upcoming) {
+        List<UpcomingLearningUnit> units = new ArrayList<>();
+        for (String id : upcoming) units.add(new UpcomingLearningUnit(id, uri(id)));
+        return RunLearningUnitRequest.of(
+                unit,
+                "learningUnitRunId",
+                "learnerId",
+                "schoolId",
+                "stage",
+                null,
+                null,
+                uri(unit),
+                Collections.unmodifiableList(units),
+                null);
+    }
+
+    private static Uri uri(String unit) {
+        return Uri.parse("content://authority/" + unit);
+    }
+}
@@ -0,0 +1,443 @@
+package com.eidu.integration;
+
+import android.content.Context;
+import android.os.ParcelFileDescriptor;
+import androidx.annotation.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Caches the assets of a {@link RunLearningUnitRequest}, so that retrieving the same asset
+ * repeatedly, e.g. a sound effect, doesn't require a call to the EIDU app every time.
+ *
+ * <p>Assets up to {@code maxAssetSizeInBytes} are kept in memory, up to a total of {@code
+ * maxSizeInBytes}, evicting the least recently used ones when necessary. For larger assets, up to
+ * {@code maxOpenDescriptors} file descriptors are kept open and shared by all readers, again
+ * evicting the least recently used ones. Assets that the EIDU app delivers through a pipe, whose
+ * size is unknown, are not cached.
+ *
+ * <p>{@link #stats()} reports how effective the cache is, which helps choosing the limits.
+ *
+ * <p>A cache should be {@link #close() closed} when the learning unit run ends, which releases its
+ * memory and descriptors. Instances are thread-safe.
+ */
+public final class AssetCache implements Closeable {
+
+    /** The default value of {@code maxSizeInBytes}, see {@link AssetCache}. */
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 8 * 1024 * 1024;
+
+    /** The default value of {@code maxAssetSizeInBytes}, see {@link AssetCache}. */
+    public static final int DEFAULT_MAX_ASSET_SIZE_IN_BYTES = 256 * 1024;
+
+    /** The default value of {@code maxOpenDescriptors}, see {@link AssetCache}. */
+    public static final int DEFAULT_MAX_OPEN_DESCRIPTORS = 8;
+
+    @NonNull private final Context context;
+    @NonNull private final RunLearningUnitRequest request;
+    private long maxSizeInBytes;
+    private final int maxAssetSizeInBytes;
+    private final int maxOpenDescriptors;
+
+    @NonNull
+    private final LinkedHashMap<String, byte[]> contents = new LinkedHashMap<>(16, 0.75f, true);
+
+    @NonNull
+    private final LinkedHashMap<String, SharedDescriptor> descriptors =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private long sizeInBytes;
+    private long memoryHits;
+    private long descriptorHits;
+    private long misses;
+    private long evictions;
+    private boolean closed;
+
+    /**
+     * Creates a cache with default limits.
+     *
+     * @param context The context to retrieve assets with. Should be an application context, since
+     *     the cache keeps a reference to it.
+     * @param request The request whose assets to cache.
+     */
+    public AssetCache(@NonNull Context context, @NonNull RunLearningUnitRequest request) {
+        this(
+                context,
+                request,
+                DEFAULT_MAX_SIZE_IN_BYTES,
+                DEFAULT_MAX_ASSET_SIZE_IN_BYTES,
+                DEFAULT_MAX_OPEN_DESCRIPTORS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param context The context to retrieve assets with. Should be an application context, since
+     *     the cache keeps a reference to it.
+     * @param request The request whose assets to cache.
+     * @param maxSizeInBytes The maximum total size of assets kept in memory.
+     * @param maxAssetSizeInBytes The maximum size of an asset to keep in memory. Larger assets are
+     *     cached as open descriptors.
+     * @param maxOpenDescriptors The maximum number of descriptors to keep open for larger assets.
+     */
+    public AssetCache(
+            @NonNull Context context,
+            @NonNull RunLearningUnitRequest request,
+            long maxSizeInBytes,
+            int maxAssetSizeInBytes,
+            int maxOpenDescriptors) {
+        this.context = context;
+        this.request = request;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxAssetSizeInBytes = (int) Math.min(maxAssetSizeInBytes, maxSizeInBytes);
+        this.maxOpenDescriptors = maxOpenDescriptors;
+    }
+
+    /**
+     * Like {@link RunLearningUnitRequest#getAssetAsStream(Context, String)}, but served from the
+     * cache if possible. <b>It is the caller's responsibility to close this stream after use.</b>
+     *
+     * @param path The path of the asset to retrieve.
+     * @return An {@link InputStream} from which the asset's contents can be read.
+     * @throws FileNotFoundException In case an asset by that name cannot be found for the learning
+     *     unit being run, the request does not support asset loading, or EIDU has crashed.
+     * @throws IllegalStateException If the cache has been closed.
+     */
+    @NonNull
+    public InputStream getAssetAsStream(@NonNull String path) throws IOException {
+        Object cached = lookUp(path);
+        if (cached instanceof byte[]) return new ByteArrayInputStream((byte[]) cached);
+        if (cached instanceof SharedDescriptor)
+            return new DescriptorInputStream((SharedDescriptor) cached);
+        return (InputStream) cached;
+    }
+
+    /**
+     * Retrieves the entire contents of an asset as a read-only {@link ByteBuffer}, served from the
+     * cache if possible. Assets kept in memory are wrapped without copying; larger assets are
+     * memory-mapped, see {@link RunLearningUnitRequest#getAssetAsMappedBuffer(Context, String)}.
+     *
+     * @param path The path of the asset to retrieve.
+     * @return A read-only buffer of the asset's contents.
+     * @throws FileNotFoundException In case an asset by that name cannot be found for the learning
+     *     unit being run, the request does not support asset loading, or EIDU has crashed.
+     * @throws IOException In case the asset cannot be read.
+     * @throws IllegalStateException If the cache has been closed.
+     */
+    @NonNull
+    public ByteBuffer getAssetAsBuffer(@NonNull String path) throws IOException {
+        Object cached = lookUp(path);
+        if (cached instanceof byte[]) return ByteBuffer.wrap((byte[]) cached).asReadOnlyBuffer();
+        if (cached instanceof SharedDescriptor) {
+            SharedDescriptor descriptor = (SharedDescriptor) cached;
+            try {
+                return descriptor.channel.map(FileChannel.MapMode.READ_ONLY, 0, descriptor.size);
+            } finally {
+                release(descriptor);
+            }
+        }
+        try (InputStream stream = (InputStream) cached) {
+            return ByteBuffer.wrap(readFully(stream, -1)).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Makes sure that an asset is cached, retrieving it if it isn't, without reading it.
+     *
+     * @param path The path of the asset.
+     * @throws FileNotFoundException In case an asset by that name cannot be found.
+     * @throws IllegalStateException If the cache has been closed.
+     */
+    void warm(@NonNull String path) throws IOException {
+        Object cached = lookUp(path);
+        if (cached instanceof SharedDescriptor) release((SharedDescriptor) cached);
+        else if (cached instanceof InputStream) ((InputStream) cached).close();
+    }
+
+    /**
+     * Changes the maximum total size of assets kept in memory, evicting the least recently used
+     * ones until they fit.
+     */
+    synchronized void setMaxSizeInBytes(long maxSizeInBytes) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        trim();
+    }
+
+    /** Returns statistics about the usage of this cache so far. */
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(
+                memoryHits, descriptorHits, misses, evictions, sizeInBytes, descriptors.size());
+    }
+
+    /**
+     * Releases all cached assets. Descriptors that are still being read from are closed once their
+     * streams are closed. The cache cannot be used anymore afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        contents.clear();
+        sizeInBytes = 0;
+        for (SharedDescriptor descriptor : descriptors.values()) evict(descriptor);
+        descriptors.clear();
+    }
+
+    /**
+     * Returns the cached contents as a byte array, a {@link SharedDescriptor} that has been
+     * acquired for the caller, or an {@link InputStream} for an asset that is not cached.
+     */
+    @NonNull
+    private Object lookUp(@NonNull String path) throws IOException {
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Asset cache has been closed.");
+            byte[] content = contents.get(path);
+            if (content != null) {
+                memoryHits++;
+                return content;
+            }
+            SharedDescriptor descriptor = descriptors.get(path);
+            if (descriptor != null) {
+                descriptorHits++;
+                descriptor.users++;
+                return descriptor;
+            }
+            misses++;
+        }
+
+        // Opened outside the lock, since it involves a call to the EIDU app. Concurrent misses for
+        // the same asset may thus both open it, in which case the last one is cached.
+        ParcelFileDescriptor descriptor = request.getAssetAsFileDescriptor(context, path);
+        long size = descriptor.getStatSize();
+        if (size < 0) return new ParcelFileDescriptor.AutoCloseInputStream(descriptor);
+
+        if (size <= maxAssetSizeInBytes) {
+            byte[] content;
+            try (InputStream stream = new ParcelFileDescriptor.AutoCloseInputStream(descriptor)) {
+                content = readFully(stream, (int) size);
+            }
+            synchronized (this) {
+                if (!closed) put(path, content);
+            }
+            return content;
+        }
+
+        SharedDescriptor shared = new SharedDescriptor(descriptor, size);
+        synchronized (this) {
+            if (!closed) put(path, shared);
+            else shared.evicted = true;
+        }
+        return shared;
+    }
+
+    private void put(@NonNull String path, @NonNull byte[] content) {
+        byte[] previous = contents.put(path, content);
+        if (previous != null) sizeInBytes -= previous.length;
+        sizeInBytes += content.length;
+        trim();
+    }
+
+    private void trim() {
+        Iterator<byte[]> iterator = contents.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            sizeInBytes -= iterator.next().length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void put(@NonNull String path, @NonNull SharedDescriptor descriptor) {
+        SharedDescriptor previous = descriptors.put(path, descriptor);
+        if (previous != null) evict(previous);
+        Iterator<SharedDescriptor> iterator = descriptors.values().iterator();
+        while (descriptors.size() > maxOpenDescriptors && iterator.hasNext()) {
+            evict(iterator.next());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void evict(@NonNull SharedDescriptor descriptor) {
+        descriptor.evicted = true;
+        if (descriptor.users == 0) descriptor.close();
+    }
+
+    private synchronized void release(@NonNull SharedDescriptor descriptor) {
+        descriptor.users--;
+        if (descriptor.evicted && descriptor.users == 0) descriptor.close();
+    }
+
+    @NonNull
+    private static byte[] readFully(@NonNull InputStream stream, int size) throws IOException {
+        if (size >= 0) {
+            byte[] content = new byte[size];
+            int read = 0;
+            while (read < size) {
+                int count = stream.read(content, read, size - read);
+                if (count < 0) throw new IOException("Asset ended prematurely.");
+                read += count;
+            }
+            return content;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int count; (count = stream.read(buffer)) >= 0; ) out.write(buffer, 0, count);
+        return out.toByteArray();
+    }
+
+    /** Statistics about the usage of an {@link AssetCache}. */
+    public static final class Stats {
+        /** The number of retrievals served from memory. */
+        public final long memoryHits;
+
+        /** The number of retrievals served from an open descriptor. */
+        public final long descriptorHits;
+
+        /** The number of retrievals that required a call to the EIDU app. */
+        public final long misses;
+
+        /** The number of assets and descriptors evicted to stay within the limits. */
+        public final long evictions;
+
+        /** The total size of the assets currently kept in memory. */
+        public final long sizeInBytes;
+
+        /** The number of descriptors currently kept open. */
+        public final int openDescriptors;
+
+        Stats(
+                long memoryHits,
+                long descriptorHits,
+                long misses,
+                long evictions,
+                long sizeInBytes,
+                int openDescriptors) {
+            this.memoryHits = memoryHits;
+            this.descriptorHits = descriptorHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.sizeInBytes = sizeInBytes;
+            this.openDescriptors = openDescriptors;
+        }
+
+        /** Returns the fraction of retrievals that didn't require a call to the EIDU app. */
+        public float hitRate() {
+            long total = memoryHits + descriptorHits + misses;
+            return total == 0 ? 0f : (float) (memoryHits + descriptorHits) / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "AssetCache.Stats{memoryHits="
+                    + memoryHits
+                    + ", descriptorHits="
+                    + descriptorHits
+                    + ", misses="
+                    + misses
+                    + ", evictions="
+                    + evictions
+                    + ", sizeInBytes="
+                    + sizeInBytes
+                    + ", openDescriptors="
+                    + openDescriptors
+                    + "}";
+        }
+    }
+
+    /** An open descriptor that is shared by all readers of an asset. */
+    private static final class SharedDescriptor {
+        @NonNull final ParcelFileDescriptor descriptor;
+        @NonNull final FileChannel channel;
+        final long size;
+        int users = 1;
+        boolean evicted;
+
+        SharedDescriptor(@NonNull ParcelFileDescriptor descriptor, long size) {
+            this.descriptor = descriptor;
+            // The stream is never closed, since that would close the shared descriptor.
+            this.channel = new FileInputStream(descriptor.getFileDescriptor()).getChannel();
+            this.size = size;
+        }
+
+        void close() {
+            try {
+                descriptor.close();
+            } catch (IOException ignored) {
+                // Nothing left to do.
+            }
+        }
+    }
+
+    /**
+     * Reads a shared descriptor with positional reads, so that any number of streams can read it
+     * concurrently.
+     */
+    private final class DescriptorInputStream extends InputStream {
+        @NonNull private final SharedDescriptor descriptor;
+        private long position;
+        private long mark;
+        private boolean closed;
+
+        DescriptorInputStream(@NonNull SharedDescriptor descriptor) {
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) throws IOException {
+            if (closed) throw new IOException("Stream closed.");
+            if (len == 0) return 0;
+            int count = descriptor.channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (count > 0) position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, descriptor.size - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, descriptor.size - position));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            release(descriptor);
+        }
+    }
+}
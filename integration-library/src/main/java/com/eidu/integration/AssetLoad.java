@@ -0,0 +1,175 @@
+package com.eidu.integration;
+
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import androidx.annotation.NonNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asset that is being loaded in the background, see e.g. {@link
+ * RunLearningUnitRequest#loadAssetAsStream(android.content.Context, String, Callback)}.
+ *
+ * <p>The load can be cancelled with {@link #cancel()}, for example when the learning unit is torn
+ * down. Once cancelled, the callback is not invoked anymore, and an asset that has already been
+ * opened is closed again. Cancellation is also forwarded to the EIDU app's content provider, so
+ * that a pending retrieval can be aborted there.
+ */
+public final class AssetLoad {
+
+    /**
+     * Receives the outcome of an {@link AssetLoad}. Exactly one of its methods is invoked, unless
+     * the load is cancelled.
+     *
+     * @param <T> The type of the loaded asset.
+     */
+    public interface Callback<T> {
+        /**
+         * Called with the loaded asset. If the asset needs to be closed, e.g. an {@link
+         * java.io.InputStream}, it is the callback's responsibility to close it after use.
+         *
+         * @param asset The asset.
+         */
+        void onLoaded(@NonNull T asset);
+
+        /**
+         * Called if the asset could not be loaded.
+         *
+         * @param error The reason, usually a {@link java.io.FileNotFoundException} in case the
+         *     asset cannot be found for the learning unit being run, the request does not support
+         *     asset loading, or EIDU has crashed.
+         */
+        void onFailed(@NonNull Exception error);
+    }
+
+    /** Loads an asset on a background thread. */
+    interface Loader<T> {
+        @NonNull
+        T load(@NonNull CancellationSignal signal) throws IOException;
+    }
+
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static Executor defaultExecutor;
+    private static Executor mainThreadExecutor;
+
+    @NonNull private final CancellationSignal signal = new CancellationSignal();
+    private volatile boolean cancelled;
+
+    private AssetLoad() {}
+
+    /**
+     * Cancels this load. Has no effect if the callback has already been invoked.
+     *
+     * <p>When called on the thread on which the callback is invoked, it is guaranteed that the
+     * callback is not invoked afterwards.
+     */
+    public void cancel() {
+        cancelled = true;
+        signal.cancel();
+    }
+
+    /** Returns whether {@link #cancel()} has been called. */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Starts loading an asset.
+     *
+     * @param executor The executor on which to load the asset.
+     * @param callbackExecutor The executor on which to invoke the callback.
+     * @param loader Loads the asset.
+     * @param callback Receives the outcome.
+     * @return The new load.
+     */
+    @NonNull
+    static <T> AssetLoad start(
+            @NonNull Executor executor,
+            @NonNull Executor callbackExecutor,
+            @NonNull Loader<T> loader,
+            @NonNull Callback<T> callback) {
+        AssetLoad load = new AssetLoad();
+        executor.execute(() -> load.run(callbackExecutor, loader, callback));
+        return load;
+    }
+
+    /**
+     * Returns the executor used for loading assets unless a different one is specified, which uses
+     * a small number of background threads.
+     */
+    @NonNull
+    static synchronized Executor defaultExecutor() {
+        if (defaultExecutor == null) {
+            ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            DEFAULT_PARALLELISM,
+                            DEFAULT_PARALLELISM,
+                            10,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            runnable -> {
+                                Thread thread =
+                                        new Thread(
+                                                runnable,
+                                                "AssetLoad-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            executor.allowCoreThreadTimeOut(true);
+            defaultExecutor = executor;
+        }
+        return defaultExecutor;
+    }
+
+    /** Returns an executor which runs tasks on the main thread. */
+    @NonNull
+    static synchronized Executor mainThreadExecutor() {
+        if (mainThreadExecutor == null)
+            mainThreadExecutor = new Handler(Looper.getMainLooper())::post;
+        return mainThreadExecutor;
+    }
+
+    private <T> void run(
+            @NonNull Executor callbackExecutor,
+            @NonNull Loader<T> loader,
+            @NonNull Callback<T> callback) {
+        if (cancelled) return;
+        T asset;
+        try {
+            asset = loader.load(signal);
+        } catch (OperationCanceledException e) {
+            return;
+        } catch (IOException | RuntimeException e) {
+            if (!cancelled) callbackExecutor.execute(() -> fail(callback, e));
+            return;
+        }
+        if (cancelled) discard(asset);
+        else callbackExecutor.execute(() -> deliver(callback, asset));
+    }
+
+    private <T> void deliver(@NonNull Callback<T> callback, @NonNull T asset) {
+        if (cancelled) discard(asset);
+        else callback.onLoaded(asset);
+    }
+
+    private <T> void fail(@NonNull Callback<T> callback, @NonNull Exception error) {
+        if (!cancelled) callback.onFailed(error);
+    }
+
+    private static void discard(@NonNull Object asset) {
+        if (!(asset instanceof Closeable)) return;
+        try {
+            ((Closeable) asset).close();
+        } catch (IOException ignored) {
+            // The asset is not used anymore anyway.
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.eidu.integration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads assets into an {@link AssetCache} ahead of time, several at once, so that the time until a
+ * learning unit can start is not the sum of retrieving each of its assets one after the other.
+ *
+ * <p>Each call to {@link #prefetch} or {@link #prefetchManifest} is given a priority. Assets with a
+ * higher priority are retrieved first, e.g. those needed for the first screen of a unit, and assets
+ * with the same priority are retrieved in the order they were given in. The returned {@link Handle}
+ * allows waiting for the assets or cancelling their retrieval.
+ *
+ * <p>Assets are retrieved by at most {@code parallelism} background threads. Prefetchers should be
+ * {@link #shutdown() shut down} when they are no longer needed.
+ */
+public final class AssetPrefetcher {
+
+    /** The default value of {@code parallelism}, see {@link AssetPrefetcher}. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    // Only null for prefetchers that load into several caches, see UpcomingUnitPreloader.
+    @Nullable private final AssetCache cache;
+    @NonNull private final ThreadPoolExecutor executor;
+    @NonNull private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates a prefetcher with {@link #DEFAULT_PARALLELISM}.
+     *
+     * @param cache The cache to load assets into.
+     */
+    public AssetPrefetcher(@NonNull AssetCache cache) {
+        this(cache, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param cache The cache to load assets into.
+     * @param parallelism The maximum number of assets to retrieve concurrently.
+     */
+    public AssetPrefetcher(@NonNull AssetCache cache, int parallelism) {
+        this.cache = cache;
+        executor = newExecutor(parallelism);
+    }
+
+    /**
+     * Creates a prefetcher without a cache of its own, which only supports the methods that take a
+     * cache.
+     */
+    AssetPrefetcher(int parallelism) {
+        cache = null;
+        executor = newExecutor(parallelism);
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor newExecutor(int parallelism) {
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        parallelism,
+                        parallelism,
+                        10,
+                        TimeUnit.SECONDS,
+                        new PriorityBlockingQueue<>(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "AssetPrefetcher-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Starts retrieving the given assets in the background.
+     *
+     * @param paths The paths of the assets to retrieve, in the order in which to retrieve them.
+     * @param priority The priority of these assets relative to those of other calls. Higher values
+     *     are retrieved first.
+     * @return A handle to wait for the assets or cancel their retrieval.
+     */
+    @NonNull
+    public Handle prefetch(@NonNull List<String> paths, int priority) {
+        return prefetch(requireCache(), paths, priority);
+    }
+
+    /** Like {@link #prefetch(List, int)}, but loads assets into the given cache. */
+    @NonNull
+    Handle prefetch(@NonNull AssetCache cache, @NonNull List<String> paths, int priority) {
+        Handle handle = new Handle();
+        enqueue(handle, cache, paths, priority);
+        return handle;
+    }
+
+    /**
+     * Starts retrieving the assets listed in a manifest, which is itself an asset of the learning
+     * unit. The manifest is a UTF-8 text file with one asset path per line, in the order in which
+     * to retrieve them. Empty lines and lines starting with <code>#</code> are ignored.
+     *
+     * @param manifestPath The path of the manifest asset.
+     * @param priority The priority of the listed assets relative to those of other calls. Higher
+     *     values are retrieved first. The manifest itself is retrieved with a slightly higher
+     *     priority.
+     * @return A handle to wait for the assets or cancel their retrieval. If the manifest cannot be
+     *     read, this is reported by {@link Handle#failures()}.
+     */
+    @NonNull
+    public Handle prefetchManifest(@NonNull String manifestPath, int priority) {
+        return prefetchManifest(requireCache(), manifestPath, priority);
+    }
+
+    /** Like {@link #prefetchManifest(String, int)}, but loads assets into the given cache. */
+    @NonNull
+    Handle prefetchManifest(@NonNull AssetCache cache, @NonNull String manifestPath, int priority) {
+        Handle handle = new Handle();
+        submit(
+                new Task(
+                        handle,
+                        manifestPath,
+                        priority == Integer.MAX_VALUE ? priority : priority + 1) {
+                    @Override
+                    void load() throws IOException {
+                        enqueue(handle, cache, readManifest(cache, manifestPath), priority);
+                    }
+                });
+        return handle;
+    }
+
+    /**
+     * Stops the background threads once the assets that are being retrieved are done. Assets that
+     * haven't started to be retrieved yet are cancelled.
+     */
+    public void shutdown() {
+        // Unlike shutdownNow(), this doesn't interrupt the retrievals in progress, which would
+        // close their channels and make them fail.
+        executor.shutdown();
+        List<Runnable> pending = new ArrayList<>();
+        executor.getQueue().drainTo(pending);
+        for (Runnable runnable : pending) ((Task) runnable).skip();
+    }
+
+    @NonNull
+    private AssetCache requireCache() {
+        if (cache == null) throw new IllegalStateException("Prefetcher has no cache of its own.");
+        return cache;
+    }
+
+    private void enqueue(
+            @NonNull Handle handle,
+            @NonNull AssetCache cache,
+            @NonNull List<String> paths,
+            int priority) {
+        for (String path : paths)
+            submit(
+                    new Task(handle, path, priority) {
+                        @Override
+                        void load() throws IOException {
+                            cache.warm(path);
+                        }
+                    });
+    }
+
+    private void submit(@NonNull Task task) {
+        if (!task.handle.add(task)) return;
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The prefetcher has been shut down, possibly concurrently with this call.
+            task.skip();
+        }
+    }
+
+    @NonNull
+    private static List<String> readManifest(
+            @NonNull AssetCache cache, @NonNull String manifestPath) throws IOException {
+        ArrayList<String> paths = new ArrayList<>();
+        try (BufferedReader reader =
+                new BufferedReader(
+                        new InputStreamReader(
+                                cache.getAssetAsStream(manifestPath), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) paths.add(line);
+            }
+        }
+        return paths;
+    }
+
+    /** Allows waiting for or cancelling the retrieval of assets started by one call. */
+    public final class Handle {
+        private final List<Task> pending = new ArrayList<>();
+        private final Map<String, Exception> failures = new LinkedHashMap<>();
+        private boolean cancelled;
+
+        private Handle() {}
+
+        /**
+         * Waits until all assets have been retrieved, have failed to be retrieved, or have been
+         * cancelled.
+         *
+         * @throws InterruptedException If the current thread is interrupted while waiting.
+         */
+        public synchronized void await() throws InterruptedException {
+            while (!pending.isEmpty()) wait();
+        }
+
+        /**
+         * Like {@link #await()}, but waits for at most the given time.
+         *
+         * @param timeout The maximum time to wait.
+         * @param unit The unit of timeout.
+         * @return Whether all assets are done.
+         * @throws InterruptedException If the current thread is interrupted while waiting.
+         */
+        public synchronized boolean await(long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        /**
+         * Cancels the retrieval of all assets that haven't started to be retrieved yet. Assets that
+         * are being retrieved at this moment are completed.
+         */
+        public void cancel() {
+            List<Task> tasks;
+            synchronized (this) {
+                cancelled = true;
+                tasks = new ArrayList<>(pending);
+            }
+            for (Task task : tasks) if (executor.remove(task)) task.skip();
+        }
+
+        /** Returns whether all assets are done. See {@link #await()}. */
+        public synchronized boolean isDone() {
+            return pending.isEmpty();
+        }
+
+        /** Returns whether {@link #cancel()} has been called. */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /** Returns the assets that could not be retrieved so far, keyed by their path. */
+        @NonNull
+        public synchronized Map<String, Exception> failures() {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        }
+
+        private synchronized boolean add(@NonNull Task task) {
+            if (cancelled) return false;
+            pending.add(task);
+            return true;
+        }
+
+        private synchronized void done(@NonNull Task task, Exception failure) {
+            if (failure != null) failures.put(task.path, failure);
+            pending.remove(task);
+            if (pending.isEmpty()) notifyAll();
+        }
+    }
+
+    /** Retrieves a single asset, ordered by priority and then by order of submission. */
+    private abstract class Task implements Runnable, Comparable<Task> {
+        @NonNull final Handle handle;
+        @NonNull final String path;
+        final int priority;
+        final long order = sequence.getAndIncrement();
+
+        Task(@NonNull Handle handle, @NonNull String path, int priority) {
+            this.handle = handle;
+            this.path = path;
+            this.priority = priority;
+        }
+
+        abstract void load() throws IOException;
+
+        @Override
+        public void run() {
+            if (handle.isCancelled()) {
+                skip();
+                return;
+            }
+            Exception failure = null;
+            try {
+                load();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                handle.done(this, failure);
+            }
+        }
+
+        void skip() {
+            handle.done(this, null);
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) return priority > other.priority ? -1 : 1;
+            return Long.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.eidu.integration;
+
+import android.os.Trace;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Reports how long the performance-relevant operations of this library take, e.g. to monitor them
+ * on real devices in production.
+ *
+ * <p>A {@link Listener} registered with {@link #setListener(Listener)} is called after each {@link
+ * Operation}, on the thread that performed it. Additionally, {@link #setTracingEnabled(boolean)}
+ * wraps each operation in an {@link Trace} section, so that operations show up in system traces.
+ *
+ * <p>As long as neither is enabled, which is the default, measuring costs no more than reading a
+ * field, so that this can stay in release builds. Both should be configured once, e.g. when the app
+ * starts; operations that are in progress when the configuration changes may not be reported
+ * consistently.
+ */
+public final class IntegrationMetrics {
+
+    /** A value of {@link Listener#onOperation} that is unknown. */
+    public static final long UNKNOWN = -1;
+
+    /** An operation of this library that is reported. */
+    public enum Operation {
+        /**
+         * Converting a {@link RunLearningUnitResult} to an intent. Reports the size of the encoded
+         * items and additional data and the number of items.
+         */
+        ResultToIntent("EIDU:RunLearningUnitResult.toIntent"),
+        /**
+         * Parsing a {@link RunLearningUnitResult} from an intent, including {@link #ParseItems} or
+         * reading a payload file. Reports neither bytes nor items.
+         */
+        ResultFromIntent("EIDU:RunLearningUnitResult.fromIntent"),
+        /**
+         * Preparing the items contained in a result intent. Since items are decoded lazily, this
+         * reports the size of the encoded items, but not their number.
+         */
+        ParseItems("EIDU:RunLearningUnitResult.parseItems"),
+        /** Opening an asset for reading. */
+        OpenAsset("EIDU:RunLearningUnitRequest.openAsset"),
+        /**
+         * Reading an asset with a stream from {@link RunLearningUnitRequest#getAssetAsStream}, from
+         * opening until closing the stream. Reports the number of bytes read.
+         */
+        ReadAsset("EIDU:RunLearningUnitRequest.readAsset");
+
+        @NonNull final String sectionName;
+
+        Operation(@NonNull String sectionName) {
+            this.sectionName = sectionName;
+        }
+    }
+
+    /** Receives measurements of operations. */
+    public interface Listener {
+        /**
+         * Called after an operation has completed, successfully or not.
+         *
+         * @param operation The operation.
+         * @param durationInNs How long the operation took.
+         * @param bytes The number of bytes processed, or {@link #UNKNOWN}. See {@link Operation}.
+         * @param itemCount The number of result items processed, or {@link #UNKNOWN}.
+         */
+        void onOperation(
+                @NonNull Operation operation, long durationInNs, long bytes, long itemCount);
+    }
+
+    /** An operation in progress, as returned by {@link #begin}. */
+    static final class Measurement {
+        @NonNull final Operation operation;
+        final long start;
+
+        /** Whether a trace section was begun, which must then be ended on the same thread. */
+        final boolean traced;
+
+        Measurement(@NonNull Operation operation, long start, boolean traced) {
+            this.operation = operation;
+            this.start = start;
+            this.traced = traced;
+        }
+    }
+
+    @Nullable private static volatile Listener listener;
+    private static volatile boolean tracing;
+    private static volatile boolean enabled;
+
+    private IntegrationMetrics() {}
+
+    /**
+     * Registers the listener that receives measurements, replacing any previous one.
+     *
+     * @param listener The listener, or null to stop reporting measurements.
+     */
+    public static synchronized void setListener(@Nullable Listener listener) {
+        IntegrationMetrics.listener = listener;
+        enabled = listener != null || tracing;
+    }
+
+    /**
+     * Sets whether operations are wrapped in {@link Trace} sections.
+     *
+     * @param tracing Whether to emit trace sections.
+     */
+    public static synchronized void setTracingEnabled(boolean tracing) {
+        IntegrationMetrics.tracing = tracing;
+        enabled = listener != null || tracing;
+    }
+
+    /** Returns whether operations are measured at all. */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marks the beginning of an operation.
+     *
+     * @return The measurement to pass to {@link #end}, or null if operations are not measured.
+     */
+    @Nullable
+    static Measurement begin(@NonNull Operation operation) {
+        if (!enabled) return null;
+        boolean traced = tracing;
+        if (traced) Trace.beginSection(operation.sectionName);
+        return new Measurement(operation, System.nanoTime(), traced);
+    }
+
+    /**
+     * Marks the end of an operation. Ends its trace section if {@link #begin} began one, even if
+     * tracing has been disabled in the meantime, so that sections stay balanced.
+     *
+     * @param measurement The value returned by {@link #begin}.
+     * @param bytes The number of bytes processed, or {@link #UNKNOWN}.
+     * @param itemCount The number of result items processed, or {@link #UNKNOWN}.
+     */
+    static void end(@Nullable Measurement measurement, long bytes, long itemCount) {
+        if (measurement == null) return;
+        long durationInNs = System.nanoTime() - measurement.start;
+        if (measurement.traced) Trace.endSection();
+        Listener listener = IntegrationMetrics.listener;
+        if (listener != null)
+            listener.onOperation(measurement.operation, durationInNs, bytes, itemCount);
+    }
+
+    /**
+     * Reports an operation that has been measured without {@link #begin}, e.g. one that spans
+     * several calls. Emits no trace section.
+     */
+    static void report(
+            @NonNull Operation operation, long durationInNs, long bytes, long itemCount) {
+        Listener listener = IntegrationMetrics.listener;
+        if (listener != null) listener.onOperation(operation, durationInNs, bytes, itemCount);
+    }
+}
@@ -0,0 +1,283 @@
+package com.eidu.integration;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The EIDU app's side of a learning session, see {@link LearningSessionService}. Learning app
+ * developers don't need to interact with it directly, other than for testing.
+ *
+ * <p>A client binds to a learning app's session service once and then runs any number of learning
+ * units through it. Requests made before the connection is established are sent as soon as it is.
+ * Callbacks are invoked on the main thread, except as described in {@link #close()}.
+ *
+ * <p>Since requests are not delivered as activity launches, the intent flags that would grant the
+ * learning app access to their content URIs don't apply. Instead, the client grants the learning
+ * app read access to the assets base URIs of each request and its upcoming units, as well as its
+ * item stream URI, when the request is run. Grants are revoked once no unfinished run refers to
+ * them anymore, which requires API level 26; on older devices, they last until the device restarts.
+ */
+public final class LearningSessionClient {
+
+    /** Receives the outcome of a learning unit run through a session. */
+    public interface Callback {
+        /**
+         * Called with the result of the run.
+         *
+         * @param result The result.
+         */
+        void onResult(@NonNull RunLearningUnitResult result);
+
+        /**
+         * Called if the session ended before the run was finished, e.g. because the learning app
+         * crashed or the client was closed, or if the learning app replied with an unsupported
+         * protocol version. The unit may then be run by launching it with a {@link
+         * RunLearningUnitRequest} intent instead.
+         */
+        void onSessionLost();
+    }
+
+    // Assets are requested below the base URI, hence the prefix grant.
+    private static final int GRANT_FLAGS =
+            Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_PREFIX_URI_PERMISSION;
+
+    @NonNull private final Context context;
+    @NonNull private final ComponentName component;
+    @NonNull private final Messenger replyTo;
+    @NonNull private final Map<Integer, PendingRun> pending = new LinkedHashMap<>();
+    @NonNull private final Map<Uri, Integer> grants = new HashMap<>();
+    @NonNull private final List<Message> queued = new ArrayList<>();
+    @Nullable private Messenger service;
+    private int nextSequenceNumber;
+    private boolean closed;
+
+    final ServiceConnection connection =
+            new ServiceConnection() {
+                @Override
+                public void onServiceConnected(ComponentName name, IBinder binder) {
+                    connected(new Messenger(binder));
+                }
+
+                @Override
+                public void onServiceDisconnected(ComponentName name) {
+                    lost();
+                }
+
+                @Override
+                public void onBindingDied(ComponentName name) {
+                    lost();
+                }
+            };
+
+    LearningSessionClient(@NonNull Context context, @NonNull ComponentName component) {
+        this.context = context.getApplicationContext();
+        this.component = component;
+        replyTo = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+    }
+
+    /**
+     * Binds to the session service of a learning app.
+     *
+     * @param context The current context. May be an application context.
+     * @param packageName The package name of the learning app.
+     * @return A new client, or null if the learning app does not support session mode, in which
+     *     case learning units need to be launched with {@link RunLearningUnitRequest} intents.
+     */
+    @Nullable
+    public static LearningSessionClient bind(
+            @NonNull Context context, @NonNull String packageName) {
+        Intent intent =
+                new Intent(LearningSessionService.ACTION_BIND_LEARNING_SESSION)
+                        .setPackage(packageName);
+        ComponentName component = resolveService(context, intent);
+        if (component == null) return null;
+
+        LearningSessionClient client = new LearningSessionClient(context, component);
+        if (!client.context.bindService(
+                new Intent(intent).setComponent(component),
+                client.connection,
+                Context.BIND_AUTO_CREATE)) {
+            client.context.unbindService(client.connection);
+            return null;
+        }
+        return client;
+    }
+
+    @Nullable
+    private static ComponentName resolveService(@NonNull Context context, @NonNull Intent intent) {
+        ResolveInfo info = context.getPackageManager().resolveService(intent, 0);
+        if (info == null || info.serviceInfo == null) return null;
+        return new ComponentName(info.serviceInfo.packageName, info.serviceInfo.name);
+    }
+
+    /**
+     * Runs a learning unit in the learning app.
+     *
+     * @param request The request describing the learning unit.
+     * @param callback Receives the result.
+     * @throws IllegalStateException If this client has been closed.
+     * @throws SecurityException If the EIDU app may not grant access to the request's content URIs.
+     */
+    public synchronized void run(
+            @NonNull RunLearningUnitRequest request, @NonNull Callback callback) {
+        if (closed) throw new IllegalStateException("Session has been closed.");
+        List<Uri> uris = contentUris(request);
+        grant(uris);
+        int sequenceNumber = nextSequenceNumber++;
+        Message message = Message.obtain(null, LearningSessionService.MSG_RUN, sequenceNumber, 0);
+        Bundle data = new Bundle();
+        data.putInt(
+                LearningSessionService.PROTOCOL_VERSION_KEY,
+                LearningSessionService.PROTOCOL_VERSION);
+        data.putParcelable(
+                LearningSessionService.REQUEST_KEY,
+                request.toIntent(component.getPackageName(), component.getClassName()));
+        message.setData(data);
+        message.replyTo = replyTo;
+        pending.put(sequenceNumber, new PendingRun(callback, uris));
+
+        if (service == null) queued.add(message);
+        else send(message);
+    }
+
+    /** Returns whether the learning app's session service is currently connected. */
+    public synchronized boolean isConnected() {
+        return service != null;
+    }
+
+    /**
+     * Ends the session. Runs that haven't been finished yet are reported with {@link
+     * Callback#onSessionLost()} on the calling thread.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        context.unbindService(connection);
+        lost();
+    }
+
+    private synchronized void connected(@NonNull Messenger service) {
+        if (closed) return;
+        this.service = service;
+        for (Message message : queued) send(message);
+        queued.clear();
+    }
+
+    private synchronized void send(@NonNull Message message) {
+        try {
+            if (service != null) service.send(message);
+        } catch (RemoteException e) {
+            // The learning app has died; onServiceDisconnected reports the pending runs.
+        }
+    }
+
+    private void lost() {
+        List<PendingRun> runs;
+        synchronized (this) {
+            service = null;
+            queued.clear();
+            runs = new ArrayList<>(pending.values());
+            pending.clear();
+            for (PendingRun run : runs) revoke(run.uris);
+        }
+        for (PendingRun run : runs) run.callback.onSessionLost();
+    }
+
+    private boolean handleMessage(@NonNull Message message) {
+        if (message.what != LearningSessionService.MSG_RESULT) return false;
+        PendingRun run;
+        synchronized (this) {
+            run = pending.remove(message.arg1);
+            if (run != null) revoke(run.uris);
+        }
+        if (run == null) return true;
+
+        Bundle data = message.getData();
+        data.setClassLoader(LearningSessionClient.class.getClassLoader());
+        RunLearningUnitResult result =
+                data.getInt(LearningSessionService.PROTOCOL_VERSION_KEY, -1)
+                                == LearningSessionService.PROTOCOL_VERSION
+                        ? LearningSessionService.parcelable(data, LearningSessionService.RESULT_KEY)
+                        : null;
+        if (result != null) run.callback.onResult(result);
+        else run.callback.onSessionLost();
+        return true;
+    }
+
+    @NonNull
+    private static List<Uri> contentUris(@NonNull RunLearningUnitRequest request) {
+        List<Uri> uris = new ArrayList<>();
+        if (request.getAssetsBaseUri() != null) uris.add(request.getAssetsBaseUri());
+        for (UpcomingLearningUnit unit : request.upcomingLearningUnits)
+            if (unit.assetsBaseUri != null) uris.add(unit.assetsBaseUri);
+        if (request.getItemStreamUri() != null) uris.add(request.getItemStreamUri());
+        return uris;
+    }
+
+    /**
+     * Grants the learning app access to the given URIs, counting how many runs refer to each of
+     * them. If a grant fails, the ones made so far are revoked again.
+     */
+    private void grant(@NonNull List<Uri> uris) {
+        for (int i = 0; i < uris.size(); i++) {
+            Uri uri = uris.get(i);
+            Integer count = grants.get(uri);
+            if (count == null) {
+                try {
+                    context.grantUriPermission(component.getPackageName(), uri, GRANT_FLAGS);
+                } catch (SecurityException e) {
+                    revoke(uris.subList(0, i));
+                    throw e;
+                }
+            }
+            grants.put(uri, count == null ? 1 : count + 1);
+        }
+    }
+
+    private void revoke(@NonNull List<Uri> uris) {
+        for (Uri uri : uris) {
+            Integer count = grants.get(uri);
+            if (count == null) continue;
+            if (count > 1) {
+                grants.put(uri, count - 1);
+                continue;
+            }
+            grants.remove(uri);
+            // Before API level 26, grants can only be revoked from all apps at once, which would
+            // include grants the EIDU app made independently of this session.
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+                context.revokeUriPermission(component.getPackageName(), uri, GRANT_FLAGS);
+        }
+    }
+
+    private static final class PendingRun {
+        @NonNull final Callback callback;
+        @NonNull final List<Uri> uris;
+
+        PendingRun(@NonNull Callback callback, @NonNull List<Uri> uris) {
+            this.callback = callback;
+            this.uris = uris;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.eidu.integration;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.Parcelable;
+import android.os.RemoteException;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A bound service through which the EIDU app can run several learning units in a row without
+ * launching an activity for each of them. The learning app stays running between units, which
+ * avoids the cost of starting an activity, and often the app's process, for every unit.
+ *
+ * <p>Session mode is optional: learning apps that support it additionally extend this class and
+ * declare the subclass in their manifest with an intent filter for {@link
+ * #ACTION_BIND_LEARNING_SESSION}. Launching learning units with a {@link RunLearningUnitRequest}
+ * intent must keep working regardless.
+ *
+ * <p>The EIDU app connects through a {@link LearningSessionClient}. For each learning unit it runs,
+ * {@link #onRunLearningUnit(Run)} is called on the main thread. The learning app presents the unit
+ * in whatever way suits it, e.g. in an activity that is already running, and eventually calls
+ * {@link Run#finish(RunLearningUnitResult)}.
+ */
+public abstract class LearningSessionService extends Service {
+
+    /** The intent action with which the EIDU app binds to a learning session service. */
+    public static final String ACTION_BIND_LEARNING_SESSION =
+            "com.eidu.integration.BIND_LEARNING_SESSION";
+
+    static final int PROTOCOL_VERSION = 1;
+    static final int MSG_RUN = 1;
+    static final int MSG_RESULT = 2;
+    static final String PROTOCOL_VERSION_KEY = "protocolVersion";
+    static final String REQUEST_KEY = "request";
+    static final String RESULT_KEY = "result";
+
+    @Nullable private Messenger messenger;
+
+    /**
+     * Called on the main thread when the EIDU app requests a learning unit to be run.
+     *
+     * <p>Unlike with an activity launch, the request doesn't carry URI permissions. Instead, the
+     * {@link LearningSessionClient} grants the learning app read access to the request's content
+     * URIs, including those of upcoming units, until the run is finished.
+     *
+     * @param run The run, which provides the request and must eventually be finished with a result.
+     */
+    protected abstract void onRunLearningUnit(@NonNull Run run);
+
+    @Nullable
+    @Override
+    public IBinder onBind(@NonNull Intent intent) {
+        if (messenger == null)
+            messenger = new Messenger(new Handler(Looper.getMainLooper(), this::handleMessage));
+        return messenger.getBinder();
+    }
+
+    private boolean handleMessage(@NonNull Message message) {
+        if (message.what != MSG_RUN || message.replyTo == null) return false;
+        Bundle data = message.getData();
+        data.setClassLoader(LearningSessionService.class.getClassLoader());
+        Intent requestIntent = parcelable(data, REQUEST_KEY);
+        RunLearningUnitRequest request;
+        try {
+            int protocolVersion = data.getInt(PROTOCOL_VERSION_KEY, -1);
+            if (protocolVersion != PROTOCOL_VERSION)
+                throw new IllegalArgumentException(
+                        "Unsupported session protocol version " + protocolVersion);
+            if (requestIntent == null)
+                throw new IllegalArgumentException("Session message contains no request.");
+            request = RunLearningUnitRequest.fromIntent(requestIntent);
+        } catch (IllegalArgumentException e) {
+            // Reported as a result, since there is no way for the learning app to handle it.
+            new Run(message.replyTo, message.arg1, null)
+                    .finish(
+                            RunLearningUnitResult.ofError(
+                                    null,
+                                    0,
+                                    "Invalid session request: " + e.getMessage(),
+                                    null,
+                                    null));
+            return true;
+        }
+        Run run = new Run(message.replyTo, message.arg1, request);
+        onRunLearningUnit(run);
+        return true;
+    }
+
+    @Nullable
+    @SuppressWarnings("deprecation") // The type-safe variant requires API level 33.
+    static <T extends Parcelable> T parcelable(@NonNull Bundle data, @NonNull String key) {
+        return data.getParcelable(key);
+    }
+
+    /** A learning unit run requested by the EIDU app through a session. */
+    public static final class Run {
+        @NonNull private final Messenger replyTo;
+        private final int sequenceNumber;
+        private final RunLearningUnitRequest request;
+        private boolean finished;
+
+        private Run(
+                @NonNull Messenger replyTo,
+                int sequenceNumber,
+                @Nullable RunLearningUnitRequest request) {
+            this.replyTo = replyTo;
+            this.sequenceNumber = sequenceNumber;
+            this.request = request;
+        }
+
+        /** Returns the request for the learning unit to run. */
+        @NonNull
+        public RunLearningUnitRequest getRequest() {
+            return request;
+        }
+
+        /**
+         * Reports the result of this run to the EIDU app. May be called from any thread.
+         *
+         * <p>The result is sent as a {@link Parcelable}, without the protection against large
+         * payloads of {@link RunLearningUnitResult#toIntent(android.content.Context)}.
+         *
+         * @param result The result.
+         * @throws IllegalStateException If this run has already been finished.
+         */
+        public void finish(@NonNull RunLearningUnitResult result) {
+            synchronized (this) {
+                if (finished) throw new IllegalStateException("Run has already been finished.");
+                finished = true;
+            }
+            Message message = Message.obtain(null, MSG_RESULT, sequenceNumber, 0);
+            Bundle data = new Bundle();
+            data.putInt(PROTOCOL_VERSION_KEY, PROTOCOL_VERSION);
+            data.putParcelable(RESULT_KEY, result);
+            message.setData(data);
+            try {
+                replyTo.send(message);
+            } catch (RemoteException ignored) {
+                // The EIDU app has disconnected, so there is nobody left to report the result to.
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.eidu.integration;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.List;
+
+/**
+ * A {@link Parcelable} wrapper around a list of {@link ResultItem}s, which are written using {@link
+ * Parcel}'s primitive methods instead of being encoded as text. See {@link
+ * RunLearningUnitResult.ItemsEncoding#Parcel}. Learning app developers don't need to interact with
+ * it directly.
+ *
+ * <p>{@link ResultItem} itself is part of the Android-free integration-core artifact and therefore
+ * cannot implement {@link Parcelable}, which is why this wrapper exists.
+ *
+ * <p>The layout consists of a version number and the number of items, followed by each item as a
+ * bitmask of its fields that are present and these fields in declaration order.
+ */
+public final class ParcelableResultItems implements Parcelable {
+
+    private static final int VERSION = 1;
+
+    @NonNull private final List<ResultItem> items;
+
+    ParcelableResultItems(@NonNull List<ResultItem> items) {
+        this.items = items;
+    }
+
+    /** Returns the wrapped items. */
+    @NonNull
+    public List<ResultItem> items() {
+        return items;
+    }
+
+    public static final Creator<ParcelableResultItems> CREATOR =
+            new Creator<ParcelableResultItems>() {
+                @Override
+                public ParcelableResultItems createFromParcel(Parcel source) {
+                    return new ParcelableResultItems(read(source));
+                }
+
+                @Override
+                public ParcelableResultItems[] newArray(int size) {
+                    return new ParcelableResultItems[size];
+                }
+            };
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        write(dest, items);
+    }
+
+    /** Writes items in the layout described above. */
+    static void write(@NonNull Parcel dest, @NonNull List<ResultItem> items) {
+        dest.writeInt(VERSION);
+        dest.writeInt(items.size());
+        if (items instanceof ResultItemBatch) {
+            ResultItemBatch batch = (ResultItemBatch) items;
+            for (int i = 0; i < batch.size(); i++)
+                write(
+                        dest,
+                        batch.id(i),
+                        batch.challenge(i),
+                        batch.givenResponse(i),
+                        batch.correctResponse(i),
+                        batch.hasScore(i),
+                        batch.score(i),
+                        batch.hasDurationInMs(i),
+                        batch.durationInMs(i),
+                        batch.hasTimeToFirstActionInMs(i),
+                        batch.timeToFirstActionInMs(i));
+        } else
+            for (int i = 0; i < items.size(); i++) {
+                ResultItem item = items.get(i);
+                write(
+                        dest,
+                        item.id,
+                        item.challenge,
+                        item.givenResponse,
+                        item.correctResponse,
+                        item.score != null,
+                        item.score != null ? item.score : 0f,
+                        item.durationInMs != null,
+                        item.durationInMs != null ? item.durationInMs : 0L,
+                        item.timeToFirstActionInMs != null,
+                        item.timeToFirstActionInMs != null ? item.timeToFirstActionInMs : 0L);
+            }
+    }
+
+    /**
+     * Reads items written by {@link #write(Parcel, List)} into a {@link ResultItemBatch}, which
+     * avoids boxing their numeric fields.
+     *
+     * @throws IllegalArgumentException If the parcel contains an unsupported version or is
+     *     malformed.
+     */
+    @NonNull
+    static ResultItemBatch read(@NonNull Parcel source) {
+        int version = source.readInt();
+        if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported parcelled items version " + version);
+        int count = source.readInt();
+        if (count < 0 || count > source.dataAvail())
+            throw new IllegalArgumentException("Invalid parcelled item count " + count);
+
+        ResultItemBatch.Builder builder = new ResultItemBatch.Builder(count);
+        for (int i = 0; i < count; i++) {
+            int mask = source.readInt();
+            builder.add(
+                    (mask & ResultItemBinaryWriter.ID) != 0 ? readString(source, false) : null,
+                    (mask & ResultItemBinaryWriter.CHALLENGE) != 0
+                            ? readString(source, true)
+                            : null,
+                    (mask & ResultItemBinaryWriter.GIVEN_RESPONSE) != 0
+                            ? readString(source, true)
+                            : null,
+                    (mask & ResultItemBinaryWriter.CORRECT_RESPONSE) != 0
+                            ? readString(source, true)
+                            : null,
+                    (mask & ResultItemBinaryWriter.SCORE) != 0,
+                    (mask & ResultItemBinaryWriter.SCORE) != 0 ? source.readFloat() : 0f,
+                    (mask & ResultItemBinaryWriter.DURATION_IN_MS) != 0,
+                    (mask & ResultItemBinaryWriter.DURATION_IN_MS) != 0 ? source.readLong() : 0L,
+                    (mask & ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS) != 0,
+                    (mask & ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS) != 0
+                            ? source.readLong()
+                            : 0L);
+        }
+        return builder.build();
+    }
+
+    @NonNull
+    private static String readString(@NonNull Parcel source, boolean pooled) {
+        String value = source.readString();
+        if (value == null) throw new IllegalArgumentException("Missing parcelled string");
+        return pooled ? StringPool.shared().intern(value) : value;
+    }
+
+    private static void write(
+            @NonNull Parcel dest,
+            @Nullable String id,
+            @Nullable String challenge,
+            @Nullable String givenResponse,
+            @Nullable String correctResponse,
+            boolean hasScore,
+            float score,
+            boolean hasDurationInMs,
+            long durationInMs,
+            boolean hasTimeToFirstActionInMs,
+            long timeToFirstActionInMs) {
+        int mask = 0;
+        if (id != null) mask |= ResultItemBinaryWriter.ID;
+        if (challenge != null) mask |= ResultItemBinaryWriter.CHALLENGE;
+        if (givenResponse != null) mask |= ResultItemBinaryWriter.GIVEN_RESPONSE;
+        if (correctResponse != null) mask |= ResultItemBinaryWriter.CORRECT_RESPONSE;
+        if (hasScore) mask |= ResultItemBinaryWriter.SCORE;
+        if (hasDurationInMs) mask |= ResultItemBinaryWriter.DURATION_IN_MS;
+        if (hasTimeToFirstActionInMs) mask |= ResultItemBinaryWriter.TIME_TO_FIRST_ACTION_IN_MS;
+        dest.writeInt(mask);
+
+        if (id != null) dest.writeString(id);
+        if (challenge != null) dest.writeString(challenge);
+        if (givenResponse != null) dest.writeString(givenResponse);
+        if (correctResponse != null) dest.writeString(correctResponse);
+        if (hasScore) dest.writeFloat(score);
+        if (hasDurationInMs) dest.writeLong(durationInMs);
+        if (hasTimeToFirstActionInMs) dest.writeLong(timeToFirstActionInMs);
+    }
+}
@@ -0,0 +1,355 @@
+package com.eidu.integration;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file holding the {@link ResultItem}s of a learning unit run that is in progress,
+ * so that they survive the learning app's process being killed.
+ *
+ * <p>Each journal belongs to one {@link RunLearningUnitRequest#learningUnitRunId}. Learning apps
+ * {@link #append} every item as it occurs and {@link #delete} the journal once the result has been
+ * delivered. When the app starts, any journals that are left over belong to runs that were
+ * interrupted; {@link #runIds(Context)} lists them, and {@link #items()} returns their items, e.g.
+ * to deliver an {@link RunLearningUnitResult#ofAbort} or {@link RunLearningUnitResult#ofError}
+ * result for them.
+ *
+ * <p>The file is memory-mapped, so appending an item only encodes it and copies it into memory,
+ * without a system call. Since the mapped memory belongs to the operating system, its content
+ * reaches the file even if the process is killed right after. Only a loss of power can lose items
+ * that have not been flushed to storage yet; flushing happens in the background, at most once every
+ * {@link #SYNC_INTERVAL_IN_MS} milliseconds, or when {@link #sync()} is called.
+ *
+ * <p>Each item is stored as a separate record consisting of its length, a CRC32 checksum and the
+ * item in the format written by {@link ResultItemBinaryWriter}. When a journal is opened, records
+ * are read up to the first one that is incomplete or corrupt, and appending continues from there.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class ResultItemJournal implements Closeable {
+
+    /** The minimum interval between two background flushes of a journal to storage. */
+    public static final long SYNC_INTERVAL_IN_MS = 1000;
+
+    private static final String DIRECTORY = "eidu-integration-journals";
+    private static final String SUFFIX = ".journal";
+    private static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ScheduledExecutorService syncExecutor =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ResultItemJournal sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    @NonNull private final String learningUnitRunId;
+    @NonNull private final File file;
+    @NonNull private final RandomAccessFile randomAccessFile;
+    @NonNull private final FileChannel channel;
+    @NonNull private final ResultItemBinaryWriter writer = new ResultItemBinaryWriter();
+    @NonNull private final CRC32 crc = new CRC32();
+    @NonNull private MappedByteBuffer buffer;
+    private int size;
+    private int count;
+    private long lastSyncTimeInMs;
+    private boolean syncScheduled;
+    private boolean closed;
+
+    private ResultItemJournal(@NonNull String learningUnitRunId, @NonNull File file)
+            throws IOException {
+        this.learningUnitRunId = learningUnitRunId;
+        this.file = file;
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            channel = randomAccessFile.getChannel();
+            buffer = map(Math.max(INITIAL_CAPACITY, (int) channel.size()));
+            while (readRecord(size) != null) {
+                size += HEADER_LENGTH + buffer.getInt(size);
+                count++;
+            }
+            // Whatever follows the last valid record is either empty or the remains of a write that
+            // was interrupted, which is overwritten from now on.
+            clear(size, Math.min(buffer.capacity(), size + HEADER_LENGTH));
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the journal of a run in the app's internal storage, creating it if it doesn't exist
+     * yet.
+     *
+     * @param context The current context. May be an application context.
+     * @param learningUnitRunId The ID of the run, see {@link
+     *     RunLearningUnitRequest#learningUnitRunId}.
+     * @return The journal.
+     * @throws IllegalStateException If the journal cannot be opened.
+     */
+    @NonNull
+    public static ResultItemJournal open(
+            @NonNull Context context, @NonNull String learningUnitRunId) {
+        return open(directory(context), learningUnitRunId);
+    }
+
+    /**
+     * Like {@link #open(Context, String)}, but with a custom directory for journals.
+     *
+     * @param directory The directory containing the journals. Created if necessary.
+     * @param learningUnitRunId The ID of the run, see {@link
+     *     RunLearningUnitRequest#learningUnitRunId}.
+     * @return The journal.
+     * @throws IllegalStateException If the journal cannot be opened.
+     */
+    @NonNull
+    public static ResultItemJournal open(
+            @NonNull File directory, @NonNull String learningUnitRunId) {
+        directory.mkdirs();
+        try {
+            return new ResultItemJournal(
+                    learningUnitRunId, new File(directory, fileName(learningUnitRunId)));
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Failed to open result item journal for run " + learningUnitRunId, e);
+        }
+    }
+
+    /**
+     * Returns the IDs of all runs with a journal in the app's internal storage. These are usually
+     * runs that were interrupted, since the journal of a run should be deleted once its result has
+     * been delivered.
+     *
+     * @param context The current context. May be an application context.
+     * @return The run IDs, in no particular order.
+     */
+    @NonNull
+    public static List<String> runIds(@NonNull Context context) {
+        return runIds(directory(context));
+    }
+
+    /**
+     * Like {@link #runIds(Context)}, but with a custom directory for journals.
+     *
+     * @param directory The directory containing the journals.
+     * @return The run IDs, in no particular order.
+     */
+    @NonNull
+    public static List<String> runIds(@NonNull File directory) {
+        ArrayList<String> result = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return result;
+        for (String name : names) {
+            String runId = runId(name);
+            if (runId != null) result.add(runId);
+        }
+        return result;
+    }
+
+    /** Returns the ID of the run this journal belongs to. */
+    @NonNull
+    public String learningUnitRunId() {
+        return learningUnitRunId;
+    }
+
+    /**
+     * Appends an item to the journal.
+     *
+     * @param item The item to append.
+     * @throws IllegalStateException If the journal is closed or cannot be extended.
+     */
+    public synchronized void append(@NonNull ResultItem item) {
+        checkOpen();
+        writer.reset();
+        writer.beginArray().write(item).endArray();
+        int length = writer.size();
+        ensureCapacity(HEADER_LENGTH + length + HEADER_LENGTH);
+
+        crc.reset();
+        crc.update(writer.buffer(), 0, length);
+        buffer.position(size + HEADER_LENGTH);
+        buffer.put(writer.buffer(), 0, length);
+        // Terminates the journal after this record, in case there are remains of an interrupted
+        // write beyond it.
+        clear(size + HEADER_LENGTH + length, size + HEADER_LENGTH + length + HEADER_LENGTH);
+        buffer.putInt(size + 4, (int) crc.getValue());
+        // The length is written last, so that a record is only recognised once it is complete.
+        buffer.putInt(size, length);
+        size += HEADER_LENGTH + length;
+        count++;
+
+        scheduleSync();
+    }
+
+    /** Returns the number of items in the journal. */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns all items in the journal.
+     *
+     * @throws IllegalStateException If the journal is closed.
+     */
+    @NonNull
+    public synchronized List<ResultItem> items() {
+        checkOpen();
+        ArrayList<ResultItem> items = new ArrayList<>(count);
+        for (int position = 0; position < size; ) {
+            byte[] record = readRecord(position);
+            items.addAll(ResultItemBinaryReader.readItems(record));
+            position += HEADER_LENGTH + record.length;
+        }
+        return items;
+    }
+
+    /**
+     * Flushes the journal to storage right away, rather than waiting for the next background flush.
+     * This performs disk I/O on the calling thread.
+     *
+     * @throws IllegalStateException If the journal is closed.
+     */
+    public synchronized void sync() {
+        checkOpen();
+        buffer.force();
+        lastSyncTimeInMs = System.currentTimeMillis();
+    }
+
+    /** Flushes and closes the journal, keeping its file. Does nothing if it is already closed. */
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        buffer.force();
+        closed = true;
+        try {
+            randomAccessFile.close();
+        } catch (IOException ignored) {
+            // Everything has been written already.
+        }
+    }
+
+    /**
+     * Closes the journal and deletes its file. This should be done once the result of the run has
+     * been delivered.
+     */
+    public synchronized void delete() {
+        closed = true;
+        try {
+            randomAccessFile.close();
+        } catch (IOException ignored) {
+            // The file is deleted regardless.
+        }
+        file.delete();
+    }
+
+    /**
+     * Returns the record at the given position, or null if there is no complete and intact record
+     * there.
+     */
+    @Nullable
+    private byte[] readRecord(int position) {
+        if (position + HEADER_LENGTH > buffer.capacity()) return null;
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() - position - HEADER_LENGTH) return null;
+
+        byte[] record = new byte[length];
+        buffer.position(position + HEADER_LENGTH);
+        buffer.get(record);
+        crc.reset();
+        crc.update(record, 0, length);
+        return (int) crc.getValue() == buffer.getInt(position + 4) ? record : null;
+    }
+
+    private void ensureCapacity(int required) {
+        if (size + required <= buffer.capacity()) return;
+        int capacity = buffer.capacity();
+        while (capacity < size + required) capacity *= 2;
+        try {
+            buffer = map(capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    "Failed to extend result item journal for run " + learningUnitRunId, e);
+        }
+    }
+
+    @NonNull
+    private MappedByteBuffer map(int capacity) throws IOException {
+        // Mapping beyond the end of the file extends it with zeros, which read as an empty record.
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void clear(int from, int to) {
+        for (int i = from; i < to; i++) buffer.put(i, (byte) 0);
+    }
+
+    private void scheduleSync() {
+        if (syncScheduled) return;
+        syncScheduled = true;
+        long delay = lastSyncTimeInMs + SYNC_INTERVAL_IN_MS - System.currentTimeMillis();
+        syncExecutor.schedule(this::backgroundSync, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundSync() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            syncScheduled = false;
+            if (closed) return;
+            lastSyncTimeInMs = System.currentTimeMillis();
+            buffer = this.buffer;
+        }
+        // Forcing outside the lock keeps appends from waiting for disk I/O. Any items appended in
+        // the meantime schedule another flush.
+        buffer.force();
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException(
+                    "Result item journal for run " + learningUnitRunId + " is closed.");
+    }
+
+    @NonNull
+    private static File directory(@NonNull Context context) {
+        return new File(context.getFilesDir(), DIRECTORY);
+    }
+
+    /** Encodes a run ID as hex, since it may contain characters that are invalid in file names. */
+    @NonNull
+    private static String fileName(@NonNull String learningUnitRunId) {
+        byte[] bytes = learningUnitRunId.getBytes(StandardCharsets.UTF_8);
+        StringBuilder name = new StringBuilder(bytes.length * 2 + SUFFIX.length());
+        for (byte b : bytes) name.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+        return name.append(SUFFIX).toString();
+    }
+
+    @Nullable
+    private static String runId(@NonNull String fileName) {
+        if (!fileName.endsWith(SUFFIX)) return null;
+        int length = fileName.length() - SUFFIX.length();
+        if (length % 2 != 0) return null;
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(fileName.charAt(2 * i), 16);
+            int low = Character.digit(fileName.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) return null;
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
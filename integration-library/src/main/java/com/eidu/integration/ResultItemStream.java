@@ -0,0 +1,365 @@
+package com.eidu.integration;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams {@link ResultItem}s to the EIDU app while a learning unit is running, rather than
+ * delivering all of them in the {@link RunLearningUnitResult} at the end. This spreads the work of
+ * serializing and transferring items over the run, and the EIDU app keeps the items that were
+ * streamed even if the learning app dies.
+ *
+ * <p>Streaming is only possible if the EIDU app requests it, in which case {@link #open(Context,
+ * RunLearningUnitRequest)} returns a stream. Items that are {@link #add added} are coalesced and
+ * sent in batches, once {@code maxBatchSize} items are pending or {@code maxDelayInMs} milliseconds
+ * after the first pending item was added, whichever comes first. Sending happens on a background
+ * thread; while a batch is being sent, further items are collected for the next one. If the EIDU
+ * app cannot keep up and {@code maxPendingItems} items are waiting to be sent, {@link #add} blocks
+ * until they have been.
+ *
+ * <p>When the run ends, {@link #close()} sends the remaining items. If all items have been streamed
+ * successfully, the result should contain no items itself, and {@link #markAsStreamed(Intent)}
+ * tells the EIDU app to use the streamed items instead. If streaming fails, e.g. because the EIDU
+ * app was updated to a version without support for it, the stream stops accepting items, and all
+ * items need to be delivered in the result as usual. Learning apps that stream items should
+ * therefore also record them, e.g. in a {@link ResultItemRecorder}.
+ *
+ * <p>Each batch is sent by calling the content provider at the URI in the request with the method
+ * {@link #METHOD_APPEND_ITEMS}, the {@link RunLearningUnitRequest#learningUnitRunId} as argument,
+ * and extras that the EIDU app reads with {@link #readItems(Bundle)} and {@link
+ * #readOffset(Bundle)}. Once it has stored the items, the EIDU app returns {@link
+ * #acknowledge(Bundle)} from the call. A batch that isn't acknowledged counts as failed, so that
+ * items aren't lost if the provider at the URI doesn't handle the method, e.g. in an older version
+ * of the EIDU app, and returns null.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class ResultItemStream implements Closeable {
+
+    /**
+     * The method with which batches of items are passed to {@link
+     * android.content.ContentProvider#call}.
+     */
+    public static final String METHOD_APPEND_ITEMS = "com.eidu.integration.APPEND_RESULT_ITEMS";
+
+    /** The default value of {@code maxBatchSize}, see {@link ResultItemStream}. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /** The default value of {@code maxDelayInMs}, see {@link ResultItemStream}. */
+    public static final long DEFAULT_MAX_DELAY_IN_MS = 2000;
+
+    /** The default value of {@code maxPendingItems}, see {@link ResultItemStream}. */
+    public static final int DEFAULT_MAX_PENDING_ITEMS = 4096;
+
+    private static final String ITEMS_KEY = "items";
+    private static final String OFFSET_KEY = "offset";
+    private static final String ACCEPTED_ITEM_COUNT_KEY = "acceptedItemCount";
+    private static final String STREAMED_ITEMS_EXTRA = "streamedItems";
+
+    private static final ScheduledExecutorService flushExecutor =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ResultItemStream flush");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    @NonNull private final Context context;
+    @NonNull private final Uri uri;
+    @NonNull private final String learningUnitRunId;
+    private final int maxBatchSize;
+    private final long maxDelayInMs;
+    private final int maxPendingItems;
+    @NonNull private final ResultItemBinaryWriter writer = new ResultItemBinaryWriter();
+    private int pending;
+    private int sending;
+    private int streamed;
+    private boolean flushScheduled;
+    private boolean immediateFlushScheduled;
+    private boolean closed;
+    private boolean failed;
+
+    private ResultItemStream(
+            @NonNull Context context,
+            @NonNull Uri uri,
+            @NonNull String learningUnitRunId,
+            int maxBatchSize,
+            long maxDelayInMs,
+            int maxPendingItems) {
+        this.context = context;
+        this.uri = uri;
+        this.learningUnitRunId = learningUnitRunId;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayInMs = maxDelayInMs;
+        this.maxPendingItems = Math.max(maxPendingItems, maxBatchSize);
+        writer.beginArray();
+    }
+
+    /**
+     * Opens a stream with default limits.
+     *
+     * @param context The current context. Should be an application context, since the stream keeps
+     *     a reference to it.
+     * @param request The request of the learning unit that is running.
+     * @return The stream, or null if the EIDU app did not request items to be streamed.
+     */
+    @Nullable
+    public static ResultItemStream open(
+            @NonNull Context context, @NonNull RunLearningUnitRequest request) {
+        return open(
+                context,
+                request,
+                DEFAULT_MAX_BATCH_SIZE,
+                DEFAULT_MAX_DELAY_IN_MS,
+                DEFAULT_MAX_PENDING_ITEMS);
+    }
+
+    /**
+     * Opens a stream.
+     *
+     * @param context The current context. Should be an application context, since the stream keeps
+     *     a reference to it.
+     * @param request The request of the learning unit that is running.
+     * @param maxBatchSize The number of pending items at which they are sent.
+     * @param maxDelayInMs The maximum time for which an item is held back to be sent along with
+     *     others.
+     * @param maxPendingItems The number of items waiting to be sent at which {@link #add} blocks.
+     * @return The stream, or null if the EIDU app did not request items to be streamed.
+     */
+    @Nullable
+    public static ResultItemStream open(
+            @NonNull Context context,
+            @NonNull RunLearningUnitRequest request,
+            int maxBatchSize,
+            long maxDelayInMs,
+            int maxPendingItems) {
+        Uri uri = request.getItemStreamUri();
+        if (uri == null) return null;
+        return new ResultItemStream(
+                context,
+                uri,
+                request.learningUnitRunId,
+                maxBatchSize,
+                maxDelayInMs,
+                maxPendingItems);
+    }
+
+    /**
+     * Adds an item to be streamed. Has no effect if streaming has failed.
+     *
+     * @param item The item.
+     * @throws InterruptedException If the current thread is interrupted while waiting for pending
+     *     items to be sent.
+     * @throws IllegalStateException If the stream has been closed.
+     */
+    public synchronized void add(@NonNull ResultItem item) throws InterruptedException {
+        checkOpen();
+        while (!failed && pending + sending >= maxPendingItems) wait();
+        if (failed) return;
+
+        writer.write(item);
+        pending++;
+        if (pending >= maxBatchSize) scheduleFlush(0);
+        else if (pending == 1) scheduleFlush(maxDelayInMs);
+    }
+
+    /** Returns the number of items that have been streamed successfully so far. */
+    public synchronized int streamedCount() {
+        return streamed;
+    }
+
+    /**
+     * Returns whether streaming has failed, in which case all items need to be delivered in the
+     * result.
+     */
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Sends all pending items, waiting until they have been sent, and closes the stream. If the
+     * current thread is interrupted while waiting, streaming counts as failed, since some items may
+     * not have been sent.
+     *
+     * @return Whether all items have been streamed successfully.
+     */
+    public boolean finish() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        synchronized (this) {
+            if (pending > 0 || sending > 0) failed = true;
+            return !failed;
+        }
+    }
+
+    /** Same as {@link #finish()}. */
+    @Override
+    public void close() {
+        finish();
+    }
+
+    /**
+     * Marks a result intent as referring to the items streamed so far, which the EIDU app reads
+     * with {@link #streamedItemCount(Intent)}. The result itself should not contain any items.
+     *
+     * @param resultIntent The intent created from the result, see {@link
+     *     RunLearningUnitResult#toIntent()}.
+     * @return The given intent.
+     * @throws IllegalStateException If streaming has failed.
+     */
+    @NonNull
+    public synchronized Intent markAsStreamed(@NonNull Intent resultIntent) {
+        if (failed) throw new IllegalStateException("Streaming result items has failed.");
+        return resultIntent.putExtra(STREAMED_ITEMS_EXTRA, streamed);
+    }
+
+    /**
+     * Returns the number of items that were streamed for a run, or null if the result intent does
+     * not refer to streamed items. Used by the EIDU app.
+     *
+     * @param resultIntent The intent containing the result.
+     */
+    @Nullable
+    public static Integer streamedItemCount(@NonNull Intent resultIntent) {
+        if (!resultIntent.hasExtra(STREAMED_ITEMS_EXTRA)) return null;
+        return resultIntent.getIntExtra(STREAMED_ITEMS_EXTRA, 0);
+    }
+
+    /**
+     * Returns the items of a batch received by the EIDU app's content provider. Used by the EIDU
+     * app.
+     *
+     * @param extras The extras passed to {@link android.content.ContentProvider#call}.
+     * @throws IllegalArgumentException If the extras contain no items.
+     */
+    @NonNull
+    public static List<ResultItem> readItems(@NonNull Bundle extras) {
+        byte[] items = extras.getByteArray(ITEMS_KEY);
+        if (items == null) throw new IllegalArgumentException("Batch contains no items.");
+        return LazyResultItemList.ofBinary(items);
+    }
+
+    /**
+     * Returns the number of items of the same run that preceded a batch received by the EIDU app's
+     * content provider. This allows detecting batches that are received twice or not at all. Used
+     * by the EIDU app.
+     *
+     * @param extras The extras passed to {@link android.content.ContentProvider#call}.
+     * @throws IllegalArgumentException If the extras contain no offset.
+     */
+    public static int readOffset(@NonNull Bundle extras) {
+        int offset = extras.getInt(OFFSET_KEY, -1);
+        if (offset < 0) throw new IllegalArgumentException("Batch contains no offset.");
+        return offset;
+    }
+
+    /**
+     * Returns the acknowledgement of a batch received by the EIDU app's content provider, which the
+     * provider must return from {@link android.content.ContentProvider#call} once it has stored the
+     * batch's items. It contains the number of items of the run up to and including the batch,
+     * which the stream checks against the items it sent. Used by the EIDU app.
+     *
+     * @param extras The extras passed to {@link android.content.ContentProvider#call}.
+     * @return The bundle to return from the call.
+     * @throws IllegalArgumentException If the extras contain no items or no offset.
+     */
+    @NonNull
+    public static Bundle acknowledge(@NonNull Bundle extras) {
+        Bundle acknowledgement = new Bundle();
+        acknowledgement.putInt(
+                ACCEPTED_ITEM_COUNT_KEY, readOffset(extras) + readItems(extras).size());
+        return acknowledgement;
+    }
+
+    private void scheduleFlush(long delayInMs) {
+        // An immediate flush is scheduled even if a delayed one is, which then finds nothing left
+        // to send.
+        if (immediateFlushScheduled || (flushScheduled && delayInMs > 0)) return;
+        flushScheduled = true;
+        if (delayInMs == 0) immediateFlushScheduled = true;
+        flushExecutor.schedule(this::backgroundFlush, delayInMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundFlush() {
+        synchronized (this) {
+            flushScheduled = false;
+            immediateFlushScheduled = false;
+        }
+        flush();
+        synchronized (this) {
+            if (pending > 0 && !closed) scheduleFlush(pending >= maxBatchSize ? 0 : maxDelayInMs);
+        }
+    }
+
+    /** Sends all pending items, waiting for a batch that is being sent first. */
+    private void flush() {
+        byte[] items;
+        int count;
+        int offset;
+        synchronized (this) {
+            while (sending > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failed || pending == 0) return;
+            items = writer.toTerminatedByteArray();
+            count = pending;
+            offset = streamed;
+            writer.reset();
+            writer.beginArray();
+            pending = 0;
+            sending = count;
+        }
+
+        boolean sent = send(items, offset, count);
+
+        synchronized (this) {
+            sending = 0;
+            if (sent) streamed += count;
+            else {
+                failed = true;
+                pending = 0;
+                writer.reset();
+            }
+            notifyAll();
+        }
+    }
+
+    private boolean send(@NonNull byte[] items, int offset, int count) {
+        Bundle extras = new Bundle();
+        extras.putByteArray(ITEMS_KEY, items);
+        extras.putInt(OFFSET_KEY, offset);
+        try {
+            Bundle acknowledgement =
+                    context.getContentResolver()
+                            .call(uri, METHOD_APPEND_ITEMS, learningUnitRunId, extras);
+            // Without an acknowledgement, the provider may have ignored the call.
+            return acknowledgement != null
+                    && acknowledgement.getInt(ACCEPTED_ITEM_COUNT_KEY, -1) == offset + count;
+        } catch (RuntimeException e) {
+            // The provider is unknown, doesn't grant access, or the EIDU app has died.
+            return false;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed)
+            throw new IllegalStateException(
+                    "Result item stream for run " + learningUnitRunId + " is closed.");
+    }
+}
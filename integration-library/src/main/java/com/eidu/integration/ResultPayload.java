@@ -0,0 +1,136 @@
+package com.eidu.integration;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The parts of a {@link RunLearningUnitResult} that are delivered through {@link
+ * ResultPayloadProvider} rather than inline in the result intent, because they are too large.
+ *
+ * <p>A payload file consists of a version byte, followed by {@link
+ * RunLearningUnitResult#additionalData} and {@link RunLearningUnitResult#items}, each as a presence
+ * flag optionally followed by a 4-byte length and that many bytes. Additional data is encoded as
+ * UTF-8, items as written by {@link ResultItemBinaryWriter}.
+ */
+final class ResultPayload {
+
+    private static final int VERSION = 1;
+
+    @Nullable final String additionalData;
+    @Nullable final List<ResultItem> items;
+
+    private ResultPayload(@Nullable String additionalData, @Nullable List<ResultItem> items) {
+        this.additionalData = additionalData;
+        this.items = items;
+    }
+
+    /**
+     * Writes a payload to a new file served by {@link ResultPayloadProvider}.
+     *
+     * @return The content URI under which the payload can be read.
+     * @throws IllegalStateException If the payload could not be written.
+     */
+    @NonNull
+    static Uri write(
+            @NonNull Context context,
+            @Nullable String additionalData,
+            @Nullable List<ResultItem> items) {
+        File file = ResultPayloadProvider.newPayloadFile(context);
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeByte(VERSION);
+            writeSection(
+                    out,
+                    additionalData == null
+                            ? null
+                            : additionalData.getBytes(StandardCharsets.UTF_8));
+            writeSection(out, items == null ? null : ResultItemBinaryWriter.writeItems(items));
+        } catch (IOException e) {
+            file.delete();
+            throw new IllegalStateException("Failed to write result payload.", e);
+        }
+        return ResultPayloadProvider.payloadUri(context, file);
+    }
+
+    /**
+     * Reads a payload. Both sections are read right away, since the permission to read the URI may
+     * end once the result has been received, but items are only decoded when they are first
+     * accessed, see {@link LazyResultItemList}.
+     *
+     * @throws IllegalArgumentException If the payload cannot be read or is malformed.
+     */
+    @NonNull
+    static ResultPayload read(@NonNull Context context, @NonNull Uri uri) {
+        try (DataInputStream in = open(context, uri)) {
+            readVersion(in);
+            byte[] additionalData = readSection(in);
+            byte[] items = readSection(in);
+            return new ResultPayload(
+                    additionalData == null
+                            ? null
+                            : new String(additionalData, StandardCharsets.UTF_8),
+                    items == null ? null : LazyResultItemList.ofBinary(items));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to read result payload " + uri, e);
+        }
+    }
+
+    private static void writeSection(@NonNull DataOutputStream out, @Nullable byte[] section)
+            throws IOException {
+        out.writeBoolean(section != null);
+        if (section == null) return;
+        out.writeInt(section.length);
+        out.write(section);
+    }
+
+    @Nullable
+    private static byte[] readSection(@NonNull DataInputStream in) throws IOException {
+        if (!in.readBoolean()) return null;
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Invalid result payload section length " + length);
+        // The length is only trusted for allocating memory if that many bytes are available, as
+        // they are for a complete payload file. Otherwise, e.g. for a pipe or a truncated or forged
+        // payload, the section only grows as bytes arrive.
+        if (length <= in.available()) {
+            byte[] section = new byte[length];
+            in.readFully(section);
+            return section;
+        }
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int remaining = length; remaining > 0; ) {
+            int count = in.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (count < 0) throw new EOFException("Result payload is truncated.");
+            section.write(buffer, 0, count);
+            remaining -= count;
+        }
+        return section.toByteArray();
+    }
+
+    private static void readVersion(@NonNull DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("Unsupported result payload version " + version);
+    }
+
+    @NonNull
+    private static DataInputStream open(@NonNull Context context, @NonNull Uri uri)
+            throws IOException {
+        InputStream stream = context.getContentResolver().openInputStream(uri);
+        if (stream == null) throw new IOException("Unable to open result payload " + uri);
+        return new DataInputStream(stream);
+    }
+}
@@ -0,0 +1,119 @@
+package com.eidu.integration;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.UUID;
+
+/**
+ * Serves result payloads that were too large to be delivered inline in a result {@link
+ * android.content.Intent}. See {@link RunLearningUnitResult#toIntent(Context)}.
+ *
+ * <p>This provider is declared in the library's manifest and is not exported; the EIDU app is only
+ * able to read a payload because the result intent grants it temporary read access to the payload's
+ * {@link Uri}. Learning app developers don't need to interact with it directly.
+ */
+public final class ResultPayloadProvider extends ContentProvider {
+
+    static final String AUTHORITY_SUFFIX = ".eidu.integration.results";
+    private static final String DIRECTORY = "eidu-integration-results";
+    private static final long MAX_PAYLOAD_AGE_IN_MS = 24 * 60 * 60 * 1000;
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode)
+            throws FileNotFoundException {
+        if (!"r".equals(mode))
+            throw new FileNotFoundException("Result payloads can only be opened for reading.");
+        Context context = getContext();
+        if (context == null) throw new FileNotFoundException("Provider not attached.");
+        return ParcelFileDescriptor.open(
+                payloadFile(context, uri), ParcelFileDescriptor.MODE_READ_ONLY);
+    }
+
+    @NonNull
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return "application/octet-stream";
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(
+            @NonNull Uri uri,
+            @Nullable String[] projection,
+            @Nullable String selection,
+            @Nullable String[] selectionArgs,
+            @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int delete(
+            @NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int update(
+            @NonNull Uri uri,
+            @Nullable ContentValues values,
+            @Nullable String selection,
+            @Nullable String[] selectionArgs) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates a new, empty payload file. Payload files that are older than a day, and have thus
+     * certainly been consumed, are deleted on this occasion.
+     */
+    @NonNull
+    static File newPayloadFile(@NonNull Context context) {
+        File directory = new File(context.getCacheDir(), DIRECTORY);
+        File[] existing = directory.listFiles();
+        if (existing != null) {
+            long now = System.currentTimeMillis();
+            for (File file : existing)
+                if (now - file.lastModified() > MAX_PAYLOAD_AGE_IN_MS) file.delete();
+        } else directory.mkdirs();
+        return new File(directory, UUID.randomUUID().toString());
+    }
+
+    @NonNull
+    static Uri payloadUri(@NonNull Context context, @NonNull File file) {
+        return new Uri.Builder()
+                .scheme("content")
+                .authority(context.getPackageName() + AUTHORITY_SUFFIX)
+                .appendPath(file.getName())
+                .build();
+    }
+
+    @NonNull
+    private static File payloadFile(@NonNull Context context, @NonNull Uri uri)
+            throws FileNotFoundException {
+        String name = uri.getLastPathSegment();
+        if (name == null || uri.getPathSegments().size() != 1 || name.startsWith("."))
+            throw new FileNotFoundException("Invalid payload URI: " + uri);
+        File file = new File(new File(context.getCacheDir(), DIRECTORY), name);
+        if (!file.isFile()) throw new FileNotFoundException("No such payload: " + uri);
+        return file;
+    }
+}
@@ -0,0 +1,196 @@
+package com.eidu.integration;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Keeps the time of a learning unit run according to the limits of its {@link
+ * RunLearningUnitRequest}: it measures {@link RunLearningUnitResult#foregroundDurationInMs} and
+ * reports when {@link RunLearningUnitRequest#remainingForegroundTimeInMs} has elapsed or the
+ * learner has been inactive for {@link RunLearningUnitRequest#inactivityTimeoutInMs}.
+ *
+ * <p>The learning app {@link #resume() resumes} the clock when the unit comes to the foreground,
+ * e.g. in {@link android.app.Activity#onResume()}, {@link #pause() pauses} it when the unit goes to
+ * the background, and calls {@link #onInteraction()} whenever the learner interacts with the unit.
+ * Inactivity only counts while the clock is running. When a limit is reached, the clock stops and
+ * the {@link Listener} is called, after which {@link #expiryResult(Float, String, List)} creates
+ * the matching result.
+ *
+ * <p>Time is measured with {@link SystemClock#uptimeMillis()}, which is monotonic. Interactions
+ * only record the current time; the clock checks the limits with a single task that it reschedules
+ * itself, so that frequent interactions, e.g. from touch handlers, neither allocate nor post
+ * messages.
+ *
+ * <p>Instances are not thread-safe and must be used on the thread of the looper given at
+ * construction, which is the main thread by default.
+ */
+public final class RunClock {
+
+    /** Is called when a limit of the run is reached. */
+    public interface Listener {
+        /**
+         * Called once, on the clock's thread, when a limit is reached.
+         *
+         * @param expiry Either {@link RunLearningUnitResult.ResultType#TimeUp} or {@link
+         *     RunLearningUnitResult.ResultType#TimeoutInactivity}.
+         */
+        void onExpired(@NonNull RunLearningUnitResult.ResultType expiry);
+    }
+
+    @Nullable private final Long remainingForegroundTimeInMs;
+    @Nullable private final Long inactivityTimeoutInMs;
+    @NonNull private final Listener listener;
+    @NonNull private final Handler handler;
+    @NonNull private final Runnable check = this::check;
+
+    private long foregroundDurationInMs;
+    private long foregroundDurationAtInteractionInMs;
+    private long resumedAtInMs;
+    private boolean running;
+    private boolean checkScheduled;
+    @Nullable private RunLearningUnitResult.ResultType expiry;
+
+    /**
+     * Creates a paused clock for the given request, which calls the listener on the main thread.
+     *
+     * @param request The request of the run.
+     * @param listener Is called when a limit of the run is reached.
+     */
+    public RunClock(@NonNull RunLearningUnitRequest request, @NonNull Listener listener) {
+        this(request, listener, Looper.getMainLooper());
+    }
+
+    /**
+     * Creates a paused clock for the given request.
+     *
+     * @param request The request of the run.
+     * @param listener Is called when a limit of the run is reached.
+     * @param looper The looper of the thread on which the clock is used.
+     */
+    public RunClock(
+            @NonNull RunLearningUnitRequest request,
+            @NonNull Listener listener,
+            @NonNull Looper looper) {
+        remainingForegroundTimeInMs = request.remainingForegroundTimeInMs;
+        inactivityTimeoutInMs = request.inactivityTimeoutInMs;
+        this.listener = listener;
+        handler = new Handler(looper);
+    }
+
+    /** Starts or continues measuring foreground time. Has no effect once the clock has expired. */
+    public void resume() {
+        if (running || expiry != null) return;
+        running = true;
+        resumedAtInMs = SystemClock.uptimeMillis();
+        check();
+    }
+
+    /** Stops measuring foreground time until {@link #resume()} is called. */
+    public void pause() {
+        if (!running) return;
+        foregroundDurationInMs = foregroundDurationInMs(SystemClock.uptimeMillis());
+        running = false;
+        unscheduleCheck();
+    }
+
+    /** Records an interaction of the learner, which resets the inactivity timeout. */
+    public void onInteraction() {
+        foregroundDurationAtInteractionInMs = getForegroundDurationInMs();
+    }
+
+    /** Returns whether the clock is measuring foreground time. */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Returns the foreground time of the run so far. */
+    public long getForegroundDurationInMs() {
+        return running
+                ? foregroundDurationInMs(SystemClock.uptimeMillis())
+                : foregroundDurationInMs;
+    }
+
+    /**
+     * Returns which limit has been reached, or null if none has.
+     *
+     * @return {@link RunLearningUnitResult.ResultType#TimeUp}, {@link
+     *     RunLearningUnitResult.ResultType#TimeoutInactivity} or null.
+     */
+    @Nullable
+    public RunLearningUnitResult.ResultType getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Creates the result matching the limit that has been reached, with the foreground time
+     * measured by this clock.
+     *
+     * @param score <b>Strongly encouraged</b>, see {@link RunLearningUnitResult#score}.
+     * @param additionalData <i>Optional</i>, see {@link RunLearningUnitResult#additionalData}.
+     * @param items <i>Optional</i>, see {@link RunLearningUnitResult#items}.
+     * @return The new result.
+     * @throws IllegalStateException If no limit has been reached.
+     */
+    @NonNull
+    public RunLearningUnitResult expiryResult(
+            @Nullable Float score,
+            @Nullable String additionalData,
+            @Nullable List<ResultItem> items) {
+        if (expiry == RunLearningUnitResult.ResultType.TimeUp)
+            return RunLearningUnitResult.ofTimeUp(
+                    score, foregroundDurationInMs, additionalData, items);
+        if (expiry == RunLearningUnitResult.ResultType.TimeoutInactivity)
+            return RunLearningUnitResult.ofTimeoutInactivity(
+                    score, foregroundDurationInMs, additionalData, items);
+        throw new IllegalStateException("Run clock has not expired.");
+    }
+
+    private long foregroundDurationInMs(long nowInMs) {
+        return foregroundDurationInMs + (nowInMs - resumedAtInMs);
+    }
+
+    private void check() {
+        checkScheduled = false;
+        if (!running) return;
+        long nowInMs = SystemClock.uptimeMillis();
+        long duration = foregroundDurationInMs(nowInMs);
+
+        long untilTimeUp =
+                remainingForegroundTimeInMs == null
+                        ? Long.MAX_VALUE
+                        : remainingForegroundTimeInMs - duration;
+        long untilInactivity =
+                inactivityTimeoutInMs == null
+                        ? Long.MAX_VALUE
+                        : inactivityTimeoutInMs - (duration - foregroundDurationAtInteractionInMs);
+
+        if (untilTimeUp <= 0) expire(RunLearningUnitResult.ResultType.TimeUp, nowInMs);
+        else if (untilInactivity <= 0)
+            expire(RunLearningUnitResult.ResultType.TimeoutInactivity, nowInMs);
+        else {
+            long delay = Math.min(untilTimeUp, untilInactivity);
+            if (delay == Long.MAX_VALUE) return;
+            // Interactions in the meantime postpone the inactivity timeout, which is then noticed
+            // when this check runs and schedules the next one.
+            checkScheduled = true;
+            handler.postAtTime(check, nowInMs + delay);
+        }
+    }
+
+    private void expire(@NonNull RunLearningUnitResult.ResultType expiry, long nowInMs) {
+        foregroundDurationInMs = foregroundDurationInMs(nowInMs);
+        running = false;
+        this.expiry = expiry;
+        listener.onExpired(expiry);
+    }
+
+    private void unscheduleCheck() {
+        if (!checkScheduled) return;
+        handler.removeCallbacks(check);
+        checkScheduled = false;
+    }
+}
@@ -3,15 +3,24 @@ package com.eidu.integration;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
 import android.os.ParcelFileDescriptor;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.eidu.integration.IntegrationMetrics.Operation;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 
 /**
  * A RunLearningUnitRequest is what the EIDU app uses to launch a learning unit from integrated
@@ -27,18 +36,24 @@ import java.util.Objects;
  * RunLearningUnitRequest#fromIntent(Intent)}, which will automatically identify and extract all
  * information included in {@link Intent#getExtras()}.
  *
- * <p>Use {@link RunLearningUnitRequest#getAssetAsStream(Context, String)}, {@link
- * RunLearningUnitRequest#getAssetAsFileDescriptor(Context, String)}, or {@link
+ * <p>Use {@link RunLearningUnitRequest#getAssetAsStream(Context, String)} or {@link
  * RunLearningUnitRequest#getAssetAsUri(String)} to retrieve any assets required by the requested
- * learning unit.
+ * learning unit. These methods block the calling thread while the EIDU app provides the asset; to
+ * avoid this, e.g. on the main thread, use {@link RunLearningUnitRequest#loadAssetAsStream(Context,
+ * String, AssetLoad.Callback)} or {@link RunLearningUnitRequest#loadAssetAsMappedBuffer(Context,
+ * String, AssetLoad.Callback)} instead. Large assets can be accessed without copying them through
+ * Java heap buffers with {@link RunLearningUnitRequest#getAssetAsMappedBuffer(Context, String)},
+ * {@link RunLearningUnitRequest#getAssetRange(Context, String, long, int)} and {@link
+ * RunLearningUnitRequest#getAssetAsChannel(Context, String)}.
  *
  * <p>To facilitate testing of your app, you can create your own RunLearningUnitRequest with {@link
  * RunLearningUnitRequest#of(String, String, String, String, String, Long, Long, Uri)} and convert
  * it to an Intent with {@link RunLearningUnitRequest#toIntent(String, String)}.
  */
+@Codec(value = Codec.Format.Bundle, decode = false)
 public final class RunLearningUnitRequest {
 
-    private static final int VERSION = 1;
+    private static final int VERSION = 2;
     private static final String VERSION_EXTRA = "version";
     private static final String LEARNING_UNIT_ID_EXTRA = "learningUnitId";
     private static final String LEARNING_UNIT_RUN_ID = "learningUnitRunId";
@@ -47,49 +62,77 @@ public final class RunLearningUnitRequest {
     private static final String STAGE_EXTRA = "stage";
     private static final String REMAINING_FOREGROUND_TIME_EXTRA = "remainingForegroundTimeInMs";
     private static final String INACTIVITY_TIMEOUT_EXTRA = "inactivityTimeoutInMs";
+    private static final String UPCOMING_LEARNING_UNIT_IDS_EXTRA = "upcomingLearningUnitIds";
+    private static final String UPCOMING_ASSETS_BASE_URIS_EXTRA = "upcomingAssetsBaseUris";
+    private static final String ITEM_STREAM_URI_EXTRA = "itemStreamUri";
     private static final String ACTION_LAUNCH_LEARNING_UNIT =
             "com.eidu.integration.LAUNCH_LEARNING_UNIT";
 
+    @CodecField(VERSION_EXTRA)
     public final int version;
 
     /** An ID, defined by the learning app, that uniquely identifies the learning unit to run. */
-    @NonNull public final String learningUnitId;
+    @CodecField(LEARNING_UNIT_ID_EXTRA)
+    @NonNull
+    public final String learningUnitId;
 
     /** A unique identifier of each learning unit run, which may be used for reporting purposes. */
-    @NonNull public final String learningUnitRunId;
+    @CodecField(LEARNING_UNIT_RUN_ID)
+    @NonNull
+    public final String learningUnitRunId;
 
     /**
      * The obfuscated ID of the learner who is playing the learning unit. May be used for reporting
      * purposes.
      */
-    @NonNull public final String learnerId;
+    @CodecField(LEARNER_ID_EXTRA)
+    @NonNull
+    public final String learnerId;
 
     /**
      * The obfuscated ID of the school at which the learning unit is being played. May be used for
      * reporting purposes.
      */
-    @NonNull public final String schoolId;
+    @CodecField(SCHOOL_ID_EXTRA)
+    @NonNull
+    public final String schoolId;
 
     /**
      * Identifies the stage of the EIDU app, e.g. "test", "prod". May be used for reporting
      * purposes.
      */
-    @NonNull public final String stage;
+    @CodecField(STAGE_EXTRA)
+    @NonNull
+    public final String stage;
 
     /**
      * <i>Optional.</i> The maximum amount of time that this run may take. The learning app must end
      * the run with {@link RunLearningUnitResult.ResultType#TimeUp} after this amount of
      * <i>foreground</i> time has elapsed.
      */
-    @Nullable public final Long remainingForegroundTimeInMs;
+    // Null is represented by an extra with a null value, since previous versions of this library
+    // require the extra to be present.
+    @CodecField(value = REMAINING_FOREGROUND_TIME_EXTRA, omitIfNull = false)
+    @Nullable
+    public final Long remainingForegroundTimeInMs;
 
     /**
      * <i>Optional.</i> The time of user inactivity after which the learning app must end the run
      * with {@link RunLearningUnitResult.ResultType#TimeoutInactivity}.
      */
-    @Nullable public final Long inactivityTimeoutInMs;
+    @CodecField(value = INACTIVITY_TIMEOUT_EXTRA, omitIfNull = false)
+    @Nullable
+    public final Long inactivityTimeoutInMs;
+
+    /**
+     * The learning units that the EIDU app expects to run after this one, in order. May be used to
+     * load their assets ahead of time, e.g. with {@link UpcomingUnitPreloader}. Empty if the EIDU
+     * app provides no such hint, which is always the case for requests of version 1.
+     */
+    @NonNull public final List<UpcomingLearningUnit> upcomingLearningUnits;
 
     @Nullable private final Uri assetsBaseUri;
+    @Nullable private final Uri itemStreamUri;
 
     private RunLearningUnitRequest(
             int version,
@@ -100,7 +143,9 @@ public final class RunLearningUnitRequest {
             @NonNull String stage,
             @Nullable Long remainingForegroundTimeInMs,
             @Nullable Long inactivityTimeoutInMs,
-            @Nullable Uri assetsBaseUri) {
+            @Nullable Uri assetsBaseUri,
+            @NonNull List<UpcomingLearningUnit> upcomingLearningUnits,
+            @Nullable Uri itemStreamUri) {
         this.version = version;
         this.learningUnitId = learningUnitId;
         this.learningUnitRunId = learningUnitRunId;
@@ -110,6 +155,8 @@ public final class RunLearningUnitRequest {
         this.remainingForegroundTimeInMs = remainingForegroundTimeInMs;
         this.inactivityTimeoutInMs = inactivityTimeoutInMs;
         this.assetsBaseUri = assetsBaseUri;
+        this.upcomingLearningUnits = upcomingLearningUnits;
+        this.itemStreamUri = itemStreamUri;
     }
 
     /**
@@ -138,6 +185,87 @@ public final class RunLearningUnitRequest {
             @Nullable Long remainingForegroundTimeInMs,
             @Nullable Long inactivityTimeoutInMs,
             @Nullable Uri assetsBaseUri) {
+        return of(
+                learningUnitId,
+                learningUnitRunId,
+                learnerId,
+                schoolId,
+                stage,
+                remainingForegroundTimeInMs,
+                inactivityTimeoutInMs,
+                assetsBaseUri,
+                Collections.emptyList());
+    }
+
+    /**
+     * Like {@link #of(String, String, String, String, String, Long, Long, Uri)}, but with hints
+     * about the learning units that will run afterwards.
+     *
+     * @param learningUnitId <b>Required</b>, see {@link #learningUnitId}.
+     * @param learningUnitRunId <b>Required</b>, see {@link #learningUnitRunId}.
+     * @param learnerId <b>Required</b>, see {@link #learnerId}.
+     * @param schoolId <b>Required</b>, see {@link #schoolId}.
+     * @param stage <b>Required</b>, see {@link #stage}.
+     * @param remainingForegroundTimeInMs <i>Optional</i>, see {@link #remainingForegroundTimeInMs}.
+     * @param inactivityTimeoutInMs <i>Optional</i>, see {@link #inactivityTimeoutInMs}.
+     * @param assetsBaseUri <i>Optional</i>, the base content URI from which to retrieve assets.
+     * @param upcomingLearningUnits <i>Optional</i>, see {@link #upcomingLearningUnits}.
+     * @return The new instance.
+     */
+    @NonNull
+    public static RunLearningUnitRequest of(
+            @NonNull String learningUnitId,
+            @NonNull String learningUnitRunId,
+            @NonNull String learnerId,
+            @NonNull String schoolId,
+            @NonNull String stage,
+            @Nullable Long remainingForegroundTimeInMs,
+            @Nullable Long inactivityTimeoutInMs,
+            @Nullable Uri assetsBaseUri,
+            @NonNull List<UpcomingLearningUnit> upcomingLearningUnits) {
+        return of(
+                learningUnitId,
+                learningUnitRunId,
+                learnerId,
+                schoolId,
+                stage,
+                remainingForegroundTimeInMs,
+                inactivityTimeoutInMs,
+                assetsBaseUri,
+                upcomingLearningUnits,
+                null);
+    }
+
+    /**
+     * Like {@link #of(String, String, String, String, String, Long, Long, Uri, List)}, but with a
+     * content URI to which the learning app can stream result items while the unit runs, see {@link
+     * ResultItemStream}.
+     *
+     * @param learningUnitId <b>Required</b>, see {@link #learningUnitId}.
+     * @param learningUnitRunId <b>Required</b>, see {@link #learningUnitRunId}.
+     * @param learnerId <b>Required</b>, see {@link #learnerId}.
+     * @param schoolId <b>Required</b>, see {@link #schoolId}.
+     * @param stage <b>Required</b>, see {@link #stage}.
+     * @param remainingForegroundTimeInMs <i>Optional</i>, see {@link #remainingForegroundTimeInMs}.
+     * @param inactivityTimeoutInMs <i>Optional</i>, see {@link #inactivityTimeoutInMs}.
+     * @param assetsBaseUri <i>Optional</i>, the base content URI from which to retrieve assets.
+     * @param upcomingLearningUnits <i>Optional</i>, see {@link #upcomingLearningUnits}.
+     * @param itemStreamUri <i>Optional</i>, the content URI of the EIDU app's provider which
+     *     receives streamed result items.
+     * @return The new instance.
+     */
+    @NonNull
+    public static RunLearningUnitRequest of(
+            @NonNull String learningUnitId,
+            @NonNull String learningUnitRunId,
+            @NonNull String learnerId,
+            @NonNull String schoolId,
+            @NonNull String stage,
+            @Nullable Long remainingForegroundTimeInMs,
+            @Nullable Long inactivityTimeoutInMs,
+            @Nullable Uri assetsBaseUri,
+            @NonNull List<UpcomingLearningUnit> upcomingLearningUnits,
+            @Nullable Uri itemStreamUri) {
         return new RunLearningUnitRequest(
                 VERSION,
                 learningUnitId,
@@ -147,7 +275,9 @@ public final class RunLearningUnitRequest {
                 stage,
                 remainingForegroundTimeInMs,
                 inactivityTimeoutInMs,
-                assetsBaseUri);
+                assetsBaseUri,
+                Collections.unmodifiableList(new ArrayList<>(upcomingLearningUnits)),
+                itemStreamUri);
     }
 
     /**
@@ -176,6 +306,8 @@ public final class RunLearningUnitRequest {
         Long inactivityTimeoutInMs = getLongExtra(intent, INACTIVITY_TIMEOUT_EXTRA);
 
         Uri assetsBaseUri = intent.getData();
+        List<UpcomingLearningUnit> upcomingLearningUnits = getUpcomingLearningUnits(intent);
+        String itemStreamUri = intent.getStringExtra(ITEM_STREAM_URI_EXTRA);
 
         for (String field :
                 new String[] {learningUnitId, learningUnitRunId, learnerId, schoolId, stage})
@@ -207,7 +339,9 @@ public final class RunLearningUnitRequest {
                 stage,
                 remainingForegroundTimeInMs,
                 inactivityTimeoutInMs,
-                assetsBaseUri);
+                assetsBaseUri,
+                upcomingLearningUnits,
+                itemStreamUri == null ? null : Uri.parse(itemStreamUri));
     }
 
     /**
@@ -230,17 +364,65 @@ public final class RunLearningUnitRequest {
 
     @NonNull
     private Intent addExtras(@NonNull Intent intent) {
-        intent.putExtra(VERSION_EXTRA, version)
-                .putExtra(LEARNING_UNIT_ID_EXTRA, learningUnitId)
-                .putExtra(LEARNING_UNIT_RUN_ID, learningUnitRunId)
-                .putExtra(LEARNER_ID_EXTRA, learnerId)
-                .putExtra(SCHOOL_ID_EXTRA, schoolId)
-                .putExtra(STAGE_EXTRA, stage);
-        intent.putExtra(REMAINING_FOREGROUND_TIME_EXTRA, remainingForegroundTimeInMs);
-        intent.putExtra(INACTIVITY_TIMEOUT_EXTRA, inactivityTimeoutInMs);
+        intent.putExtras(RunLearningUnitRequestMapper.toBundle(this, new Bundle()));
+        if (itemStreamUri != null) intent.putExtra(ITEM_STREAM_URI_EXTRA, itemStreamUri.toString());
+        if (!upcomingLearningUnits.isEmpty()) {
+            String[] ids = new String[upcomingLearningUnits.size()];
+            String[] uris = new String[upcomingLearningUnits.size()];
+            for (int i = 0; i < ids.length; i++) {
+                UpcomingLearningUnit unit = upcomingLearningUnits.get(i);
+                ids[i] = unit.learningUnitId;
+                uris[i] = unit.assetsBaseUri == null ? null : unit.assetsBaseUri.toString();
+            }
+            intent.putExtra(UPCOMING_LEARNING_UNIT_IDS_EXTRA, ids)
+                    .putExtra(UPCOMING_ASSETS_BASE_URIS_EXTRA, uris);
+        }
         return intent;
     }
 
+    /**
+     * Reads the upcoming learning units, which are stored as two arrays of the same length, since
+     * neither {@link UpcomingLearningUnit} nor its list need to be {@link android.os.Parcelable}
+     * this way. Both are absent in requests of version 1 and if there are no upcoming units. Since
+     * upcoming units are a hint only, malformed extras are ignored rather than rejecting the
+     * request.
+     */
+    @NonNull
+    private static List<UpcomingLearningUnit> getUpcomingLearningUnits(@NonNull Intent intent) {
+        String[] ids = intent.getStringArrayExtra(UPCOMING_LEARNING_UNIT_IDS_EXTRA);
+        String[] uris = intent.getStringArrayExtra(UPCOMING_ASSETS_BASE_URIS_EXTRA);
+        if (ids == null || uris == null || uris.length != ids.length)
+            return Collections.emptyList();
+
+        List<UpcomingLearningUnit> units = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == null || ids[i].isEmpty()) return Collections.emptyList();
+            units.add(
+                    new UpcomingLearningUnit(ids[i], uris[i] == null ? null : Uri.parse(uris[i])));
+        }
+        return Collections.unmodifiableList(units);
+    }
+
+    /**
+     * Returns a request for an upcoming learning unit, which is like this one except for the
+     * learning unit and its assets. Used to preload assets of the upcoming unit.
+     */
+    @NonNull
+    RunLearningUnitRequest forUpcomingLearningUnit(@NonNull UpcomingLearningUnit unit) {
+        return new RunLearningUnitRequest(
+                version,
+                unit.learningUnitId,
+                learningUnitRunId,
+                learnerId,
+                schoolId,
+                stage,
+                null,
+                null,
+                unit.assetsBaseUri,
+                Collections.emptyList(),
+                null);
+    }
+
     /**
      * Retrieves the contents of an asset as an {@link InputStream}. <b>It is the caller's
      * responsibility to close this stream after use.</b>
@@ -254,7 +436,210 @@ public final class RunLearningUnitRequest {
     @NonNull
     public InputStream getAssetAsStream(@NonNull Context context, @NonNull String path)
             throws FileNotFoundException {
-        ParcelFileDescriptor descriptor = getAssetAsFileDescriptor(context, path);
+        return streamOf(getAssetAsFileDescriptor(context, path, null));
+    }
+
+    /**
+     * Retrieves the contents of an asset as an {@link InputStream} in the background, without
+     * blocking the calling thread. The callback is invoked on the main thread. See {@link
+     * #loadAssetAsStream(Context, String, Executor, Executor, AssetLoad.Callback)}.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to retrieve.
+     * @param callback Receives the stream, or the reason why it could not be retrieved.
+     * @return An {@link AssetLoad} which allows cancelling the retrieval.
+     */
+    @NonNull
+    public AssetLoad loadAssetAsStream(
+            @NonNull Context context,
+            @NonNull String path,
+            @NonNull AssetLoad.Callback<InputStream> callback) {
+        return loadAssetAsStream(
+                context,
+                path,
+                AssetLoad.defaultExecutor(),
+                AssetLoad.mainThreadExecutor(),
+                callback);
+    }
+
+    /**
+     * Retrieves the contents of an asset as an {@link InputStream} in the background, without
+     * blocking the calling thread. <b>It is the callback's responsibility to close this stream
+     * after use.</b> See {@link #getAssetAsStream(Context, String)}.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to retrieve.
+     * @param executor The executor on which to retrieve the asset.
+     * @param callbackExecutor The executor on which to invoke the callback.
+     * @param callback Receives the stream, or the reason why it could not be retrieved.
+     * @return An {@link AssetLoad} which allows cancelling the retrieval.
+     */
+    @NonNull
+    public AssetLoad loadAssetAsStream(
+            @NonNull Context context,
+            @NonNull String path,
+            @NonNull Executor executor,
+            @NonNull Executor callbackExecutor,
+            @NonNull AssetLoad.Callback<InputStream> callback) {
+        return AssetLoad.start(
+                executor,
+                callbackExecutor,
+                signal -> streamOf(getAssetAsFileDescriptor(context, path, signal)),
+                callback);
+    }
+
+    /**
+     * Retrieves the contents of an asset as a read-only {@link FileChannel}, which supports
+     * positional reads, e.g. with {@link FileChannel#read(java.nio.ByteBuffer, long)}, and memory
+     * mapping. <b>It is the caller's responsibility to close this channel after use.</b>
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to retrieve.
+     * @return A {@link FileChannel} for the asset.
+     * @throws FileNotFoundException In case an asset by that name cannot be found for the learning
+     *     unit being run, the request does not support asset loading, or EIDU has crashed.
+     */
+    @NonNull
+    public FileChannel getAssetAsChannel(@NonNull Context context, @NonNull String path)
+            throws FileNotFoundException {
+        // Closing the channel closes the stream, which in turn closes the descriptor.
+        return new ParcelFileDescriptor.AutoCloseInputStream(
+                        getAssetAsFileDescriptor(context, path))
+                .getChannel();
+    }
+
+    /**
+     * Maps the entire contents of an asset into memory, read-only. The asset's pages are only
+     * loaded when they are accessed, and the returned buffer can be passed directly to APIs that
+     * accept a {@link java.nio.ByteBuffer}, e.g. decoders. No descriptor remains open; the mapping
+     * is released once the buffer is garbage collected.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to map.
+     * @return A read-only buffer of the asset's contents.
+     * @throws FileNotFoundException In case an asset by that name cannot be found for the learning
+     *     unit being run, the request does not support asset loading, or EIDU has crashed.
+     * @throws IOException In case the asset cannot be mapped, e.g. because the EIDU app delivers it
+     *     through a pipe rather than a file.
+     */
+    @NonNull
+    public MappedByteBuffer getAssetAsMappedBuffer(@NonNull Context context, @NonNull String path)
+            throws IOException {
+        return mappedBufferOf(getAssetAsFileDescriptor(context, path, null));
+    }
+
+    /**
+     * Maps the entire contents of an asset into memory in the background, without blocking the
+     * calling thread. The callback is invoked on the main thread. See {@link
+     * #loadAssetAsMappedBuffer(Context, String, Executor, Executor, AssetLoad.Callback)}.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to map.
+     * @param callback Receives the buffer, or the reason why the asset could not be mapped.
+     * @return An {@link AssetLoad} which allows cancelling the retrieval.
+     */
+    @NonNull
+    public AssetLoad loadAssetAsMappedBuffer(
+            @NonNull Context context,
+            @NonNull String path,
+            @NonNull AssetLoad.Callback<MappedByteBuffer> callback) {
+        return loadAssetAsMappedBuffer(
+                context,
+                path,
+                AssetLoad.defaultExecutor(),
+                AssetLoad.mainThreadExecutor(),
+                callback);
+    }
+
+    /**
+     * Maps the entire contents of an asset into memory in the background, without blocking the
+     * calling thread. See {@link #getAssetAsMappedBuffer(Context, String)}.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to map.
+     * @param executor The executor on which to retrieve and map the asset.
+     * @param callbackExecutor The executor on which to invoke the callback.
+     * @param callback Receives the buffer, or the reason why the asset could not be mapped.
+     * @return An {@link AssetLoad} which allows cancelling the retrieval.
+     */
+    @NonNull
+    public AssetLoad loadAssetAsMappedBuffer(
+            @NonNull Context context,
+            @NonNull String path,
+            @NonNull Executor executor,
+            @NonNull Executor callbackExecutor,
+            @NonNull AssetLoad.Callback<MappedByteBuffer> callback) {
+        return AssetLoad.start(
+                executor,
+                callbackExecutor,
+                signal -> mappedBufferOf(getAssetAsFileDescriptor(context, path, signal)),
+                callback);
+    }
+
+    /**
+     * Maps a range of an asset into memory, read-only. This allows accessing parts of large assets,
+     * e.g. media files, without reading all preceding data. See {@link
+     * #getAssetAsMappedBuffer(Context, String)}.
+     *
+     * @param context The current context. May be an application context.
+     * @param path The path of the asset to map.
+     * @param offset The position in the asset at which the range starts.
+     * @param length The length of the range in bytes.
+     * @return A read-only buffer of the range's contents.
+     * @throws IllegalArgumentException If the range is not within the asset.
+     * @throws FileNotFoundException In case an asset by that name cannot be found for the learning
+     *     unit being run, the request does not support asset loading, or EIDU has crashed.
+     * @throws IOException In case the asset cannot be mapped, e.g. because the EIDU app delivers it
+     *     through a pipe rather than a file.
+     */
+    @NonNull
+    public MappedByteBuffer getAssetRange(
+            @NonNull Context context, @NonNull String path, long offset, int length)
+            throws IOException {
+        try (FileChannel channel = getAssetAsChannel(context, path)) {
+            long size = channel.size();
+            if (offset < 0 || length < 0 || offset > size - length)
+                throw new IllegalArgumentException(
+                        "Range ["
+                                + offset
+                                + ", "
+                                + (offset + length)
+                                + ") is not within asset "
+                                + path
+                                + " of size "
+                                + size);
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+    }
+
+    @NonNull
+    ParcelFileDescriptor getAssetAsFileDescriptor(@NonNull Context context, @NonNull String path)
+            throws FileNotFoundException {
+        return getAssetAsFileDescriptor(context, path, null);
+    }
+
+    @NonNull
+    private ParcelFileDescriptor getAssetAsFileDescriptor(
+            @NonNull Context context, @NonNull String path, @Nullable CancellationSignal signal)
+            throws FileNotFoundException {
+        IntegrationMetrics.Measurement measurement = IntegrationMetrics.begin(Operation.OpenAsset);
+        try {
+            ParcelFileDescriptor descriptor =
+                    context.getContentResolver()
+                            .openFileDescriptor(getAssetAsUri(path), "r", signal);
+            if (descriptor == null)
+                throw new FileNotFoundException(
+                        "Unable to retrieve asset because EIDU has crashed.");
+            return descriptor;
+        } finally {
+            IntegrationMetrics.end(
+                    measurement, IntegrationMetrics.UNKNOWN, IntegrationMetrics.UNKNOWN);
+        }
+    }
+
+    @NonNull
+    private static InputStream streamOf(@NonNull ParcelFileDescriptor descriptor) {
+        if (IntegrationMetrics.isEnabled()) return new MeasuredAssetStream(descriptor);
         return new FileInputStream(descriptor.getFileDescriptor()) {
             @Override
             public void close() throws IOException {
@@ -264,14 +649,61 @@ public final class RunLearningUnitRequest {
         };
     }
 
+    /** An asset stream that reports {@link Operation#ReadAsset} when it is closed. */
+    private static final class MeasuredAssetStream extends FileInputStream {
+        @NonNull private final ParcelFileDescriptor descriptor;
+        private final long start = System.nanoTime();
+        private long bytes;
+        private boolean closed;
+
+        MeasuredAssetStream(@NonNull ParcelFileDescriptor descriptor) {
+            super(descriptor.getFileDescriptor());
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) bytes++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) bytes += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long count = super.skip(n);
+            bytes += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            descriptor.close();
+            if (closed) return;
+            closed = true;
+            IntegrationMetrics.report(
+                    Operation.ReadAsset,
+                    System.nanoTime() - start,
+                    bytes,
+                    IntegrationMetrics.UNKNOWN);
+        }
+    }
+
     @NonNull
-    private ParcelFileDescriptor getAssetAsFileDescriptor(
-            @NonNull Context context, @NonNull String path) throws FileNotFoundException {
-        ParcelFileDescriptor descriptor =
-                context.getContentResolver().openFileDescriptor(getAssetAsUri(path), "r");
-        if (descriptor == null)
-            throw new FileNotFoundException("Unable to retrieve asset because EIDU has crashed.");
-        return descriptor;
+    private static MappedByteBuffer mappedBufferOf(@NonNull ParcelFileDescriptor descriptor)
+            throws IOException {
+        // Closing the channel closes the stream, which in turn closes the descriptor.
+        try (FileChannel channel =
+                new ParcelFileDescriptor.AutoCloseInputStream(descriptor).getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
     }
 
     /**
@@ -291,8 +723,23 @@ public final class RunLearningUnitRequest {
         return assetsBaseUri.buildUpon().appendPath(path).build();
     }
 
+    @Nullable
+    Uri getAssetsBaseUri() {
+        return assetsBaseUri;
+    }
+
+    @Nullable
+    Uri getItemStreamUri() {
+        return itemStreamUri;
+    }
+
     @Nullable
     private static Long getLongExtra(@NonNull Intent intent, @NonNull String extra) {
+        // Fast path for the usual case of a long value. Anything else, including the unlikely
+        // value of Long.MIN_VALUE, is handled below.
+        long primitive = intent.getLongExtra(extra, Long.MIN_VALUE);
+        if (primitive != Long.MIN_VALUE) return primitive;
+
         if (intent.hasExtra(extra)) {
             Serializable value = intent.getSerializableExtra(extra);
             if (value == null) {
@@ -321,7 +768,9 @@ public final class RunLearningUnitRequest {
                 && stage.equals(that.stage)
                 && Objects.equals(remainingForegroundTimeInMs, that.remainingForegroundTimeInMs)
                 && Objects.equals(inactivityTimeoutInMs, that.inactivityTimeoutInMs)
-                && Objects.equals(assetsBaseUri, that.assetsBaseUri);
+                && Objects.equals(assetsBaseUri, that.assetsBaseUri)
+                && upcomingLearningUnits.equals(that.upcomingLearningUnits)
+                && Objects.equals(itemStreamUri, that.itemStreamUri);
     }
 
     @Override
@@ -335,6 +784,8 @@ public final class RunLearningUnitRequest {
                 stage,
                 remainingForegroundTimeInMs,
                 inactivityTimeoutInMs,
-                assetsBaseUri);
+                assetsBaseUri,
+                upcomingLearningUnits,
+                itemStreamUri);
     }
 }
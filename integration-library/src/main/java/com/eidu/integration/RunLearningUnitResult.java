@@ -1,13 +1,16 @@
 package com.eidu.integration;
 
+import android.content.Context;
 import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import java.util.ArrayList;
+import com.eidu.integration.IntegrationMetrics.Operation;
 import java.util.List;
 import java.util.Objects;
-import org.json.JSONArray;
-import org.json.JSONException;
 
 /**
  * This class represents the result of a learning unit run and should be used to deliver the result
@@ -17,9 +20,21 @@ import org.json.JSONException;
  * #ofSuccess}, {@link #ofAbort}, {@link #ofTimeoutInactivity}, {@link #ofTimeUp}, {@link #ofError}.
  *
  * <p>Then, {@link #toIntent()} should be used to instantiate an {@link Intent} to be passed to
- * {@link android.app.Activity#setResult(int, Intent)} before finishing the activity.
+ * {@link android.app.Activity#setResult(int, Intent)} before finishing the activity. For results
+ * with many items or extensive additional data, {@link #toIntent(Context)} avoids exceeding the
+ * size limit of intents.
+ *
+ * <p>Instances are {@link Parcelable}, e.g. to pass them between components of an app.
  */
-public class RunLearningUnitResult {
+@Codec(value = Codec.Format.Bundle, decode = false)
+public class RunLearningUnitResult implements Parcelable {
+
+    /**
+     * The maximum size of {@link #additionalData} and {@link #items} that {@link
+     * #toIntent(Context)} includes inline in an intent. Binder transactions are limited to 1 MB,
+     * which is shared between all transactions in progress in a process.
+     */
+    public static final int DEFAULT_INLINE_PAYLOAD_LIMIT_IN_BYTES = 256 * 1024;
 
     private static final int VERSION = 2;
     private static final String VERSION_EXTRA = "version";
@@ -29,11 +44,17 @@ public class RunLearningUnitResult {
     private static final String ADDITIONAL_DATA_EXTRA = "additionalData";
     private static final String ERROR_DETAILS_EXTRA = "errorDetails";
     private static final String ITEMS_EXTRA = "items";
+    private static final String ITEMS_BINARY_EXTRA = "itemsBinary";
+    private static final String ITEMS_PARCEL_EXTRA = "itemsParcel";
+    private static final int PARCEL_VERSION = 1;
 
+    @CodecField(VERSION_EXTRA)
     public final int version;
 
     /** The reason why this run ended. */
-    @NonNull public final ResultType resultType;
+    @CodecField(RESULT_TYPE)
+    @NonNull
+    public final ResultType resultType;
 
     /**
      * <i>Optional.</i> A score between 0.0f and 1.0f that describes how the learner did up to the
@@ -47,9 +68,13 @@ public class RunLearningUnitResult {
      * <p>Only in case it's impossible to compute a meaningful score may this value be null.
      * Learning app developers are strongly encouraged to try hard to compute meaningful scores in
      * as many cases as possible, in order to provide the maximum amount of information for
-     * personalisation and analytics.
+     * personalisation and analytics. {@link ResultItemStats#score()} derives a score from the
+     * {@link #items}, e.g. from those collected by a {@link ResultItemRecorder}.
      */
-    @Nullable public final Float score;
+    // Omitted rather than null if absent, which all versions of this library read as null.
+    @CodecField(SCORE_EXTRA)
+    @Nullable
+    public final Float score;
 
     /**
      * The amount of time that the user spent with the learning unit at the end of the run. This
@@ -58,6 +83,7 @@ public class RunLearningUnitResult {
      * different app forced itself into the foreground), and it <i>should</i> exclude time spent for
      * loading and any transition animations.
      */
+    @CodecField(FOREGROUND_DURATION_EXTRA)
     public final long foregroundDurationInMs;
 
     /**
@@ -78,7 +104,9 @@ public class RunLearningUnitResult {
      * <p>This information will be reported to EIDU for diagnostic purposes. It must not contain any
      * sensitive data (e.g. device identifiers).
      */
-    @Nullable public final String errorDetails;
+    @CodecField(value = ERROR_DETAILS_EXTRA, omitIfNull = false)
+    @Nullable
+    public final String errorDetails;
 
     /**
      * <i>Optional.</i> A list of items describing the user interactions during a learning unit run
@@ -86,6 +114,10 @@ public class RunLearningUnitResult {
      *
      * <p>Note that a <code>null</code> value signifies that no sensible representation of
      * interactions is available, whereas an empty list signifies that no interactions occurred.
+     *
+     * <p>Learning apps can use a {@link ResultItemRecorder} to collect items while the run is in
+     * progress, which avoids serializing all of them when the run ends. A {@link ResultItemBatch}
+     * holds many items more compactly than individual {@link ResultItem} instances.
      */
     @Nullable public final List<ResultItem> items;
 
@@ -244,25 +276,102 @@ public class RunLearningUnitResult {
     /**
      * Parses an {@link Intent} into a new RunLearningUnitResult instance.
      *
+     * <p>This cannot parse intents whose payload was delivered through a content URI, see {@link
+     * #toIntent(Context)}. Use {@link #fromIntent(Context, Intent)} to also support these.
+     *
+     * <p>{@link #items} are not decoded until they are first accessed, see {@link
+     * LazyResultItemList}. Malformed items therefore only cause an exception at that point.
+     *
      * @param intent The intent to parse.
      * @return The new instance.
      * @throws IllegalArgumentException If the intent contains incomplete or invalid data.
      */
     @NonNull
     public static RunLearningUnitResult fromIntent(@NonNull Intent intent) {
+        return fromIntent(null, intent);
+    }
+
+    /**
+     * Parses an {@link Intent} into a new RunLearningUnitResult instance, fetching the payload
+     * through the content URI contained in the intent, if any. The payload is fetched right away,
+     * while the permission to read it is certain to be granted, but {@link #items} are not decoded
+     * until they are first accessed.
+     *
+     * @param context The current context, used to access the payload. May be an application
+     *     context.
+     * @param intent The intent to parse.
+     * @return The new instance.
+     * @throws IllegalArgumentException If the intent contains incomplete or invalid data, or if the
+     *     payload cannot be fetched.
+     */
+    @NonNull
+    public static RunLearningUnitResult fromIntent(
+            @Nullable Context context, @NonNull Intent intent) {
+        IntegrationMetrics.Measurement measurement =
+                IntegrationMetrics.begin(Operation.ResultFromIntent);
+        try {
+            return parse(context, intent);
+        } finally {
+            IntegrationMetrics.end(
+                    measurement, IntegrationMetrics.UNKNOWN, IntegrationMetrics.UNKNOWN);
+        }
+    }
+
+    /**
+     * Converts an entry of a result batch, e.g. read with {@link ResultBatchReader}, into a new
+     * RunLearningUnitResult instance.
+     *
+     * @param entry The entry.
+     * @return The new instance.
+     * @throws IllegalArgumentException If the entry has an unknown result type.
+     */
+    @NonNull
+    public static RunLearningUnitResult fromBatchEntry(@NonNull ResultBatchEntry entry) {
+        ResultType type = ResultType.nullableValueOf(entry.resultType);
+        if (type == null)
+            throw new IllegalArgumentException("Unknown result type " + entry.resultType);
+        return new RunLearningUnitResult(
+                VERSION,
+                type,
+                entry.score,
+                entry.foregroundDurationInMs,
+                entry.additionalData,
+                entry.errorDetails,
+                entry.items);
+    }
+
+    @NonNull
+    private static RunLearningUnitResult parse(@Nullable Context context, @NonNull Intent intent) {
+        // Required to unparcel ParcelableResultItems, in case the intent contains them.
+        intent.setExtrasClassLoader(RunLearningUnitResult.class.getClassLoader());
         int version = intent.getIntExtra(VERSION_EXTRA, VERSION);
         ResultType type =
                 RunLearningUnitResult.ResultType.nullableValueOf(
                         intent.getStringExtra(RESULT_TYPE));
-        Float score = intent.hasExtra(SCORE_EXTRA) ? intent.getFloatExtra(SCORE_EXTRA, 0.f) : null;
+        // A missing score used to be written as an extra with a null value, which is read as NaN
+        // here, just like an absent extra.
+        float primitiveScore = intent.getFloatExtra(SCORE_EXTRA, Float.NaN);
+        Float score = Float.isNaN(primitiveScore) ? null : primitiveScore;
         Long foregroundDurationInMs =
                 intent.hasExtra(FOREGROUND_DURATION_EXTRA)
                         ? intent.getLongExtra(FOREGROUND_DURATION_EXTRA, 0)
                         : null;
-        String additionalData = intent.getStringExtra(ADDITIONAL_DATA_EXTRA);
         String errorDetails = intent.getStringExtra(ERROR_DETAILS_EXTRA);
 
-        List<ResultItem> items = parseItems(intent);
+        String additionalData;
+        List<ResultItem> items;
+        Uri payloadUri = intent.getData();
+        if (payloadUri != null) {
+            if (context == null)
+                throw new IllegalArgumentException(
+                        "Result intent refers to a payload URI, which requires a context to read.");
+            ResultPayload payload = ResultPayload.read(context, payloadUri);
+            additionalData = payload.additionalData;
+            items = payload.items;
+        } else {
+            additionalData = intent.getStringExtra(ADDITIONAL_DATA_EXTRA);
+            items = parseItems(intent);
+        }
 
         if (type == null || foregroundDurationInMs == null)
             throw new IllegalArgumentException(
@@ -276,20 +385,30 @@ public class RunLearningUnitResult {
     }
 
     @Nullable
+    @SuppressWarnings("deprecation") // The type-safe variant requires API level 33.
     private static List<ResultItem> parseItems(@NonNull Intent intent) {
-        String itemsString = intent.getStringExtra(ITEMS_EXTRA);
-        if (itemsString == null || itemsString.equals("null")) return null;
-
+        IntegrationMetrics.Measurement measurement = IntegrationMetrics.begin(Operation.ParseItems);
+        long bytes = IntegrationMetrics.UNKNOWN;
+        long itemCount = IntegrationMetrics.UNKNOWN;
         try {
-            JSONArray jsonArray = new JSONArray(itemsString);
+            ParcelableResultItems parcelled = intent.getParcelableExtra(ITEMS_PARCEL_EXTRA);
+            if (parcelled != null) {
+                itemCount = parcelled.items().size();
+                return parcelled.items();
+            }
 
-            ArrayList<ResultItem> items = new ArrayList<>(jsonArray.length());
-            for (int i = 0; i < jsonArray.length(); i++)
-                items.add(ResultItem.fromJson(jsonArray.getJSONObject(i)));
+            byte[] itemsBytes = intent.getByteArrayExtra(ITEMS_BINARY_EXTRA);
+            if (itemsBytes != null) {
+                bytes = itemsBytes.length;
+                return LazyResultItemList.ofBinary(itemsBytes);
+            }
 
-            return items;
-        } catch (JSONException e) {
-            throw new IllegalArgumentException("Failed to parse " + ITEMS_EXTRA, e);
+            String itemsString = intent.getStringExtra(ITEMS_EXTRA);
+            if (itemsString == null || itemsString.equals("null")) return null;
+            bytes = 2L * itemsString.length();
+            return LazyResultItemList.ofJson(itemsString);
+        } finally {
+            IntegrationMetrics.end(measurement, bytes, itemCount);
         }
     }
 
@@ -302,27 +421,205 @@ public class RunLearningUnitResult {
      */
     @NonNull
     public Intent toIntent() {
-        return new Intent()
-                .putExtra(VERSION_EXTRA, version)
-                .putExtra(RESULT_TYPE, resultType.name())
-                .putExtra(SCORE_EXTRA, score)
-                .putExtra(FOREGROUND_DURATION_EXTRA, foregroundDurationInMs)
-                .putExtra(ADDITIONAL_DATA_EXTRA, additionalData)
-                .putExtra(ERROR_DETAILS_EXTRA, errorDetails)
-                .putExtra(ITEMS_EXTRA, itemsJson());
+        return toIntent(ItemsEncoding.Json);
     }
 
+    /**
+     * Like {@link #toIntent()}, but allows choosing how {@link #items} are encoded.
+     *
+     * @param itemsEncoding The encoding to use for {@link #items}. See {@link ItemsEncoding}.
+     * @return An intent that contains all information of this instance of RunLearningUnitResult.
+     */
     @NonNull
-    private String itemsJson() {
-        if (items == null) return "null";
-        JSONArray jsonArray = new JSONArray();
-        for (int i = 0; i < items.size(); i++)
-            try {
-                jsonArray.put(items.get(i).toJson());
-            } catch (JSONException e) {
-                throw new IllegalStateException("Failed to serialize item.", e);
+    public Intent toIntent(@NonNull ItemsEncoding itemsEncoding) {
+        IntegrationMetrics.Measurement measurement =
+                IntegrationMetrics.begin(Operation.ResultToIntent);
+        long bytes = IntegrationMetrics.UNKNOWN;
+        try {
+            Intent intent = baseIntent().putExtra(ADDITIONAL_DATA_EXTRA, additionalData);
+            if (itemsEncoding == ItemsEncoding.Binary && items != null) {
+                byte[] binary = itemsBinary(items);
+                bytes = binary.length + additionalDataSize();
+                return intent.putExtra(ITEMS_BINARY_EXTRA, binary);
             }
-        return jsonArray.toString();
+            if (itemsEncoding == ItemsEncoding.Parcel && items != null)
+                return intent.putExtra(ITEMS_PARCEL_EXTRA, new ParcelableResultItems(items));
+            String json = itemsJson();
+            bytes = 2L * json.length() + additionalDataSize();
+            return intent.putExtra(ITEMS_EXTRA, json);
+        } finally {
+            IntegrationMetrics.end(measurement, bytes, itemCount());
+        }
+    }
+
+    /**
+     * Like {@link #toIntent()}, but protects against results that are too large to be delivered in
+     * an intent, which would otherwise crash with a {@link
+     * android.os.TransactionTooLargeException}.
+     *
+     * <p>If {@link #additionalData} and {@link #items} would take up more than {@link
+     * #DEFAULT_INLINE_PAYLOAD_LIMIT_IN_BYTES}, they are written to a file instead. The returned
+     * intent then only contains a content {@link Uri} for that file, along with a temporary
+     * permission for the EIDU app to read it. The EIDU app must use {@link #fromIntent(Context,
+     * Intent)} to parse such intents.
+     *
+     * @param context The current context, used to store the payload file. May be an application
+     *     context.
+     * @return An intent that contains or refers to all information of this instance of
+     *     RunLearningUnitResult.
+     * @throws IllegalStateException If the payload file could not be written.
+     */
+    @NonNull
+    public Intent toIntent(@NonNull Context context) {
+        return toIntent(context, DEFAULT_INLINE_PAYLOAD_LIMIT_IN_BYTES);
+    }
+
+    /**
+     * Like {@link #toIntent(Context)}, but with a custom limit for inline payloads.
+     *
+     * @param context The current context, used to store the payload file. May be an application
+     *     context.
+     * @param inlinePayloadLimitInBytes The maximum size of a payload to include inline.
+     * @return An intent that contains or refers to all information of this instance of
+     *     RunLearningUnitResult.
+     * @throws IllegalStateException If the payload file could not be written.
+     */
+    @NonNull
+    public Intent toIntent(@NonNull Context context, int inlinePayloadLimitInBytes) {
+        IntegrationMetrics.Measurement measurement =
+                IntegrationMetrics.begin(Operation.ResultToIntent);
+        long inlinePayloadSize = IntegrationMetrics.UNKNOWN;
+        try {
+            String itemsJson = itemsJson();
+            // Strings are written to parcels as UTF-16, i.e. with two bytes per character.
+            inlinePayloadSize = 2L * itemsJson.length() + additionalDataSize();
+            if (inlinePayloadSize <= inlinePayloadLimitInBytes)
+                return baseIntent()
+                        .putExtra(ADDITIONAL_DATA_EXTRA, additionalData)
+                        .putExtra(ITEMS_EXTRA, itemsJson);
+
+            return baseIntent()
+                    .setData(ResultPayload.write(context, additionalData, items))
+                    .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        } finally {
+            IntegrationMetrics.end(measurement, inlinePayloadSize, itemCount());
+        }
+    }
+
+    /**
+     * Converts this result to an entry of a result batch, e.g. to store many results on the device
+     * with a {@link ResultBatchWriter}.
+     *
+     * @param learningUnitRunId The ID of the run this is the result of, see {@link
+     *     RunLearningUnitRequest#learningUnitRunId}.
+     * @return The new entry.
+     */
+    @NonNull
+    public ResultBatchEntry toBatchEntry(@NonNull String learningUnitRunId) {
+        return new ResultBatchEntry(
+                learningUnitRunId,
+                resultType.name(),
+                score,
+                foregroundDurationInMs,
+                additionalData,
+                errorDetails,
+                items);
+    }
+
+    /** Returns the size of {@link #additionalData} in a parcel. */
+    private long additionalDataSize() {
+        return additionalData == null ? 0 : 2L * additionalData.length();
+    }
+
+    /** Returns the number of items for metrics, without decoding lazily decoded items. */
+    private long itemCount() {
+        if (items == null) return 0;
+        return items instanceof LazyResultItemList ? IntegrationMetrics.UNKNOWN : items.size();
+    }
+
+    @NonNull
+    private Intent baseIntent() {
+        return new Intent().putExtras(RunLearningUnitResultMapper.toBundle(this, new Bundle()));
+    }
+
+    @NonNull
+    private String itemsJson() {
+        if (items instanceof LazyResultItemList) {
+            String json = ((LazyResultItemList) items).json();
+            if (json != null) return json;
+        }
+        try {
+            return ResultItemJsonWriter.writeItems(items);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to serialize item.", e);
+        }
+    }
+
+    @NonNull
+    private static byte[] itemsBinary(@NonNull List<ResultItem> items) {
+        if (items instanceof LazyResultItemList) {
+            byte[] binary = ((LazyResultItemList) items).binary();
+            if (binary != null) return binary;
+        }
+        return ResultItemBinaryWriter.writeItems(items);
+    }
+
+    public static final Creator<RunLearningUnitResult> CREATOR =
+            new Creator<RunLearningUnitResult>() {
+                @Override
+                public RunLearningUnitResult createFromParcel(Parcel source) {
+                    int parcelVersion = source.readInt();
+                    if (parcelVersion != PARCEL_VERSION)
+                        throw new IllegalArgumentException(
+                                "Unsupported parcelled result version " + parcelVersion);
+                    int version = source.readInt();
+                    ResultType resultType = ResultType.nullableValueOf(source.readString());
+                    if (resultType == null)
+                        throw new IllegalArgumentException("Invalid parcelled result type");
+                    Float score = source.readInt() != 0 ? source.readFloat() : null;
+                    long foregroundDurationInMs = source.readLong();
+                    String additionalData = source.readString();
+                    String errorDetails = source.readString();
+                    List<ResultItem> items =
+                            source.readInt() != 0 ? ParcelableResultItems.read(source) : null;
+                    return new RunLearningUnitResult(
+                            version,
+                            resultType,
+                            score,
+                            foregroundDurationInMs,
+                            additionalData,
+                            errorDetails,
+                            items);
+                }
+
+                @Override
+                public RunLearningUnitResult[] newArray(int size) {
+                    return new RunLearningUnitResult[size];
+                }
+            };
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    /**
+     * Writes this instance to a {@link Parcel}. The layout starts with its own version number, so
+     * that it can evolve independently of {@link #version}. {@link #items} are written as described
+     * in {@link ParcelableResultItems}.
+     */
+    @Override
+    public void writeToParcel(@NonNull Parcel dest, int flags) {
+        dest.writeInt(PARCEL_VERSION);
+        dest.writeInt(version);
+        dest.writeString(resultType.name());
+        dest.writeInt(score != null ? 1 : 0);
+        if (score != null) dest.writeFloat(score);
+        dest.writeLong(foregroundDurationInMs);
+        dest.writeString(additionalData);
+        dest.writeString(errorDetails);
+        dest.writeInt(items != null ? 1 : 0);
+        if (items != null) ParcelableResultItems.write(dest, items);
     }
 
     @Override
@@ -351,6 +648,29 @@ public class RunLearningUnitResult {
                 items);
     }
 
+    /** An enum describing how {@link #items} are encoded when converting to an {@link Intent}. */
+    public enum ItemsEncoding {
+        /**
+         * A JSON array, as written by {@link ResultItemJsonWriter}. This is understood by all
+         * versions of the EIDU app.
+         */
+        Json,
+        /**
+         * The compact binary format written by {@link ResultItemBinaryWriter}, which leads to
+         * considerably smaller intents. This must only be used if the receiving app uses a version
+         * of this library that supports it.
+         */
+        Binary,
+        /**
+         * A {@link Parcelable} that writes items with {@link android.os.Parcel}'s primitive
+         * methods, see {@link ParcelableResultItems}. This avoids encoding items as text, and
+         * decoded items are stored in a {@link ResultItemBatch}. This must only be used if the
+         * receiving app uses a version of this library that supports it, since otherwise it cannot
+         * read <i>any</i> of the intent's extras.
+         */
+        Parcel
+    }
+
     /** An enum describing the reason why a learning unit run has ended. */
     public enum ResultType {
         /**
@@ -0,0 +1,48 @@
+package com.eidu.integration;
+
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * A learning unit that the EIDU app expects to run after the current one, see {@link
+ * RunLearningUnitRequest#upcomingLearningUnits}. This is a hint only: the EIDU app may run a
+ * different unit next, e.g. because the learner stops.
+ */
+public final class UpcomingLearningUnit {
+
+    /** The ID of the learning unit, see {@link RunLearningUnitRequest#learningUnitId}. */
+    @NonNull public final String learningUnitId;
+
+    /**
+     * <i>Optional.</i> The base content URI from which the learning unit's assets will be
+     * retrieved, see {@link RunLearningUnitRequest#getAssetAsUri(String)}.
+     */
+    @Nullable public final Uri assetsBaseUri;
+
+    /**
+     * Creates a new UpcomingLearningUnit instance.
+     *
+     * @param learningUnitId <b>Required</b>, see {@link #learningUnitId}.
+     * @param assetsBaseUri <i>Optional</i>, see {@link #assetsBaseUri}.
+     */
+    public UpcomingLearningUnit(@NonNull String learningUnitId, @Nullable Uri assetsBaseUri) {
+        this.learningUnitId = learningUnitId;
+        this.assetsBaseUri = assetsBaseUri;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UpcomingLearningUnit that = (UpcomingLearningUnit) o;
+        return learningUnitId.equals(that.learningUnitId)
+                && Objects.equals(assetsBaseUri, that.assetsBaseUri);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(learningUnitId, assetsBaseUri);
+    }
+}
@@ -0,0 +1,171 @@
+package com.eidu.integration;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Speculatively loads the assets of the learning units that the EIDU app expects to run next, see
+ * {@link RunLearningUnitRequest#upcomingLearningUnits}, while the current unit is running. This
+ * hides the time it takes to load assets between consecutive units.
+ *
+ * <p>Which assets a unit needs is defined by the learning app in a manifest asset, see {@link
+ * AssetPrefetcher#prefetchManifest(String, int)}, which is looked up under the same path for every
+ * unit. Assets are loaded into one {@link AssetCache} per upcoming unit, which together stay within
+ * the given memory budget. Units that come earlier are loaded first.
+ *
+ * <p>When the next unit is launched, {@link #take(RunLearningUnitRequest)} hands over its cache, if
+ * it was preloaded. A preloader should be {@link #close() closed} when it is no longer needed,
+ * which cancels loading and releases the caches that haven't been taken.
+ */
+public final class UpcomingUnitPreloader implements Closeable {
+
+    /** The default value of {@code budgetInBytes}, see {@link UpcomingUnitPreloader}. */
+    public static final long DEFAULT_BUDGET_IN_BYTES = AssetCache.DEFAULT_MAX_SIZE_IN_BYTES;
+
+    private static final int PARALLELISM = 2;
+
+    @NonNull private final Context context;
+    @NonNull private final String manifestPath;
+    private final long budgetInBytes;
+    @NonNull private final AssetPrefetcher prefetcher = new AssetPrefetcher(PARALLELISM);
+    @NonNull private final List<Preload> preloads = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Creates a preloader with {@link #DEFAULT_BUDGET_IN_BYTES}.
+     *
+     * @param context The context to retrieve assets with. Should be an application context, since
+     *     the preloader keeps a reference to it.
+     * @param manifestPath The path of each unit's manifest asset.
+     */
+    public UpcomingUnitPreloader(@NonNull Context context, @NonNull String manifestPath) {
+        this(context, manifestPath, DEFAULT_BUDGET_IN_BYTES);
+    }
+
+    /**
+     * Creates a preloader.
+     *
+     * @param context The context to retrieve assets with. Should be an application context, since
+     *     the preloader keeps a reference to it.
+     * @param manifestPath The path of each unit's manifest asset.
+     * @param budgetInBytes The maximum total size of preloaded assets kept in memory, which is
+     *     divided evenly among the upcoming units. When the upcoming units change, the caches of
+     *     units that are kept are resized to their new share, evicting assets if necessary.
+     */
+    public UpcomingUnitPreloader(
+            @NonNull Context context, @NonNull String manifestPath, long budgetInBytes) {
+        this.context = context;
+        this.manifestPath = manifestPath;
+        this.budgetInBytes = budgetInBytes;
+    }
+
+    /**
+     * Starts loading the assets of the upcoming learning units of the given request. Units that are
+     * already being preloaded are kept; all other preloaded units are released.
+     *
+     * @param request The request of the learning unit that is currently running.
+     * @throws IllegalStateException If the preloader has been closed.
+     */
+    public synchronized void preload(@NonNull RunLearningUnitRequest request) {
+        if (closed) throw new IllegalStateException("Preloader has been closed.");
+        List<UpcomingLearningUnit> units = request.upcomingLearningUnits;
+        List<Preload> kept = new ArrayList<>();
+        for (Preload preload : preloads)
+            if (units.contains(preload.unit)) kept.add(preload);
+            else preload.close();
+        preloads.clear();
+
+        int preloadable = 0;
+        for (UpcomingLearningUnit unit : units) if (unit.assetsBaseUri != null) preloadable++;
+        long budgetPerUnit = preloadable == 0 ? 0 : budgetInBytes / preloadable;
+        for (int i = 0; i < units.size(); i++) {
+            UpcomingLearningUnit unit = units.get(i);
+            if (unit.assetsBaseUri == null) continue;
+            Preload preload = find(kept, unit);
+            if (preload != null) {
+                // Kept caches were sized for the previous units, so the total could otherwise
+                // exceed the budget.
+                preload.cache.setMaxSizeInBytes(budgetPerUnit);
+            } else {
+                AssetCache cache =
+                        new AssetCache(
+                                context,
+                                request.forUpcomingLearningUnit(unit),
+                                budgetPerUnit,
+                                AssetCache.DEFAULT_MAX_ASSET_SIZE_IN_BYTES,
+                                AssetCache.DEFAULT_MAX_OPEN_DESCRIPTORS);
+                // Earlier units get a higher priority.
+                preload =
+                        new Preload(
+                                unit,
+                                cache,
+                                prefetcher.prefetchManifest(cache, manifestPath, units.size() - i));
+            }
+            preloads.add(preload);
+        }
+    }
+
+    /**
+     * Hands over the cache of preloaded assets for the given learning unit, if it was preloaded.
+     * The caller becomes responsible for closing it.
+     *
+     * @param request The request of the learning unit that is about to run.
+     * @return The cache, which may still be loading assets, or null if the unit hasn't been
+     *     preloaded.
+     */
+    @Nullable
+    public synchronized AssetCache take(@NonNull RunLearningUnitRequest request) {
+        for (int i = 0; i < preloads.size(); i++) {
+            Preload preload = preloads.get(i);
+            if (preload.unit.learningUnitId.equals(request.learningUnitId)
+                    && Objects.equals(preload.unit.assetsBaseUri, request.getAssetsBaseUri())) {
+                // Loading continues, so that the unit can already use the assets that are done.
+                preloads.remove(i);
+                return preload.cache;
+            }
+        }
+        return null;
+    }
+
+    /** Cancels all loading and releases the caches that haven't been taken. */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Preload preload : preloads) preload.close();
+        preloads.clear();
+        prefetcher.shutdown();
+    }
+
+    @Nullable
+    private static Preload find(
+            @NonNull List<Preload> preloads, @NonNull UpcomingLearningUnit unit) {
+        for (Preload preload : preloads) if (preload.unit.equals(unit)) return preload;
+        return null;
+    }
+
+    /** The assets of one upcoming learning unit. */
+    private static final class Preload {
+        @NonNull final UpcomingLearningUnit unit;
+        @NonNull final AssetCache cache;
+        @NonNull final AssetPrefetcher.Handle handle;
+
+        Preload(
+                @NonNull UpcomingLearningUnit unit,
+                @NonNull AssetCache cache,
+                @NonNull AssetPrefetcher.Handle handle) {
+            this.unit = unit;
+            this.cache = cache;
+            this.handle = handle;
+        }
+
+        void close() {
+            handle.cancel();
+            cache.close();
+        }
+    }
+}
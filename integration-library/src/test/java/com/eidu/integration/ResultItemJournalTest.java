@@ -0,0 +1,88 @@
+package com.eidu.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ResultItemJournalTest {
+    @TempDir File directory;
+
+    List<ResultItem> items = new ArrayList<>();
+
+    public ResultItemJournalTest() {
+        for (int i = 0; i < 2000; i++)
+            items.add(
+                    new ResultItem(
+                            "id" + i,
+                            "challenge " + i,
+                            "given",
+                            "correct",
+                            i % 2 == 0 ? 1f : null,
+                            1000L + i,
+                            500L));
+    }
+
+    @Test
+    public void recoversItemsAfterReopening() {
+        ResultItemJournal journal = ResultItemJournal.open(directory, "run/1");
+        for (ResultItem item : items) journal.append(item);
+        journal.close();
+
+        assertEquals(Collections.singletonList("run/1"), ResultItemJournal.runIds(directory));
+        ResultItemJournal reopened = ResultItemJournal.open(directory, "run/1");
+        assertEquals(items.size(), reopened.size());
+        assertEquals(items, reopened.items());
+
+        reopened.append(items.get(0));
+        assertEquals(items.size() + 1, reopened.items().size());
+        reopened.delete();
+
+        assertTrue(ResultItemJournal.runIds(directory).isEmpty());
+    }
+
+    @Test
+    public void ignoresCorruptRecordsAtTheEnd() throws Exception {
+        ResultItemJournal journal = ResultItemJournal.open(directory, "run");
+        for (ResultItem item : items.subList(0, 3)) journal.append(item);
+        journal.close();
+
+        File file = new File(directory, directory.list()[0]);
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            // Flips a byte in the last item, as if its write had been interrupted.
+            long position = 0;
+            for (int i = 0; i < 2; i++) {
+                raw.seek(position);
+                position += 8 + raw.readInt();
+            }
+            raw.seek(position + 12);
+            int value = raw.read();
+            raw.seek(position + 12);
+            raw.write(value ^ 0xff);
+        }
+
+        ResultItemJournal reopened = ResultItemJournal.open(directory, "run");
+        assertEquals(items.subList(0, 2), reopened.items());
+
+        reopened.append(items.get(5));
+        reopened.close();
+        assertEquals(
+                items.subList(0, 2).size() + 1,
+                ResultItemJournal.open(directory, "run").items().size());
+    }
+
+    @Test
+    public void rejectsUseAfterClose() {
+        ResultItemJournal journal = ResultItemJournal.open(directory, "run");
+        journal.close();
+
+        assertThrows(IllegalStateException.class, () -> journal.append(items.get(0)));
+    }
+}
@@ -1,2 +1,5 @@
 rootProject.name = "EIDU Integration Library"
+include(":integration-codegen")
+include(":integration-core")
 include(":integration-library")
+include(":benchmark")